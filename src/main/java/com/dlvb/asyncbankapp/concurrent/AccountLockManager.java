@@ -0,0 +1,166 @@
+package com.dlvb.asyncbankapp.concurrent;
+
+import com.dlvb.asyncbankapp.diagnostics.jfr.LockWaitEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Менеджер блокировок аккаунтов.
+ * <p>
+ * Блокировки разбиты на фиксированное число полос (stripes): аккаунт блокирует только свою полосу,
+ * поэтому переводы между несвязанными аккаунтами выполняются параллельно. Две блокировки
+ * всегда берутся в порядке возрастания индекса полосы, что исключает взаимную блокировку.
+ * Ожидание блокировок записывается событием JFR {@link LockWaitEvent}.
+ * @author Matushkin Anton
+ */
+@Slf4j
+@Component
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long slowWaitThresholdNanos;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    public AccountLockManager(@Value("${bank.locks.stripes:4096}") int stripeCount,
+                              @Value("${bank.locks.slow-wait-threshold-ms:100}") long slowWaitThresholdMillis) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive: " + stripeCount);
+        }
+        int size = Integer.highestOneBit(stripeCount - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.slowWaitThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowWaitThresholdMillis);
+    }
+
+    /**
+     * Пытается захватить блокировки двух аккаунтов в фиксированном порядке.
+     *
+     * @param firstAccountId идентификатор первого аккаунта.
+     * @param secondAccountId идентификатор второго аккаунта.
+     * @param timeout общее время ожидания обеих блокировок.
+     * @param unit единица измерения {@code timeout}.
+     * @return {@code true}, если обе блокировки захвачены; в этом случае их нужно освободить через {@link #unlock}.
+     * @throws InterruptedException если поток был прерван во время ожидания.
+     */
+    public boolean tryLock(String firstAccountId, String secondAccountId, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        int first = stripeIndex(firstAccountId);
+        int second = stripeIndex(secondAccountId);
+        ReentrantLock lower = stripes[Math.min(first, second)];
+        ReentrantLock upper = stripes[Math.max(first, second)];
+
+        long startTime = System.nanoTime();
+        LockWaitEvent event = LockWaitEvent.start(firstAccountId, secondAccountId);
+        boolean acquired = false;
+        try {
+            acquired = lockInOrder(lower, upper, startTime + unit.toNanos(timeout));
+        } finally {
+            event.setAcquired(acquired);
+            event.commit();
+        }
+
+        if (acquired) {
+            recordAcquisition(startTime);
+        } else {
+            recordTimeout(startTime);
+        }
+        return acquired;
+    }
+
+    /**
+     * Освобождает блокировки, захваченные через {@link #tryLock}.
+     *
+     * @param firstAccountId идентификатор первого аккаунта.
+     * @param secondAccountId идентификатор второго аккаунта.
+     */
+    public void unlock(String firstAccountId, String secondAccountId) {
+        int first = stripeIndex(firstAccountId);
+        int second = stripeIndex(secondAccountId);
+        stripes[Math.max(first, second)].unlock();
+        if (first != second) {
+            stripes[Math.min(first, second)].unlock();
+        }
+    }
+
+    /**
+     * Возвращает статистику ожидания блокировок с момента запуска.
+     *
+     * @return снимок статистики.
+     */
+    public LockWaitStatistics getWaitStatistics() {
+        return new LockWaitStatistics(acquisitions.sum(), timeouts.sum(), totalWaitNanos.sum(), maxWaitNanos.get());
+    }
+
+    private static boolean lockInOrder(ReentrantLock lower, ReentrantLock upper, long deadline) throws InterruptedException {
+        if (!lower.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+        if (lower != upper && !upper.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            lower.unlock();
+            return false;
+        }
+        return true;
+    }
+
+    int stripeIndex(String accountId) {
+        int hash = accountId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void recordAcquisition(long startTime) {
+        long waited = System.nanoTime() - startTime;
+        acquisitions.increment();
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+        if (waited > slowWaitThresholdNanos) {
+            log.warn("Account locks acquired after {} ms", TimeUnit.NANOSECONDS.toMillis(waited));
+        }
+    }
+
+    private void recordTimeout(long startTime) {
+        long waited = System.nanoTime() - startTime;
+        timeouts.increment();
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+    }
+
+    /**
+     * Снимок статистики ожидания блокировок.
+     *
+     * @param acquisitions число успешных захватов.
+     * @param timeouts число захватов, не уложившихся в таймаут.
+     * @param totalWaitNanos суммарное время ожидания в наносекундах.
+     * @param maxWaitNanos максимальное время ожидания в наносекундах.
+     */
+    public record LockWaitStatistics(long acquisitions, long timeouts, long totalWaitNanos, long maxWaitNanos) {
+
+        /**
+         * Возвращает среднее время ожидания в наносекундах.
+         *
+         * @return среднее время ожидания или {@code 0}, если захватов ещё не было.
+         */
+        public double averageWaitNanos() {
+            long attempts = acquisitions + timeouts;
+            return attempts == 0 ? 0 : (double) totalWaitNanos / attempts;
+        }
+
+    }
+
+}
@@ -0,0 +1,246 @@
+package com.dlvb.asyncbankapp.concurrent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Контроль допуска асинхронной работы.
+ * <p>
+ * Как {@link TaskDecorator} исполнителя {@code taskExecutor} считает принятые, но не завершённые задачи
+ * и сглаженное (EWMA) время выполнения задачи. Ожидаемое время в очереди оценивается как
+ * {@code max(0, задач - исполнителей) * EWMA / исполнителей}. Запрос отклоняется до того, как работа принята,
+ * если оценка превышает порог его приоритета или в очереди не остаётся места.
+ * Пакетные запросы ({@link Priority#BULK}) отклоняются раньше одиночных: им недоступен резерв очереди
+ * и у них меньше допустимое ожидание.
+ * <p>
+ * Принятый запрос резервирует в очереди места под все свои задачи ({@link #reserve(int, int)}) одной атомарной операцией,
+ * поэтому параллельные запросы не могут занять одно и то же место. Резерв освобождается после постановки задач в очередь,
+ * когда их уже учитывает {@link #decorate(Runnable)}.
+ * <p>
+ * Время ожидания задачи в очереди и время её выполнения публикуются таймерами {@code bank.async.task.wait}
+ * и {@code bank.async.task.run}, отклонения — счётчиком {@code bank.admission.rejected}.
+ * @author Matushkin Anton
+ */
+@Slf4j
+@Component
+public class AdmissionControl implements TaskDecorator, RejectedExecutionHandler {
+
+    /**
+     * Приоритет запроса.
+     */
+    public enum Priority {
+
+        /**
+         * Одиночная операция; отклоняется последней.
+         */
+        SINGLE,
+
+        /**
+         * Пакет операций; отклоняется первым.
+         */
+        BULK
+
+    }
+
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private final int workers;
+    private final int capacity;
+    private final int singleReserve;
+    private final int singleMaxItems;
+    private final long bulkMaxWaitNanos;
+    private final long singleMaxWaitNanos;
+    private final MeterRegistry meterRegistry;
+    private final Timer waitTimer;
+    private final Timer runTimer;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong ewmaTaskNanos = new AtomicLong();
+
+    public AdmissionControl(MeterRegistry meterRegistry,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                            @Value("${bank.async.pool-size:11}") int poolSize,
+                            @Value("${bank.async.queue-capacity:100}") int queueCapacity,
+                            @Value("${bank.transactions.parallelism:10}") int parallelism,
+                            @Value("${bank.admission.single-reserve:20}") int singleReserve,
+                            @Value("${bank.admission.single-max-items:1}") int singleMaxItems,
+                            @Value("${bank.admission.bulk-max-wait:PT1S}") Duration bulkMaxWait,
+                            @Value("${bank.admission.single-max-wait:PT5S}") Duration singleMaxWait) {
+        this.meterRegistry = meterRegistry;
+        this.workers = Math.max(1, virtualThreads ? parallelism : poolSize);
+        this.capacity = virtualThreads ? Integer.MAX_VALUE : poolSize + queueCapacity;
+        this.singleReserve = singleReserve;
+        this.singleMaxItems = singleMaxItems;
+        this.bulkMaxWaitNanos = bulkMaxWait.toNanos();
+        this.singleMaxWaitNanos = singleMaxWait.toNanos();
+
+        Gauge.builder("bank.admission.in.flight", inFlight, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("bank.admission.estimated.wait", this, control -> control.estimatedWait().toMillis() / 1000.0)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("bank.async.task.wait")
+                .description("Time an async task spends queued before it starts")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("bank.async.task.run")
+                .description("Time an async task spends running")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Проверяет, можно ли принять запрос из {@code items} операций, выполняемый одной задачей.
+     *
+     * @param items число операций в запросе.
+     * @throws OverloadedException если запрос нужно отклонить; содержит рекомендуемое время повтора.
+     */
+    public void admit(int items) {
+        reserve(items, 1).close();
+    }
+
+    /**
+     * Принимает запрос из {@code items} операций и резервирует в очереди места под {@code tasks} его задач.
+     * Резерв нужно закрыть после постановки всех задач в исполнитель.
+     *
+     * @param items число операций в запросе.
+     * @param tasks число задач, которые запрос поставит в исполнитель.
+     * @return резерв мест в очереди.
+     * @throws OverloadedException если запрос нужно отклонить; содержит рекомендуемое время повтора.
+     */
+    public Reservation reserve(int items, int tasks) {
+        Priority priority = items <= singleMaxItems ? Priority.SINGLE : Priority.BULK;
+        long limit = priority == Priority.BULK ? (long) capacity - singleReserve : capacity;
+        long maxWaitNanos = priority == Priority.BULK ? bulkMaxWaitNanos : singleMaxWaitNanos;
+        while (true) {
+            int pending = inFlight.get();
+            Duration estimatedWait = estimatedWait(pending);
+            if (pending + (long) tasks > limit || estimatedWait.toNanos() > maxWaitNanos) {
+                meterRegistry.counter("bank.admission.rejected", "priority", priority.name().toLowerCase()).increment();
+                log.warn("Shedding {} request of {} items: {} tasks in flight, estimated wait {} ms",
+                        priority, items, pending, estimatedWait.toMillis());
+                throw new OverloadedException(retryAfter(estimatedWait));
+            }
+            if (inFlight.compareAndSet(pending, pending + tasks)) {
+                return new Reservation(tasks);
+            }
+        }
+    }
+
+    /**
+     * @return ожидаемое время в очереди для новой задачи.
+     */
+    public Duration estimatedWait() {
+        return estimatedWait(inFlight.get());
+    }
+
+    /**
+     * @return число принятых, но не завершённых задач.
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return рекомендуемое время до повторного запроса при текущей нагрузке.
+     */
+    public Duration retryAfter() {
+        return retryAfter(estimatedWait());
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        inFlight.incrementAndGet();
+        return new TrackedTask(runnable);
+    }
+
+    @Override
+    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+        if (runnable instanceof TrackedTask task) {
+            task.release();
+        }
+        meterRegistry.counter("bank.admission.rejected", "priority", "executor").increment();
+        throw new RejectedExecutionException("Task " + runnable + " rejected from " + executor);
+    }
+
+    private Duration estimatedWait(int pending) {
+        long waiting = Math.max(0, pending - workers);
+        return Duration.ofNanos(waiting * ewmaTaskNanos.get() / workers);
+    }
+
+    private static Duration retryAfter(Duration estimatedWait) {
+        return Duration.ofSeconds(Math.max(1, (estimatedWait.toMillis() + 999) / 1000));
+    }
+
+    private void recordTaskTime(long waitNanos, long runNanos) {
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        runTimer.record(runNanos, TimeUnit.NANOSECONDS);
+        ewmaTaskNanos.getAndUpdate(current -> current == 0
+                ? runNanos
+                : (long) (current + EWMA_WEIGHT * (runNanos - current)));
+    }
+
+    /**
+     * Места в очереди, зарезервированные под задачи принятого запроса.
+     */
+    public final class Reservation implements AutoCloseable {
+
+        private final AtomicInteger tasks;
+
+        private Reservation(int tasks) {
+            this.tasks = new AtomicInteger(tasks);
+        }
+
+        /**
+         * Освобождает резерв; повторный вызов ничего не делает.
+         */
+        @Override
+        public void close() {
+            inFlight.addAndGet(-tasks.getAndSet(0));
+        }
+
+    }
+
+    private final class TrackedTask implements Runnable {
+
+        private final Runnable delegate;
+        private final long submittedAt = System.nanoTime();
+        private boolean released;
+
+        private TrackedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            long startTime = System.nanoTime();
+            try {
+                delegate.run();
+            } finally {
+                recordTaskTime(startTime - submittedAt, System.nanoTime() - startTime);
+                release();
+            }
+        }
+
+        private void release() {
+            if (!released) {
+                released = true;
+                inFlight.decrementAndGet();
+            }
+        }
+
+    }
+
+}
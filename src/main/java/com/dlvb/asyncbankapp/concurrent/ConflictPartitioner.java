@@ -0,0 +1,155 @@
+package com.dlvb.asyncbankapp.concurrent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Разбиение пачки операций на независимые группы.
+ * <p>
+ * Операции, затрагивающие хотя бы один общий ресурс (например, аккаунт), объединяются
+ * в одну группу через систему непересекающихся множеств (union-find). Группы не делят ресурсов
+ * и могут выполняться параллельно; порядок операций внутри группы сохраняется.
+ * @author Matushkin Anton
+ */
+public final class ConflictPartitioner {
+
+    private ConflictPartitioner() {
+    }
+
+    /**
+     * Разбивает операции на группы, не имеющие общих ресурсов.
+     *
+     * @param items операции.
+     * @param resourceExtractors функции, возвращающие ресурсы операции; {@code null} игнорируется.
+     * @param <T> тип операции.
+     * @return группы индексов операций по возрастанию; группы упорядочены по первому индексу.
+     */
+    @SafeVarargs
+    public static <T> List<int[]> partition(List<T> items, Function<T, String>... resourceExtractors) {
+        int size = items.size();
+        int[] parent = new int[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+
+        Map<String, Integer> owners = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            T item = items.get(i);
+            for (Function<T, String> extractor : resourceExtractors) {
+                String resource = extractor.apply(item);
+                if (resource != null) {
+                    Integer owner = owners.putIfAbsent(resource, i);
+                    if (owner != null) {
+                        union(parent, owner, i);
+                    }
+                }
+            }
+        }
+
+        int[] groupSizes = new int[size];
+        for (int i = 0; i < size; i++) {
+            groupSizes[find(parent, i)]++;
+        }
+        int[][] groupsByRoot = new int[size][];
+        int[] filled = new int[size];
+        List<int[]> groups = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int root = find(parent, i);
+            if (groupsByRoot[root] == null) {
+                groupsByRoot[root] = new int[groupSizes[root]];
+                groups.add(groupsByRoot[root]);
+            }
+            groupsByRoot[root][filled[root]++] = i;
+        }
+        return groups;
+    }
+
+    /**
+     * Распределяет группы по корзинам так, чтобы суммарные размеры корзин были близки
+     * (жадно, начиная с самых больших групп).
+     *
+     * @param groups группы индексов, полученные из {@link #partition}.
+     * @param bucketCount максимальное число корзин.
+     * @return непустые корзины; индексы каждой группы внутри корзины идут подряд и в исходном порядке.
+     */
+    public static List<int[]> pack(List<int[]> groups, int bucketCount) {
+        int buckets = Math.max(1, Math.min(bucketCount, groups.size()));
+        List<List<int[]>> assigned = new ArrayList<>(buckets);
+        PriorityQueue<int[]> loads = new PriorityQueue<>(buckets,
+                Comparator.<int[]>comparingInt(load -> load[0]).thenComparingInt(load -> load[1]));
+        for (int i = 0; i < buckets; i++) {
+            assigned.add(new ArrayList<>());
+            loads.add(new int[]{0, i});
+        }
+
+        List<int[]> bySize = new ArrayList<>(groups);
+        bySize.sort(Comparator.<int[]>comparingInt(group -> group.length).reversed()
+                .thenComparingInt(group -> group[0]));
+        for (int[] group : bySize) {
+            int[] load = loads.poll();
+            assigned.get(load[1]).add(group);
+            load[0] += group.length;
+            loads.add(load);
+        }
+
+        List<int[]> result = new ArrayList<>(buckets);
+        for (List<int[]> bucketGroups : assigned) {
+            if (bucketGroups.isEmpty()) {
+                continue;
+            }
+            bucketGroups.sort(Comparator.comparingInt(group -> group[0]));
+            int total = 0;
+            for (int[] group : bucketGroups) {
+                total += group.length;
+            }
+            int[] bucket = new int[total];
+            int position = 0;
+            for (int[] group : bucketGroups) {
+                System.arraycopy(group, 0, bucket, position, group.length);
+                position += group.length;
+            }
+            result.add(bucket);
+        }
+        return result;
+    }
+
+    /**
+     * Собирает элементы списка по индексам.
+     *
+     * @param items исходный список.
+     * @param indices индексы элементов.
+     * @param <T> тип элемента.
+     * @return элементы в порядке индексов.
+     */
+    public static <T> List<T> select(List<T> items, int[] indices) {
+        return Arrays.stream(indices).mapToObj(items::get).toList();
+    }
+
+    private static int find(int[] parent, int node) {
+        int root = node;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        while (parent[node] != root) {
+            int next = parent[node];
+            parent[node] = root;
+            node = next;
+        }
+        return root;
+    }
+
+    private static void union(int[] parent, int first, int second) {
+        int firstRoot = find(parent, first);
+        int secondRoot = find(parent, second);
+        if (firstRoot != secondRoot) {
+            parent[Math.max(firstRoot, secondRoot)] = Math.min(firstRoot, secondRoot);
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.dlvb.asyncbankapp.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Повтор операций, завершившихся конфликтом оптимистической блокировки.
+ * <p>
+ * Операция должна открывать собственную транзакцию БД, чтобы каждая попытка перечитывала данные.
+ * Между попытками выдерживается пауза со случайным разбросом (full jitter) в пределах
+ * экспоненциально растущего окна, чтобы конкурирующие реплики не повторяли попытки синхронно.
+ * Последняя попытка может выполняться отдельной операцией, например с пессимистической блокировкой строк,
+ * чтобы горячие записи не отклоняли запросы после исчерпания повторов.
+ * Число повторов, переходов к запасной операции и исчерпанных попыток публикуется в метриках
+ * {@code bank.optimistic.lock.retries}, {@code bank.optimistic.lock.fallbacks} и {@code bank.optimistic.lock.exhausted}
+ * с тегом {@code operation}.
+ * @author Matushkin Anton
+ */
+@Slf4j
+@Component
+public class OptimisticRetryTemplate {
+
+    private static final String RETRIES_METRIC = "bank.optimistic.lock.retries";
+    private static final String FALLBACKS_METRIC = "bank.optimistic.lock.fallbacks";
+    private static final String EXHAUSTED_METRIC = "bank.optimistic.lock.exhausted";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    public OptimisticRetryTemplate(MeterRegistry meterRegistry,
+                                   @Value("${bank.retry.max-attempts:5}") int maxAttempts,
+                                   @Value("${bank.retry.initial-backoff-ms:10}") long initialBackoffMillis,
+                                   @Value("${bank.retry.max-backoff-ms:200}") long maxBackoffMillis) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max attempts must be positive: " + maxAttempts);
+        }
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(initialBackoffMillis);
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxBackoffMillis);
+    }
+
+    /**
+     * Выполняет операцию, повторяя её при конфликте оптимистической блокировки.
+     *
+     * @param operation имя операции для логов и метрик.
+     * @param action операция; каждая попытка должна выполняться в новой транзакции.
+     * @param <T> тип результата.
+     * @return результат успешной попытки.
+     * @throws OptimisticLockingFailureException если конфликт повторился на последней попытке.
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        return execute(operation, action, action);
+    }
+
+    /**
+     * Выполняет операцию, повторяя её при конфликте оптимистической блокировки;
+     * последняя попытка выполняется запасной операцией.
+     *
+     * @param operation имя операции для логов и метрик.
+     * @param action операция; каждая попытка должна выполняться в новой транзакции.
+     * @param lastAttemptAction операция для последней попытки.
+     * @param <T> тип результата.
+     * @return результат успешной попытки.
+     * @throws OptimisticLockingFailureException если конфликт повторился на последней попытке.
+     */
+    public <T> T execute(String operation, Supplier<T> action, Supplier<T> lastAttemptAction) {
+        for (int attempt = 1; ; attempt++) {
+            boolean lastAttempt = attempt == maxAttempts;
+            if (lastAttempt && attempt > 1 && lastAttemptAction != action) {
+                counter(FALLBACKS_METRIC, operation).increment();
+            }
+            try {
+                return lastAttempt ? lastAttemptAction.get() : action.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    counter(EXHAUSTED_METRIC, operation).increment();
+                    log.warn("Optimistic lock conflict in {} persisted after {} attempts", operation, attempt);
+                    throw e;
+                }
+                counter(RETRIES_METRIC, operation).increment();
+                log.debug("Optimistic lock conflict in {}, attempt {} of {}", operation, attempt, maxAttempts);
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Выполняет операцию без результата, повторяя её при конфликте оптимистической блокировки.
+     *
+     * @param operation имя операции для логов и метрик.
+     * @param action операция; каждая попытка должна выполняться в новой транзакции.
+     */
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void backOff(int attempt, OptimisticLockingFailureException cause) {
+        long window = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 20));
+        long pause = window <= 0 ? 0 : ThreadLocalRandom.current().nextLong(window + 1);
+        try {
+            TimeUnit.NANOSECONDS.sleep(pause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+
+}
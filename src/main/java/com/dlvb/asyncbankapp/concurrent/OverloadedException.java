@@ -0,0 +1,24 @@
+package com.dlvb.asyncbankapp.concurrent;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Запрос отклонён контролем допуска из-за перегрузки.
+ * @author Matushkin Anton
+ */
+@Getter
+public class OverloadedException extends RuntimeException {
+
+    /**
+     * Рекомендуемое время до повторного запроса.
+     */
+    private final Duration retryAfter;
+
+    public OverloadedException(Duration retryAfter) {
+        super("Service is overloaded, retry after " + retryAfter.toSeconds() + " s");
+        this.retryAfter = retryAfter;
+    }
+
+}
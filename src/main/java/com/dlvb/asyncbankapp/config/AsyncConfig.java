@@ -1,28 +1,106 @@
 package com.dlvb.asyncbankapp.config;
 
+import com.dlvb.asyncbankapp.concurrent.AdmissionControl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
- * Конфигурация для асинхронного выполнения
+ * Конфигурация для асинхронного выполнения и фоновых задач по расписанию
+ * <p>
+ * При {@code spring.threads.virtual.enabled=true} {@code @Async}-методы (как и обработка запросов Tomcat)
+ * выполняются на виртуальных потоках, иначе — в пуле платформенных потоков фиксированного размера.
+ * В обоих режимах задачи проходят через {@link AdmissionControl}, который оценивает очередь исполнителя.
+ * Вычислительные задачи выполняются отдельно, в общем пуле {@code computeExecutor} размером с число ядер.
  * @author Matushkin Anton
  */
 @EnableAsync
+@EnableScheduling
 @Configuration
 public class AsyncConfig {
 
     @Bean
-    public Executor taskExecutor() {
+    public Executor taskExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                 @Value("${bank.async.pool-size:11}") int poolSize,
+                                 @Value("${bank.async.queue-capacity:100}") int queueCapacity,
+                                 AdmissionControl admissionControl) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = virtualThreadExecutor();
+            executor.setTaskDecorator(admissionControl);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = newPlatformThreadExecutor(poolSize, queueCapacity);
+        executor.setTaskDecorator(admissionControl);
+        executor.setRejectedExecutionHandler(admissionControl);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Общий пул для вычислительных задач (расчёты по депозитам, волатильность).
+     * Размер по умолчанию равен числу ядер; при заполненной очереди задача выполняется в вызывающем потоке,
+     * что замедляет источник нагрузки вместо отказа. При остановке контекста пул дожидается начатых задач.
+     *
+     * @param poolSize число потоков; {@code 0} — по числу доступных ядер.
+     * @param queueCapacity ёмкость очереди задач.
+     * @param awaitTermination время ожидания задач при остановке, в секундах.
+     * @return пул вычислительных задач.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor computeExecutor(@Value("${bank.compute.pool-size:0}") int poolSize,
+                                                  @Value("${bank.compute.queue-capacity:1000}") int queueCapacity,
+                                                  @Value("${bank.compute.await-termination-seconds:30}") int awaitTermination) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(11);
-        executor.setMaxPoolSize(11);
-        executor.setQueueCapacity(100);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("compute-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(awaitTermination);
+        return executor;
+    }
+
+    /**
+     * Создаёт исполнитель, запускающий каждую задачу на новом виртуальном потоке.
+     * Число одновременных задач не ограничено; доступ к БД ограничивается отдельно, размером пула соединений.
+     *
+     * @return исполнитель на виртуальных потоках.
+     */
+    public static SimpleAsyncTaskExecutor virtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("async-vt-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    /**
+     * Создаёт пул платформенных потоков фиксированного размера с ограниченной очередью.
+     *
+     * @param poolSize число потоков.
+     * @param queueCapacity ёмкость очереди задач.
+     * @return инициализированный пул.
+     */
+    public static ThreadPoolTaskExecutor platformThreadExecutor(int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = newPlatformThreadExecutor(poolSize, queueCapacity);
         executor.initialize();
         return executor;
     }
 
+    private static ThreadPoolTaskExecutor newPlatformThreadExecutor(int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("async-");
+        return executor;
+    }
+
 }
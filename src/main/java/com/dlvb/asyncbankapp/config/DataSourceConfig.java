@@ -0,0 +1,41 @@
+package com.dlvb.asyncbankapp.config;
+
+import com.dlvb.asyncbankapp.concurrent.ConnectionLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация источника данных
+ * <p>
+ * При {@code bank.datasource.limit-connections=true} (по умолчанию — в режиме виртуальных потоков)
+ * пул Hikari оборачивается в {@link ConnectionLimitingDataSource} с числом разрешений,
+ * равным {@code maximum-pool-size}, и тем же тайм-аутом ожидания соединения.
+ * @author Matushkin Anton
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Размер пула Hikari, если {@code maximum-pool-size} не задан (до запуска пула значение равно -1).
+     */
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    @ConditionalOnProperty(name = "bank.datasource.limit-connections", havingValue = "true")
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    int poolSize = hikari.getMaximumPoolSize() > 0 ? hikari.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+                    return new ConnectionLimitingDataSource(hikari, poolSize, hikari.getConnectionTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+
+}
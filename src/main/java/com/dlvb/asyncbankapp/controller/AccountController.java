@@ -1,9 +1,16 @@
 package com.dlvb.asyncbankapp.controller;
 
+import com.dlvb.asyncbankapp.concurrent.AdmissionControl;
 import com.dlvb.asyncbankapp.dto.BalanceUpdateRequest;
+import com.dlvb.asyncbankapp.dto.BalanceUpdateResult;
 import com.dlvb.asyncbankapp.dto.CreateAccountDTO;
+import com.dlvb.asyncbankapp.dto.IngestReport;
+import com.dlvb.asyncbankapp.dto.JobStatusDTO;
+import com.dlvb.asyncbankapp.job.BatchJob;
+import com.dlvb.asyncbankapp.job.JobRegistry;
 import com.dlvb.asyncbankapp.model.Account;
 import com.dlvb.asyncbankapp.service.AccountService;
+import com.dlvb.asyncbankapp.service.IngestService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -12,16 +19,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.InputStream;
 import java.util.List;
 
-@Slf4j
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
@@ -31,6 +40,15 @@ public class AccountController {
     @NonNull
     private final AccountService accountService;
 
+    @NonNull
+    private final JobRegistry jobRegistry;
+
+    @NonNull
+    private final IngestService ingestService;
+
+    @NonNull
+    private final AdmissionControl admissionControl;
+
     @Operation(summary = "Создать новый аккаунт", description = "Создаёт новый аккаунт на основе предоставленных данных.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Успешное создание аккаунта",
@@ -42,34 +60,49 @@ public class AccountController {
         return ResponseEntity.ok(accountService.createAccount(createAccountRequest));
     }
 
-    @Operation(summary = "Обновить балансы аккаунтов", description = "Последовательно обновляет балансы аккаунтов.")
+    @Operation(summary = "Обновить балансы аккаунтов",
+            description = "Обновляет балансы аккаунтов; изменения одного аккаунта сворачиваются в одну запись. "
+                    + "С параметром detailed возвращает результат для каждого запроса.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Балансы успешно обновлены"),
     })
     @PostMapping("/update-balances")
-    public ResponseEntity<Void> updateBalances(@RequestBody List<BalanceUpdateRequest> requests) {
-        long startTime = System.currentTimeMillis();
-
+    public ResponseEntity<List<BalanceUpdateResult>> updateBalances(@RequestBody List<BalanceUpdateRequest> requests,
+                                                                    @RequestParam(defaultValue = "false") boolean detailed) {
+        if (detailed) {
+            return ResponseEntity.ok(accountService.updateMultipleBalancesWithResults(requests));
+        }
         accountService.updateMultipleBalances(requests);
-
-        long endTime = System.currentTimeMillis();
-        log.info("Sequential balance update completed in " + (endTime - startTime) + " ms");
         return ResponseEntity.ok().build();
     }
 
+    @Operation(summary = "Потоковое обновление балансов аккаунтов в формате NDJSON",
+            description = "Читает обновления по одному и фиксирует их частями; при ошибке зафиксированные части остаются применёнными.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Балансы успешно обновлены"),
+            @ApiResponse(responseCode = "422", description = "Обработка остановлена; в отчёте указано, сколько записей зафиксировано")
+    })
+    @PostMapping(path = "/update-balances", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<IngestReport> updateBalancesStream(InputStream body) {
+        IngestReport report = ingestService.ingestBalanceUpdates(body);
+        return ResponseEntity.status(report.isCompleted() ? HttpStatus.OK : HttpStatus.UNPROCESSABLE_ENTITY).body(report);
+    }
+
     @Operation(summary = "Асинхронное обновление балансов аккаунтов", description = "Асинхронно обновляет балансы аккаунтов.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Балансы успешно обновлены асинхронно"),
+            @ApiResponse(responseCode = "202", description = "Обновление принято в обработку; состояние доступно по /api/jobs/{jobId}"),
+            @ApiResponse(responseCode = "429", description = "Сервис перегружен; повторите запрос через Retry-After секунд")
     })
     @PostMapping("/update-balances-async")
-    public ResponseEntity<Void> updateBalancesAsync(@RequestBody List<BalanceUpdateRequest> requests) {
-        long startTime = System.currentTimeMillis();
-
-        accountService.updateMultipleBalancesAsync(requests);
+    public ResponseEntity<JobStatusDTO> updateBalancesAsync(@RequestBody List<BalanceUpdateRequest> requests) {
+        try (AdmissionControl.Reservation reservation = admissionControl.reserve(requests.size(), 1)) {
+            BatchJob job = jobRegistry.register("balances", requests.size());
+            jobRegistry.track(job, () -> accountService.updateMultipleBalancesAsync(requests, job));
 
-        long endTime = System.currentTimeMillis();
-        log.info("Asynchronous balance update completed in " + (endTime - startTime) + " ms");
-        return ResponseEntity.ok().build();
+            return ResponseEntity.accepted()
+                    .location(JobController.jobLocation(job))
+                    .body(JobStatusDTO.toDTO(job));
+        }
     }
 
 }
@@ -1,8 +1,10 @@
 package com.dlvb.asyncbankapp.controller;
 
 import com.dlvb.asyncbankapp.dto.CreateOrUpdateDepositDTO;
+import com.dlvb.asyncbankapp.dto.VolatilityEstimate;
 import com.dlvb.asyncbankapp.model.Deposit;
 import com.dlvb.asyncbankapp.service.DepositService;
+import com.dlvb.asyncbankapp.volatility.VolatilityEngine;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -18,6 +20,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -49,12 +52,7 @@ public class DepositController {
     @GetMapping("/get-statistics")
     public Map<String, String> getStatistics(@RequestParam double rate, @RequestParam String depositId,
                                              @RequestParam int year) {
-        long startTime = System.currentTimeMillis();
-        Map<String, String> calculations = depositService.getCalculationsByDateAndRate(LocalDate.of(year, 1, 1),
-                rate, depositId);
-        long endTime = System.currentTimeMillis();
-        log.info("Sequential getting statistics completed in " + (endTime - startTime) + " ms.");
-        return calculations;
+        return depositService.getCalculationsByDateAndRate(LocalDate.of(year, 1, 1), rate, depositId);
     }
 
     @Operation(summary = "Получение статистики по нескольким депозитам")
@@ -64,14 +62,7 @@ public class DepositController {
     @PostMapping("/get-statistics-for-multiple-accounts")
     public Map<String, Map<String, String>> getStatisticsForListOfUsers(@RequestBody List<String> depositIds,
                                                                         @RequestParam int year) {
-
-        long startTime = System.currentTimeMillis();
-        Map<String, Map<String, String>> calculations =
-                depositService.getCalculationsByDateAndRateForMultipleAccounts(LocalDate.of(year, 1, 1),
-                        10, depositIds);
-        long endTime = System.currentTimeMillis();
-        log.info("Sequential getting statistics for multiple accounts completed in " + (endTime - startTime) + " ms.");
-        return calculations;
+        return depositService.getCalculationsByDateAndRateForMultipleAccounts(LocalDate.of(year, 1, 1), 10, depositIds);
     }
 
     @Operation(summary = "Получение статистики по нескольким депозитам асинхронно")
@@ -81,14 +72,7 @@ public class DepositController {
     @PostMapping("/get-statistics-for-multiple-accounts-async")
     public Map<String, Map<String, String>> getStatisticsForListOfUsersAsync(@RequestBody List<String> depositIds,
                                                                              @RequestParam int year) {
-
-        long startTime = System.currentTimeMillis();
-        Map<String, Map<String, String>> calculations =
-                depositService.getCalculationsByDateAndRateForMultipleAccountsAsync(
-                        LocalDate.of(year, 1, 1), 10, depositIds);
-        long endTime = System.currentTimeMillis();
-        log.info("Asynchronous getting statistics for multiple accounts completed in " + (endTime - startTime) + " ms.");
-        return calculations;
+        return depositService.getCalculationsByDateAndRateForMultipleAccountsAsync(LocalDate.of(year, 1, 1), 10, depositIds);
     }
 
     @Operation(summary = "Расчёт волатильности")
@@ -96,23 +80,14 @@ public class DepositController {
             @ApiResponse(responseCode = "200", description = "Волатильность успешно рассчитана")
     })
     @GetMapping("/calculate-volatility")
-    public ResponseEntity<Double> calculateVolatility(@RequestParam long currentTime, @RequestParam int iterations) {
-
+    public ResponseEntity<Double> calculateVolatility(@RequestParam long currentTime, @RequestParam int iterations,
+                                                      @RequestParam(required = false) Long seed) {
         try {
-            long startTime = System.currentTimeMillis();
-
-            double averageVolatility = depositService.calculateVolatility(currentTime, iterations);
-
-            long endTime = System.currentTimeMillis();
-            log.info("Calculating average volatility completed in " + (endTime - startTime) + " ms.");
-
-            return ResponseEntity.ok(averageVolatility);
-
+            return ResponseEntity.ok(depositService.calculateVolatility(currentTime, iterations, seed));
         } catch (Exception e) {
             log.error("Error calculating average volatility", e);
             return ResponseEntity.status(500).build();
         }
-
     }
 
     @Operation(summary = "Расчёт волатильности с использованием runnable")
@@ -121,13 +96,7 @@ public class DepositController {
     })
     @GetMapping("/calculate-volatility-runnable")
     public ResponseEntity<Double> calculateVolatilityRunnable(@RequestParam long currentTime, @RequestParam int iterations) {
-        long startTime = System.currentTimeMillis();
-
-        double averageVolatility = depositService.calculateVolatilityWithRunnable(currentTime, iterations);
-
-        long endTime = System.currentTimeMillis();
-        log.info("Calculating average volatility(runnable) completed in " + (endTime - startTime) + " ms.");
-        return ResponseEntity.ok(averageVolatility);
+        return ResponseEntity.ok(depositService.calculateVolatilityWithRunnable(currentTime, iterations));
     }
 
     @Operation(summary = "Расчёт волатильности с использованием future")
@@ -135,20 +104,45 @@ public class DepositController {
             @ApiResponse(responseCode = "200", description = "Волатильность успешно рассчитана с использованием future")
     })
     @GetMapping("/calculate-volatility-future")
-    public ResponseEntity<Double> calculateVolatilityFuture(@RequestParam long currentTime, @RequestParam int iterations) {
-
+    public ResponseEntity<Double> calculateVolatilityFuture(@RequestParam long currentTime, @RequestParam int iterations,
+                                                            @RequestParam(required = false) Long seed) {
         try {
-            long startTime = System.currentTimeMillis();
+            return ResponseEntity.ok(depositService.calculateVolatilityFuture(currentTime, iterations, seed));
+        } catch (ExecutionException e) {
+            log.error("Error calculating average volatility(future)", e);
+            return ResponseEntity.status(500).build();
+        }
+    }
 
-            double averageVolatility = depositService.calculateVolatilityFuture(currentTime, iterations);
+    @Operation(summary = "Расчёт волатильности с заданной точностью",
+            description = "Выполняет итерации, пока стандартная ошибка среднего или ширина 95% доверительного интервала "
+                    + "не достигнет заданной, либо пока не истечёт бюджет времени. Указывается targetStandardError или confidenceWidth.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Волатильность успешно оценена"),
+            @ApiResponse(responseCode = "400", description = "Не задана целевая точность")
+    })
+    @GetMapping("/calculate-volatility-adaptive")
+    public ResponseEntity<VolatilityEstimate> calculateVolatilityAdaptive(@RequestParam long currentTime,
+                                                                          @RequestParam(required = false) Double targetStandardError,
+                                                                          @RequestParam(required = false) Double confidenceWidth,
+                                                                          @RequestParam(defaultValue = "1000") long timeBudgetMillis,
+                                                                          @RequestParam(required = false) Long seed) {
+        double target;
+        if (targetStandardError != null && targetStandardError > 0) {
+            target = targetStandardError;
+        } else if (confidenceWidth != null && confidenceWidth > 0) {
+            target = VolatilityEngine.standardErrorForConfidenceWidth(confidenceWidth);
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
 
-            long endTime = System.currentTimeMillis();
-            log.info("Calculating average volatility(future) completed in " + (endTime - startTime) + " ms.");
-            return ResponseEntity.ok(averageVolatility);
+        try {
+            return ResponseEntity.ok(depositService.estimateVolatility(currentTime, target,
+                    Duration.ofMillis(Math.max(0, timeBudgetMillis)), seed));
         } catch (ExecutionException e) {
+            log.error("Error estimating volatility", e);
             return ResponseEntity.status(500).build();
         }
-
     }
 
 }
@@ -0,0 +1,59 @@
+package com.dlvb.asyncbankapp.controller;
+
+import com.dlvb.asyncbankapp.dto.JobStatusDTO;
+import com.dlvb.asyncbankapp.job.BatchJob;
+import com.dlvb.asyncbankapp.job.JobRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+/**
+ * Контроллер для получения состояния асинхронных пакетных задач, зарегистрированных в {@link JobRegistry}.
+ * @author Matushkin Anton
+ */
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+@Tag(name = "Job контроллер", description = "Контроллер для отслеживания фоновых пакетных задач")
+public class JobController {
+
+    @NonNull
+    private final JobRegistry jobRegistry;
+
+    @Operation(summary = "Получить состояние задачи",
+            description = "Возвращает прогресс, ошибки элементов и время выполнения асинхронной пакетной задачи.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Состояние задачи",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = JobStatusDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Задача не найдена или удалена по истечении срока хранения")
+    })
+    @GetMapping("/{jobId}")
+    public ResponseEntity<JobStatusDTO> getJob(@PathVariable String jobId) {
+        return jobRegistry.find(jobId)
+                .map(JobStatusDTO::toDTO)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    static URI jobLocation(BatchJob job) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/jobs/{jobId}")
+                .buildAndExpand(job.getId())
+                .toUri();
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.dlvb.asyncbankapp.controller;
+
+import com.dlvb.asyncbankapp.concurrent.AdmissionControl;
+import com.dlvb.asyncbankapp.concurrent.OverloadedException;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.Duration;
+
+/**
+ * Обработчик перегрузки: отвечает {@code 429 Too Many Requests} с заголовком {@code Retry-After},
+ * если запрос отклонён {@link AdmissionControl} или исполнитель асинхронных задач отказал в приёме задачи.
+ * @author Matushkin Anton
+ */
+@Slf4j
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class OverloadExceptionHandler {
+
+    @NonNull
+    private final AdmissionControl admissionControl;
+
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<Void> handleOverloaded(OverloadedException e) {
+        return tooManyRequests(e.getRetryAfter());
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Void> handleTaskRejected(TaskRejectedException e) {
+        log.warn("Async executor rejected a task: {}", e.getMessage());
+        return tooManyRequests(admissionControl.retryAfter());
+    }
+
+    private static ResponseEntity<Void> tooManyRequests(Duration retryAfter) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()))
+                .build();
+    }
+
+}
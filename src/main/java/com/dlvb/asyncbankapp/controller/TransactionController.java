@@ -1,6 +1,13 @@
 package com.dlvb.asyncbankapp.controller;
 
+import com.dlvb.asyncbankapp.concurrent.AdmissionControl;
+import com.dlvb.asyncbankapp.dto.IngestReport;
+import com.dlvb.asyncbankapp.dto.JobStatusDTO;
 import com.dlvb.asyncbankapp.dto.TransactionDTO;
+import com.dlvb.asyncbankapp.dto.TransactionResult;
+import com.dlvb.asyncbankapp.job.BatchJob;
+import com.dlvb.asyncbankapp.job.JobRegistry;
+import com.dlvb.asyncbankapp.service.IngestService;
 import com.dlvb.asyncbankapp.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -8,53 +15,89 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.InputStream;
 import java.util.List;
 
-@Slf4j
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
 @Tag(name = "Transaction контроллер", description = "Контроллер для работы с транзакциями")
 public class TransactionController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     @NonNull
     private final TransactionService transactionService;
 
+    @NonNull
+    private final JobRegistry jobRegistry;
+
+    @NonNull
+    private final IngestService ingestService;
+
+    @NonNull
+    private final AdmissionControl admissionControl;
+
+    @Value("${bank.transactions.parallelism:10}")
+    private int parallelism;
+
     @Operation(summary = "Последовательная обработка нескольких транзакций")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Транзакции успешно обработаны")
+            @ApiResponse(responseCode = "200", description = "Транзакции обработаны; для повторов возвращаются сохранённые результаты")
     })
     @PostMapping("/process-transactions")
-    public ResponseEntity<Void> processTransactions(@RequestBody List<TransactionDTO> transactions) {
-        long startTime = System.currentTimeMillis();
+    public ResponseEntity<List<TransactionResult>> processTransactions(@RequestBody List<TransactionDTO> transactions,
+                                                                       @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                                       String idempotencyKey) {
+        TransactionDTO.applyBatchIdempotencyKey(transactions, idempotencyKey);
 
-        transactionService.processMultipleTransactions(transactions);
+        return ResponseEntity.ok(transactionService.processMultipleTransactions(transactions));
+    }
 
-        long endTime = System.currentTimeMillis();
-        log.info("Sequential transaction processing completed in " + (endTime - startTime) + " ms");
-        return ResponseEntity.ok().build();
+    @Operation(summary = "Потоковая обработка транзакций в формате NDJSON",
+            description = "Читает транзакции по одной и фиксирует их частями; при ошибке зафиксированные части остаются применёнными.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Транзакции успешно обработаны"),
+            @ApiResponse(responseCode = "422", description = "Обработка остановлена; в отчёте указано, сколько записей зафиксировано")
+    })
+    @PostMapping(path = "/process-transactions", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<IngestReport> processTransactionsStream(InputStream body,
+                                                                  @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                                  String idempotencyKey) {
+        IngestReport report = ingestService.ingestTransactions(body, idempotencyKey);
+        return ResponseEntity.status(report.isCompleted() ? HttpStatus.OK : HttpStatus.UNPROCESSABLE_ENTITY).body(report);
     }
 
     @Operation(summary = "Асинхронная обработка нескольких транзакций")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Транзакции успешно обработаны асинхронно")
+            @ApiResponse(responseCode = "202", description = "Транзакции приняты в обработку; состояние доступно по /api/jobs/{jobId}"),
+            @ApiResponse(responseCode = "429", description = "Сервис перегружен; повторите запрос через Retry-After секунд")
     })
     @PostMapping("/process-transactionsAsync")
-    public ResponseEntity<Void> processTransactionsAsync(@RequestBody List<TransactionDTO> transactions) {
-        long startTime = System.currentTimeMillis();
+    public ResponseEntity<JobStatusDTO> processTransactionsAsync(@RequestBody List<TransactionDTO> transactions,
+                                                         @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                         String idempotencyKey) {
+        int tasks = Math.max(1, Math.min(transactions.size(), parallelism));
+        try (AdmissionControl.Reservation reservation = admissionControl.reserve(transactions.size(), tasks)) {
+            TransactionDTO.applyBatchIdempotencyKey(transactions, idempotencyKey);
 
-        transactionService.processMultipleTransactionsAsync(transactions);
+            BatchJob job = jobRegistry.register("transactions", transactions.size());
+            jobRegistry.track(job, () -> transactionService.processMultipleTransactionsAsync(transactions, job));
 
-        long endTime = System.currentTimeMillis();
-        log.info("Asynchronous transaction processing completed in " + (endTime - startTime) + " ms");
-        return ResponseEntity.ok().build();
+            return ResponseEntity.accepted()
+                    .location(JobController.jobLocation(job))
+                    .body(JobStatusDTO.toDTO(job));
+        }
     }
 
 }
@@ -0,0 +1,185 @@
+package com.dlvb.asyncbankapp.diagnostics;
+
+import com.dlvb.asyncbankapp.concurrent.AdmissionControl;
+import com.dlvb.asyncbankapp.concurrent.ConnectionLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Снимок состояния пулов: исполнителя {@code taskExecutor} и пула соединений Hikari.
+ * <p>
+ * Показывает, что ограничивает асинхронные пакеты: занятые потоки и очередь исполнителя, время ожидания задачи
+ * в очереди против времени её выполнения, потоки, ожидающие соединения, и время получения соединения.
+ * Снимок доступен через actuator ({@code /actuator/pools}); те же величины публикуются метриками
+ * {@code executor.*} и {@code hikaricp.*} (Spring Boot), {@code bank.async.task.*} и {@code bank.admission.rejected}.
+ * Если пул обёрнут в {@link ConnectionLimitingDataSource}, очередь перед пулом публикуется метриками
+ * {@code bank.datasource.limiter.*}.
+ * @author Matushkin Anton
+ */
+@Component
+@Endpoint(id = "pools")
+public class PoolDiagnostics {
+
+    private static final String TASK_EXECUTOR = "taskExecutor";
+
+    private final MeterRegistry meterRegistry;
+    private final AdmissionControl admissionControl;
+    private final Executor taskExecutor;
+    private final HikariDataSource hikariDataSource;
+    private final ConnectionLimitingDataSource connectionLimiter;
+
+    public PoolDiagnostics(MeterRegistry meterRegistry,
+                           AdmissionControl admissionControl,
+                           @Qualifier(TASK_EXECUTOR) Executor taskExecutor,
+                           DataSource dataSource) {
+        this.meterRegistry = meterRegistry;
+        this.admissionControl = admissionControl;
+        this.taskExecutor = taskExecutor;
+        this.hikariDataSource = unwrap(dataSource, HikariDataSource.class);
+        this.connectionLimiter = unwrap(dataSource, ConnectionLimitingDataSource.class);
+
+        if (connectionLimiter != null) {
+            Gauge.builder("bank.datasource.limiter.waiting", connectionLimiter, ConnectionLimitingDataSource::getQueueLength)
+                    .description("Threads waiting for a connection permit before the pool")
+                    .register(meterRegistry);
+            Gauge.builder("bank.datasource.limiter.available", connectionLimiter, ConnectionLimitingDataSource::getAvailablePermits)
+                    .description("Free connection permits")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Возвращает текущее состояние исполнителя и пула соединений.
+     *
+     * @return снимок состояния пулов.
+     */
+    @ReadOperation
+    public PoolsSnapshot snapshot() {
+        return new PoolsSnapshot(executorSnapshot(), dataSourceSnapshot());
+    }
+
+    private ExecutorSnapshot executorSnapshot() {
+        TimerSnapshot waitTime = timerSnapshot(meterRegistry.find("bank.async.task.wait").timer());
+        TimerSnapshot runTime = timerSnapshot(meterRegistry.find("bank.async.task.run").timer());
+        long rejected = count(meterRegistry.find("bank.admission.rejected").tag("priority", "executor").counter());
+        long shed = count(meterRegistry.find("bank.admission.rejected").tag("priority", "bulk").counter())
+                + count(meterRegistry.find("bank.admission.rejected").tag("priority", "single").counter());
+
+        if (taskExecutor instanceof ThreadPoolTaskExecutor pool) {
+            ThreadPoolExecutor executor = pool.getThreadPoolExecutor();
+            return new ExecutorSnapshot(TASK_EXECUTOR, "platform", admissionControl.inFlight(),
+                    executor.getActiveCount(), executor.getPoolSize(), executor.getMaximumPoolSize(),
+                    executor.getQueue().size(), executor.getQueue().remainingCapacity(), executor.getCompletedTaskCount(),
+                    rejected, shed, waitTime, runTime);
+        }
+        return new ExecutorSnapshot(TASK_EXECUTOR, "virtual", admissionControl.inFlight(),
+                null, null, null, null, null, null, rejected, shed, waitTime, runTime);
+    }
+
+    private DataSourceSnapshot dataSourceSnapshot() {
+        if (hikariDataSource == null || hikariDataSource.getHikariPoolMXBean() == null) {
+            return null;
+        }
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        String poolName = hikariDataSource.getPoolName();
+        TimerSnapshot acquire = timerSnapshot(meterRegistry.find("hikaricp.connections.acquire").tag("pool", poolName).timer());
+        return new DataSourceSnapshot(poolName, pool.getActiveConnections(), pool.getIdleConnections(),
+                pool.getTotalConnections(), hikariDataSource.getMaximumPoolSize(), pool.getThreadsAwaitingConnection(),
+                acquire,
+                connectionLimiter == null ? null : connectionLimiter.getQueueLength(),
+                connectionLimiter == null ? null : connectionLimiter.getAvailablePermits());
+    }
+
+    private static TimerSnapshot timerSnapshot(Timer timer) {
+        if (timer == null) {
+            return null;
+        }
+        return new TimerSnapshot(timer.count(), timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS));
+    }
+
+    private static long count(Counter counter) {
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    private static <T> T unwrap(DataSource dataSource, Class<T> type) {
+        try {
+            return dataSource.isWrapperFor(type) ? dataSource.unwrap(type) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Снимок состояния пулов.
+     *
+     * @param taskExecutor исполнитель асинхронных задач.
+     * @param dataSource пул соединений; {@code null}, если это не Hikari или пул ещё не запущен.
+     */
+    public record PoolsSnapshot(ExecutorSnapshot taskExecutor, DataSourceSnapshot dataSource) {
+    }
+
+    /**
+     * Состояние исполнителя. Для исполнителя на виртуальных потоках размеры пула и очереди не определены.
+     *
+     * @param name имя бина исполнителя.
+     * @param threads {@code platform} или {@code virtual}.
+     * @param inFlight принятые, но не завершённые задачи.
+     * @param active потоки, выполняющие задачи.
+     * @param poolSize текущее число потоков.
+     * @param maxPoolSize максимальное число потоков.
+     * @param queued задачи в очереди.
+     * @param queueRemaining свободное место в очереди.
+     * @param completed завершённые задачи.
+     * @param rejected задачи, отклонённые исполнителем.
+     * @param shed запросы, отклонённые контролем допуска до постановки в очередь.
+     * @param waitTime время ожидания задачи в очереди.
+     * @param runTime время выполнения задачи.
+     */
+    public record ExecutorSnapshot(String name, String threads, int inFlight, Integer active, Integer poolSize,
+                                   Integer maxPoolSize, Integer queued, Integer queueRemaining, Long completed,
+                                   long rejected, long shed, TimerSnapshot waitTime, TimerSnapshot runTime) {
+    }
+
+    /**
+     * Состояние пула соединений.
+     *
+     * @param pool имя пула.
+     * @param active выданные соединения.
+     * @param idle свободные соединения.
+     * @param total все соединения пула.
+     * @param max максимальный размер пула.
+     * @param pendingThreads потоки, ожидающие соединения в пуле.
+     * @param acquire время получения соединения из пула.
+     * @param limiterWaiting потоки, ожидающие разрешения перед пулом; {@code null} без {@link ConnectionLimitingDataSource}.
+     * @param limiterAvailable свободные разрешения; {@code null} без {@link ConnectionLimitingDataSource}.
+     */
+    public record DataSourceSnapshot(String pool, int active, int idle, int total, int max, int pendingThreads,
+                                     TimerSnapshot acquire, Integer limiterWaiting, Integer limiterAvailable) {
+    }
+
+    /**
+     * Сводка таймера с момента запуска приложения; максимум — за последнее окно публикации.
+     *
+     * @param count число измерений.
+     * @param meanMillis среднее время.
+     * @param maxMillis максимальное время.
+     */
+    public record TimerSnapshot(long count, double meanMillis, double maxMillis) {
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.dlvb.asyncbankapp.diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Детектор закрепления виртуальных потоков.
+ * <p>
+ * Подписывается на событие JFR {@code jdk.VirtualThreadPinned}: виртуальный поток, заблокировавшийся
+ * внутри {@code synchronized} или нативного кадра, не освобождает поток-носитель. События группируются
+ * по верхним кадрам стека, отчёт доступен через actuator ({@code /actuator/pinning}).
+ * @author Matushkin Anton
+ */
+@Slf4j
+@Component
+@Endpoint(id = "pinning")
+@ConditionalOnProperty(name = "bank.pinning-monitor.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "com.dlvb.asyncbankapp.";
+    private static final String OTHER_SITES = "<other>";
+
+    private final Duration threshold;
+    private final int stackDepth;
+    private final int maxSites;
+
+    private final Map<String, PinnedSiteStats> sites = new ConcurrentHashMap<>();
+    private final LongAdder totalEvents = new LongAdder();
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(@Value("${bank.pinning-monitor.threshold:PT0.02S}") Duration threshold,
+                                       @Value("${bank.pinning-monitor.stack-depth:8}") int stackDepth,
+                                       @Value("${bank.pinning-monitor.max-sites:1000}") int maxSites) {
+        this.threshold = threshold;
+        this.stackDepth = stackDepth;
+        this.maxSites = maxSites;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::record);
+        recordingStream.startAsync();
+        log.info("Virtual thread pinning monitor started, threshold {}", threshold);
+    }
+
+    @Override
+    public void destroy() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    /**
+     * Возвращает места закрепления, отсортированные по суммарному времени.
+     *
+     * @return отчёт о закреплениях с момента запуска приложения.
+     */
+    @ReadOperation
+    public PinningReport report() {
+        List<PinnedSite> report = new ArrayList<>(sites.size());
+        sites.forEach((stack, stats) -> report.add(stats.toSite(stack)));
+        report.sort(Comparator.comparingDouble(PinnedSite::totalMillis).reversed());
+        return new PinningReport(totalEvents.sum(), threshold.toMillis(), report);
+    }
+
+    private void record(RecordedEvent event) {
+        totalEvents.increment();
+        String stack = describe(event.getStackTrace());
+        String key = sites.containsKey(stack) || sites.size() < maxSites ? stack : OTHER_SITES;
+        PinnedSiteStats stats = sites.computeIfAbsent(key,
+                site -> new PinnedSiteStats(OTHER_SITES.equals(site) ? null : applicationFrame(event.getStackTrace())));
+        stats.record(event.getDuration().toNanos());
+    }
+
+    private String describe(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "<no stack trace>";
+        }
+        StringBuilder description = new StringBuilder();
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (int i = 0; i < Math.min(stackDepth, frames.size()); i++) {
+            if (i > 0) {
+                description.append('\n');
+            }
+            description.append(format(frames.get(i)));
+        }
+        return description.toString();
+    }
+
+    private static String applicationFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return null;
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE)) {
+                return format(frame);
+            }
+        }
+        return null;
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    /**
+     * Отчёт о закреплениях виртуальных потоков.
+     *
+     * @param totalEvents число зарегистрированных событий.
+     * @param thresholdMillis минимальная длительность закрепления, попадающего в отчёт.
+     * @param sites места закрепления.
+     */
+    public record PinningReport(long totalEvents, long thresholdMillis, List<PinnedSite> sites) {
+    }
+
+    /**
+     * Место закрепления.
+     *
+     * @param stack верхние кадры стека.
+     * @param applicationFrame ближайший к вершине кадр кода приложения, если есть.
+     * @param count число закреплений.
+     * @param totalMillis суммарная длительность.
+     * @param maxMillis максимальная длительность.
+     */
+    public record PinnedSite(String stack, String applicationFrame, long count, double totalMillis, double maxMillis) {
+    }
+
+    private static final class PinnedSiteStats {
+
+        private final String applicationFrame;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private PinnedSiteStats(String applicationFrame) {
+            this.applicationFrame = applicationFrame;
+        }
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        private PinnedSite toSite(String stack) {
+            return new PinnedSite(stack, applicationFrame, count.sum(), totalNanos.sum() / 1e6, maxNanos.get() / 1e6);
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.dlvb.asyncbankapp.diagnostics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие JFR: этап расчёта статистики депозитов — загрузка условий, проекция сценариев или форматирование ответа.
+ * @author Matushkin Anton
+ */
+@Name("com.dlvb.asyncbankapp.DepositComputation")
+@Label("Deposit Computation")
+@Category({"Async Bank App", "Deposits"})
+@Description("Phase of a deposit statistics calculation")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class DepositComputationEvent extends Event {
+
+    /**
+     * Загрузка баланса и ставки депозитов.
+     */
+    public static final String LOAD_TERMS = "load-terms";
+
+    /**
+     * Расчёт балансов по сценариям.
+     */
+    public static final String PROJECT = "project";
+
+    /**
+     * Форматирование сумм и сборка ответа.
+     */
+    public static final String FORMAT = "format";
+
+    @Label("Phase")
+    private final String phase;
+
+    @Label("Deposits")
+    private final int deposits;
+
+    private DepositComputationEvent(String phase, int deposits) {
+        this.phase = phase;
+        this.deposits = deposits;
+    }
+
+    /**
+     * Создаёт событие и начинает отсчёт его длительности.
+     *
+     * @param phase этап расчёта.
+     * @param deposits число депозитов.
+     * @return начатое событие; его нужно зафиксировать через {@link #commit()}.
+     */
+    public static DepositComputationEvent start(String phase, int deposits) {
+        DepositComputationEvent event = new DepositComputationEvent(phase, deposits);
+        event.begin();
+        return event;
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.dlvb.asyncbankapp.diagnostics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие JFR: ожидание блокировок двух аккаунтов в {@link com.dlvb.asyncbankapp.concurrent.AccountLockManager}.
+ * @author Matushkin Anton
+ */
+@Name("com.dlvb.asyncbankapp.AccountLockWait")
+@Label("Account Lock Wait")
+@Category({"Async Bank App", "Locks"})
+@Description("Wait for the lock stripes of two accounts")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class LockWaitEvent extends Event {
+
+    @Label("First Account")
+    private final String firstAccountId;
+
+    @Label("Second Account")
+    private final String secondAccountId;
+
+    @Label("Acquired")
+    @Description("False if the wait timed out or was interrupted")
+    private boolean acquired;
+
+    private LockWaitEvent(String firstAccountId, String secondAccountId) {
+        this.firstAccountId = firstAccountId;
+        this.secondAccountId = secondAccountId;
+    }
+
+    /**
+     * Создаёт событие и начинает отсчёт его длительности.
+     *
+     * @param firstAccountId идентификатор первого аккаунта.
+     * @param secondAccountId идентификатор второго аккаунта.
+     * @return начатое событие; его нужно зафиксировать через {@link #commit()}.
+     */
+    public static LockWaitEvent start(String firstAccountId, String secondAccountId) {
+        LockWaitEvent event = new LockWaitEvent(firstAccountId, secondAccountId);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param acquired {@code true}, если обе блокировки захвачены.
+     */
+    public void setAcquired(boolean acquired) {
+        this.acquired = acquired;
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.dlvb.asyncbankapp.diagnostics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие JFR: вызов метода репозитория Spring Data, включая сброс контекста персистентности и запросы JDBC внутри него.
+ * @author Matushkin Anton
+ */
+@Name("com.dlvb.asyncbankapp.RepositoryCall")
+@Label("Repository Call")
+@Category({"Async Bank App", "Database"})
+@Description("Spring Data repository method call")
+@StackTrace(false)
+@Threshold("10 ms")
+public final class RepositoryCallEvent extends Event {
+
+    @Label("Repository")
+    private String repository;
+
+    @Label("Method")
+    private String method;
+
+    /**
+     * @param repository имя интерфейса репозитория.
+     * @param method имя метода.
+     */
+    public void setCall(String repository, String method) {
+        this.repository = repository;
+        this.method = method;
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.dlvb.asyncbankapp.diagnostics.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Записывает вызовы репозиториев Spring Data событиями {@link RepositoryCallEvent}.
+ * Если событие не включено в запись JFR, вызов выполняется без замеров.
+ * @author Matushkin Anton
+ */
+@Aspect
+@Component
+public class RepositoryCallRecorder {
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.setCall(repositoryName(joinPoint), joinPoint.getSignature().getName());
+                event.commit();
+            }
+        }
+    }
+
+    private static String repositoryName(ProceedingJoinPoint joinPoint) {
+        Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(joinPoint.getThis());
+        return interfaces.length > 0 ? interfaces[0].getSimpleName() : joinPoint.getSignature().getDeclaringType().getSimpleName();
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.dlvb.asyncbankapp.diagnostics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие JFR: перевод между двумя аккаунтами от начала до изменения балансов, без фиксации транзакции БД.
+ * @author Matushkin Anton
+ */
+@Name("com.dlvb.asyncbankapp.Transfer")
+@Label("Transfer")
+@Category({"Async Bank App", "Transactions"})
+@Description("Transfer between two accounts")
+@StackTrace(false)
+@Threshold("10 ms")
+public final class TransferEvent extends Event {
+
+    @Label("Operation")
+    private final String operation;
+
+    @Label("From Account")
+    private final String fromAccountId;
+
+    @Label("To Account")
+    private final String toAccountId;
+
+    @Label("Amount")
+    @Description("Amount in minor units")
+    private final long amount;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    private TransferEvent(String operation, String fromAccountId, String toAccountId, long amount) {
+        this.operation = operation;
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.amount = amount;
+    }
+
+    /**
+     * Создаёт событие и начинает отсчёт его длительности.
+     *
+     * @param operation метод сервиса, выполняющий перевод.
+     * @param fromAccountId идентификатор аккаунта отправителя.
+     * @param toAccountId идентификатор аккаунта получателя.
+     * @param amount сумма перевода в минорных единицах.
+     * @return начатое событие; его нужно зафиксировать через {@link #commit()}.
+     */
+    public static TransferEvent start(String operation, String fromAccountId, String toAccountId, long amount) {
+        TransferEvent event = new TransferEvent(operation, fromAccountId, toAccountId, amount);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Отмечает перевод как выполненный.
+     */
+    public void succeeded() {
+        succeeded = true;
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.dlvb.asyncbankapp.dto;
 
 import com.dlvb.asyncbankapp.model.Account;
+import com.dlvb.asyncbankapp.money.JsonMoney;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
@@ -22,7 +23,8 @@ public class BalanceUpdateRequest {
     @Schema(description = "Id аккаунта", example = "7a2a8a54-7852-439e-a6eb-2f8378820273")
     private String accountId;
 
-    @Schema(description = "Количество денег для обновления", example = "200")
-    private double amount;
+    @JsonMoney
+    @Schema(description = "Количество денег для обновления", type = "number", example = "200.00")
+    private long amount;
 
 }
@@ -0,0 +1,35 @@
+package com.dlvb.asyncbankapp.dto;
+
+import com.dlvb.asyncbankapp.money.JsonMoney;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO с результатом применения {@link BalanceUpdateRequest}
+ * @author Matushkin Anton
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceUpdateResult {
+
+    @JsonProperty("account_id")
+    @Schema(description = "Id аккаунта", example = "7a2a8a54-7852-439e-a6eb-2f8378820273")
+    private String accountId;
+
+    @JsonMoney
+    @Schema(description = "Количество денег для обновления", type = "number", example = "200.00")
+    private long amount;
+
+    @Schema(description = "Изменение применено", example = "true")
+    private boolean applied;
+
+    @Schema(description = "Причина, по которой изменение не применено", example = "Account not found")
+    private String error;
+
+}
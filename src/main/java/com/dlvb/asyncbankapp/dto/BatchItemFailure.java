@@ -0,0 +1,18 @@
+package com.dlvb.asyncbankapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * DTO с описанием ошибки обработки элемента пачки.
+ * @author Matushkin Anton
+ *
+ * @param index позиция элемента в исходной пачке.
+ * @param reason причина ошибки.
+ */
+public record BatchItemFailure(
+        @Schema(description = "Позиция элемента в пачке", example = "3")
+        int index,
+        @Schema(description = "Причина ошибки", example = "Insufficient balance")
+        String reason) {
+
+}
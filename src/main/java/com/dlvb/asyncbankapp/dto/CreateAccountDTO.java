@@ -1,6 +1,7 @@
 package com.dlvb.asyncbankapp.dto;
 
 import com.dlvb.asyncbankapp.model.Account;
+import com.dlvb.asyncbankapp.money.JsonMoney;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,8 +21,9 @@ public class CreateAccountDTO {
     @Schema(description = "Наименование аккаунта", example = "Test LLC")
     private String owner;
 
-    @Schema(description = "Начальный баланс", example = "50000")
-    private double balance;
+    @JsonMoney
+    @Schema(description = "Начальный баланс", type = "number", example = "50000.00")
+    private long balance;
 
     public static Account fromDTO(CreateAccountDTO dto) {
         return Account.builder()
@@ -1,6 +1,7 @@
 package com.dlvb.asyncbankapp.dto;
 
 import com.dlvb.asyncbankapp.model.Deposit;
+import com.dlvb.asyncbankapp.money.JsonMoney;
 import com.dlvb.asyncbankapp.service.AccountService;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -19,8 +20,9 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class CreateOrUpdateDepositDTO {
 
-    @Schema(description = "Начальный баланс", example = "50000")
-    private double balance;
+    @JsonMoney
+    @Schema(description = "Начальный баланс", type = "number", example = "50000.00")
+    private long balance;
 
     @Schema(description = "Процентная ставка", example = "5")
     private double rate;
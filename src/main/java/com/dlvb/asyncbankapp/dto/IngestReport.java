@@ -0,0 +1,37 @@
+package com.dlvb.asyncbankapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO с итогами потоковой загрузки пачки в формате NDJSON.
+ * @author Matushkin Anton
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestReport {
+
+    @Schema(description = "Пачка обработана полностью", example = "true")
+    private boolean completed;
+
+    @Schema(description = "Число зафиксированных частей", example = "12")
+    private int committedChunks;
+
+    @Schema(description = "Число записей в зафиксированных частях", example = "12000")
+    private long committedItems;
+
+    @Schema(description = "Позиция первой записи части, на которой обработка остановилась", example = "12000")
+    private Long failedAtItem;
+
+    @Schema(description = "Причина остановки обработки")
+    private String error;
+
+    @Schema(description = "Длительность обработки в миллисекундах", example = "1520")
+    private long durationMillis;
+
+}
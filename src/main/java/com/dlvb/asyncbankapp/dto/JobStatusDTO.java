@@ -0,0 +1,74 @@
+package com.dlvb.asyncbankapp.dto;
+
+import com.dlvb.asyncbankapp.job.BatchJob;
+import com.dlvb.asyncbankapp.job.JobStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO класс для передачи состояния фоновой задачи {@link BatchJob}
+ * @author Matushkin Anton
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobStatusDTO {
+
+    @Schema(description = "Id задачи", example = "3f1c2a54-7852-439e-a6eb-2f8378820273")
+    private String jobId;
+
+    @Schema(description = "Тип задачи", example = "transactions")
+    private String type;
+
+    @Schema(description = "Состояние задачи", example = "RUNNING")
+    private JobStatus status;
+
+    @Schema(description = "Число элементов в пачке", example = "1000")
+    private int totalItems;
+
+    @Schema(description = "Число обработанных элементов", example = "500")
+    private int processedItems;
+
+    @Schema(description = "Число элементов с ошибкой", example = "2")
+    private int failedItems;
+
+    @Schema(description = "Ошибки элементов")
+    private List<BatchItemFailure> failures;
+
+    @Schema(description = "Ошибка выполнения задачи")
+    private String error;
+
+    @Schema(description = "Время создания задачи", example = "2024-12-01T14:30")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "Время завершения задачи", example = "2024-12-01T14:31")
+    private LocalDateTime completedAt;
+
+    @Schema(description = "Длительность выполнения в миллисекундах", example = "1520")
+    private Long durationMillis;
+
+    public static JobStatusDTO toDTO(BatchJob job) {
+        boolean finished = job.isFinished();
+        return JobStatusDTO.builder()
+                .jobId(job.getId())
+                .type(job.getType())
+                .status(job.getStatus())
+                .totalItems(job.getTotalItems())
+                .processedItems(job.getProcessedItems().get())
+                .failedItems(job.getFailedItems().get())
+                .failures(job.getFailures())
+                .error(job.getError())
+                .createdAt(job.getCreatedAt())
+                .completedAt(job.getCompletedAt())
+                .durationMillis(finished ? job.getDurationMillis() : null)
+                .build();
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.dlvb.asyncbankapp.dto;
 
+import com.dlvb.asyncbankapp.money.JsonMoney;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -7,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * DTO класс для произведения транзакции {@link com.dlvb.asyncbankapp.model.Transaction}
@@ -24,10 +26,45 @@ public class TransactionDTO {
     @Schema(description = "Id аккаунта получения", example = "7a2a8a54-7852-439e-a6eb-2f8378820274")
     private String toAccountId;
 
-    @Schema(description = "Количество денег", example = "500")
-    private double amount;
+    @JsonMoney
+    @Schema(description = "Количество денег", type = "number", example = "500.00")
+    private long amount;
 
     @Schema(description = "Время отправки", example = "2024-12-01T14:30")
     private LocalDateTime timestamp;
 
+    @Schema(description = "Ключ идемпотентности: повторная транзакция с тем же ключом не применяется",
+            example = "c0a8012e-7f1b-4c1e-9d7a-3f5e2b1a9c40")
+    private String idempotencyKey;
+
+    /**
+     * Проставляет транзакциям без собственного ключа ключ идемпотентности, производный от ключа пачки
+     * и позиции транзакции в ней, чтобы повтор всей пачки не применил её повторно.
+     *
+     * @param transactions транзакции пачки.
+     * @param batchIdempotencyKey ключ идемпотентности пачки; {@code null} ничего не меняет.
+     */
+    public static void applyBatchIdempotencyKey(List<TransactionDTO> transactions, String batchIdempotencyKey) {
+        applyBatchIdempotencyKey(transactions, batchIdempotencyKey, 0);
+    }
+
+    /**
+     * Проставляет ключи идемпотентности части пачки, которая начинается с позиции {@code offset}.
+     *
+     * @param transactions транзакции части пачки.
+     * @param batchIdempotencyKey ключ идемпотентности пачки; {@code null} ничего не меняет.
+     * @param offset позиция первой транзакции части в пачке.
+     */
+    public static void applyBatchIdempotencyKey(List<TransactionDTO> transactions, String batchIdempotencyKey, long offset) {
+        if (batchIdempotencyKey == null) {
+            return;
+        }
+        for (int i = 0; i < transactions.size(); i++) {
+            TransactionDTO transaction = transactions.get(i);
+            if (transaction.getIdempotencyKey() == null) {
+                transaction.setIdempotencyKey(batchIdempotencyKey + ":" + (offset + i));
+            }
+        }
+    }
+
 }
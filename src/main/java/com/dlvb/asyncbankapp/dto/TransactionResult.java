@@ -0,0 +1,62 @@
+package com.dlvb.asyncbankapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO с результатом обработки {@link TransactionDTO} в пачке.
+ * @author Matushkin Anton
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionResult {
+
+    private static final String ERROR_SEPARATOR = ";error=";
+
+    @Schema(description = "Id транзакции; для повтора — id транзакции, сохранённой при первой обработке",
+            example = "0f6b5c1e-2a8d-4f3b-9c7e-5d1a2b3c4d5e")
+    private String transactionId;
+
+    @Schema(description = "Ключ идемпотентности транзакции", example = "c0a8012e-7f1b-4c1e-9d7a-3f5e2b1a9c40")
+    private String idempotencyKey;
+
+    @Schema(description = "Транзакция с этим ключом уже обработана; балансы не изменены", example = "false")
+    private boolean replayed;
+
+    @Schema(description = "Причина, по которой перевод не применён", example = "Insufficient balance")
+    private String error;
+
+    /**
+     * Кодирует исход транзакции для хранения вместе с ключом идемпотентности.
+     *
+     * @param transactionId id сохранённой транзакции.
+     * @param error причина, по которой перевод не применён, или {@code null}.
+     * @return строка результата ключа идемпотентности.
+     */
+    public static String toStoredResult(String transactionId, String error) {
+        return error == null ? transactionId : transactionId + ERROR_SEPARATOR + error;
+    }
+
+    /**
+     * Восстанавливает результат повтора по сохранённому исходу первой обработки.
+     *
+     * @param idempotencyKey ключ идемпотентности.
+     * @param storedResult результат, сохранённый через {@link #toStoredResult(String, String)}.
+     * @return результат с тем же id транзакции и той же ошибкой.
+     */
+    public static TransactionResult replayOf(String idempotencyKey, String storedResult) {
+        int separator = storedResult.indexOf(ERROR_SEPARATOR);
+        return TransactionResult.builder()
+                .transactionId(separator < 0 ? storedResult : storedResult.substring(0, separator))
+                .idempotencyKey(idempotencyKey)
+                .replayed(true)
+                .error(separator < 0 ? null : storedResult.substring(separator + ERROR_SEPARATOR.length()))
+                .build();
+    }
+
+}
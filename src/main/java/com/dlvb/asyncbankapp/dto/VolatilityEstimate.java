@@ -0,0 +1,43 @@
+package com.dlvb.asyncbankapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO с оценкой средней волатильности и её доверительным интервалом.
+ * @author Matushkin Anton
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VolatilityEstimate {
+
+    @Schema(description = "Оценка средней волатильности", example = "15.8075")
+    private double mean;
+
+    @Schema(description = "Стандартная ошибка среднего", example = "0.0001")
+    private double standardError;
+
+    @Schema(description = "Уровень доверия интервала", example = "0.95")
+    private double confidenceLevel;
+
+    @Schema(description = "Нижняя граница доверительного интервала", example = "15.8073")
+    private double lowerBound;
+
+    @Schema(description = "Верхняя граница доверительного интервала", example = "15.8077")
+    private double upperBound;
+
+    @Schema(description = "Число выполненных итераций", example = "131072")
+    private long iterations;
+
+    @Schema(description = "Заданная точность достигнута до истечения бюджета времени", example = "true")
+    private boolean converged;
+
+    @Schema(description = "Длительность расчёта в миллисекундах", example = "3")
+    private long durationMillis;
+
+}
@@ -0,0 +1,93 @@
+package com.dlvb.asyncbankapp.job;
+
+import com.dlvb.asyncbankapp.dto.BatchItemFailure;
+import com.dlvb.asyncbankapp.service.BatchProgressListener;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Фоновая пакетная задача со счётчиками прогресса.
+ * @author Matushkin Anton
+ */
+@Getter
+public class BatchJob implements BatchProgressListener {
+
+    private final String id = UUID.randomUUID().toString();
+    private final String type;
+    private final int totalItems;
+    private final int maxRecordedFailures;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicInteger processedItems = new AtomicInteger();
+    private final AtomicInteger failedItems = new AtomicInteger();
+    private final Queue<BatchItemFailure> failures = new ConcurrentLinkedQueue<>();
+
+    private volatile JobStatus status = JobStatus.RUNNING;
+    private volatile String error;
+    private volatile LocalDateTime completedAt;
+    private volatile long durationMillis;
+
+    public BatchJob(String type, int totalItems, int maxRecordedFailures) {
+        this.type = type;
+        this.totalItems = totalItems;
+        this.maxRecordedFailures = maxRecordedFailures;
+    }
+
+    @Override
+    public void onItemsCompleted(int count) {
+        processedItems.addAndGet(count);
+    }
+
+    @Override
+    public void onItemFailed(int index, String reason) {
+        if (failedItems.incrementAndGet() <= maxRecordedFailures) {
+            failures.add(new BatchItemFailure(index, reason));
+        }
+    }
+
+    /**
+     * Завершает задачу.
+     *
+     * @param throwable ошибка выполнения или {@code null}, если задача завершилась успешно.
+     */
+    public void complete(Throwable throwable) {
+        durationMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        completedAt = LocalDateTime.now();
+        if (throwable != null) {
+            Throwable cause = throwable.getCause() != null ? throwable.getCause() : throwable;
+            error = cause.getMessage();
+            status = JobStatus.FAILED;
+        } else {
+            status = JobStatus.COMPLETED;
+        }
+    }
+
+    /**
+     * Возвращает записанные ошибки элементов, отсортированные по позиции.
+     *
+     * @return список ошибок, не более {@code maxRecordedFailures}.
+     */
+    public List<BatchItemFailure> getFailures() {
+        List<BatchItemFailure> snapshot = new ArrayList<>(failures);
+        snapshot.sort((first, second) -> Integer.compare(first.index(), second.index()));
+        return snapshot;
+    }
+
+    /**
+     * Проверяет, завершена ли задача.
+     *
+     * @return {@code true}, если задача больше не выполняется.
+     */
+    public boolean isFinished() {
+        return status != JobStatus.RUNNING;
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.dlvb.asyncbankapp.job;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Реестр фоновых пакетных задач.
+ * Завершённые задачи хранятся в течение окна удержания и затем удаляются.
+ * Время выполнения задач от регистрации до завершения публикуется таймером {@code bank.jobs} с тегами типа и статуса.
+ * @author Matushkin Anton
+ */
+@Slf4j
+@Component
+public class JobRegistry {
+
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Duration retention;
+    private final int maxRecordedFailures;
+
+    public JobRegistry(MeterRegistry meterRegistry,
+                       @Value("${bank.jobs.retention:PT1H}") Duration retention,
+                       @Value("${bank.jobs.max-recorded-failures:1000}") int maxRecordedFailures) {
+        this.meterRegistry = meterRegistry;
+        this.retention = retention;
+        this.maxRecordedFailures = maxRecordedFailures;
+    }
+
+    /**
+     * Регистрирует новую задачу.
+     *
+     * @param type тип задачи.
+     * @param totalItems число элементов в пачке.
+     * @return зарегистрированная задача.
+     */
+    public BatchJob register(String type, int totalItems) {
+        BatchJob job = new BatchJob(type, totalItems, maxRecordedFailures);
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    /**
+     * Завершает задачу и записывает время её выполнения.
+     *
+     * @param job задача.
+     * @param throwable ошибка выполнения или {@code null}, если задача завершилась успешно.
+     */
+    public void complete(BatchJob job, Throwable throwable) {
+        job.complete(throwable);
+        Timer.builder("bank.jobs")
+                .description("Time from job registration to completion")
+                .tag("type", job.getType())
+                .tag("status", job.getStatus().name().toLowerCase(Locale.ROOT))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Duration.ofMillis(job.getDurationMillis()));
+    }
+
+    /**
+     * Запускает работу задачи и завершает задачу по её результату.
+     * Если работа не запустилась (например, исполнитель отклонил задачу), задача сразу завершается с ошибкой,
+     * а исключение пробрасывается вызывающему.
+     *
+     * @param job задача.
+     * @param work запуск работы задачи.
+     */
+    public void track(BatchJob job, Supplier<? extends CompletableFuture<?>> work) {
+        CompletableFuture<?> future;
+        try {
+            future = work.get();
+        } catch (RuntimeException e) {
+            complete(job, e);
+            throw e;
+        }
+        future.whenComplete((result, throwable) -> complete(job, throwable));
+    }
+
+    /**
+     * Находит задачу по идентификатору.
+     *
+     * @param jobId идентификатор задачи.
+     * @return задача, если она ещё не удалена из реестра.
+     */
+    public Optional<BatchJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Удаляет задачи, завершённые раньше окна удержания.
+     */
+    @Scheduled(fixedDelayString = "${bank.jobs.eviction-interval:PT1M}")
+    public void evictFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(retention);
+        int before = jobs.size();
+        jobs.values().removeIf(job -> job.isFinished() && job.getCompletedAt().isBefore(threshold));
+        int evicted = before - jobs.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} finished jobs", evicted);
+        }
+    }
+
+}
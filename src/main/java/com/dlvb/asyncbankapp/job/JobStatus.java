@@ -0,0 +1,13 @@
+package com.dlvb.asyncbankapp.job;
+
+/**
+ * Состояние фоновой задачи.
+ * @author Matushkin Anton
+ */
+public enum JobStatus {
+
+    RUNNING,
+    COMPLETED,
+    FAILED
+
+}
@@ -0,0 +1,51 @@
+package com.dlvb.asyncbankapp.latency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+
+/**
+ * Записывает задержку запросов к API в рекордер эндпоинта.
+ * Эндпоинт определяется шаблоном пути обработчика, поэтому запросы к разным счетам попадают в один рекордер;
+ * запросы без метода контроллера (например, 404) не записываются.
+ * @author Matushkin Anton
+ */
+@Component
+@RequiredArgsConstructor
+public class EndpointLatencyFilter extends OncePerRequestFilter {
+
+    private static final String API_PREFIX = "/api/";
+
+    @NonNull
+    private final LatencyRecorders latencyRecorders;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !UrlPathHelper.defaultInstance.getPathWithinApplication(request).startsWith(API_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod
+                    && request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern) {
+                latencyRecorders.endpoint(pattern).recordNanos(System.nanoTime() - start);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.dlvb.asyncbankapp.latency;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Распределение задержек эндпоинтов и методов сервисов за скользящие окна ({@code /actuator/latency}).
+ * <p>
+ * Короткое окно — последний завершённый интервал {@code bank.latency.interval}, длинное —
+ * {@code bank.latency.long-window}. Перцентили рассчитываются по гистограммам HdrHistogram без усреднения,
+ * поэтому p99.9 за окно можно сравнивать с SLO напрямую.
+ * Те же гистограммы в формате журнала HdrHistogram ({@code /actuator/latency/short} и {@code /actuator/latency/long})
+ * открываются HistogramLogAnalyzer или {@code HistogramLogProcessor} для построения полного распределения.
+ * @author Matushkin Anton
+ */
+@Component
+@Endpoint(id = "latency")
+@RequiredArgsConstructor
+public class LatencyEndpoint {
+
+    private static final String SHORT_WINDOW = "short";
+    private static final String LONG_WINDOW = "long";
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    @NonNull
+    private final LatencyRecorders latencyRecorders;
+
+    /**
+     * Возвращает перцентили задержек по всем рекордерам.
+     *
+     * @return отчёт о задержках.
+     */
+    @ReadOperation
+    public LatencyReport report() {
+        List<RecorderReport> recorders = latencyRecorders.recorders().stream()
+                .map(recorder -> new RecorderReport(recorder.getName(), recorder.getType(),
+                        windowReport(recorder.window(1)),
+                        windowReport(recorder.window(latencyRecorders.getLongWindowIntervals()))))
+                .toList();
+        long intervalMillis = latencyRecorders.getInterval().toMillis();
+        return new LatencyReport(intervalMillis, intervalMillis * latencyRecorders.getLongWindowIntervals(), recorders);
+    }
+
+    /**
+     * Возвращает гистограммы окна в формате журнала HdrHistogram; каждая гистограмма помечена именем рекордера,
+     * значения выводятся в миллисекундах.
+     *
+     * @param window {@code short} или {@code long}.
+     * @return журнал гистограмм или {@code null} для неизвестного окна.
+     */
+    @ReadOperation(produces = "text/plain")
+    public String histogramLog(@Selector String window) {
+        int intervals;
+        if (SHORT_WINDOW.equals(window)) {
+            intervals = 1;
+        } else if (LONG_WINDOW.equals(window)) {
+            intervals = latencyRecorders.getLongWindowIntervals();
+        } else {
+            return null;
+        }
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        HistogramLogWriter writer = new HistogramLogWriter(log);
+        writer.outputComment("async-bank-app latency, window=" + window + ", unit=ms");
+        writer.outputLogFormatVersion();
+        writer.outputStartTime(System.currentTimeMillis());
+        writer.outputLegend();
+        for (LatencyRecorder recorder : latencyRecorders.recorders()) {
+            Histogram histogram = recorder.window(intervals);
+            if (histogram.getEndTimeStamp() > 0) {
+                writer.outputIntervalHistogram(histogram.getStartTimeStamp() / MILLIS_PER_SECOND,
+                        histogram.getEndTimeStamp() / MILLIS_PER_SECOND, histogram, MICROS_PER_MILLI);
+            }
+        }
+        writer.close();
+        return log.toString(StandardCharsets.UTF_8);
+    }
+
+    private static WindowReport windowReport(Histogram histogram) {
+        return new WindowReport(histogram.getTotalCount(),
+                histogram.getMean() / MICROS_PER_MILLI,
+                percentile(histogram, 50),
+                percentile(histogram, 90),
+                percentile(histogram, 99),
+                percentile(histogram, 99.9),
+                percentile(histogram, 99.99),
+                histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    private static double percentile(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    /**
+     * Отчёт о задержках.
+     *
+     * @param intervalMillis длительность короткого окна.
+     * @param longWindowMillis длительность длинного окна.
+     * @param recorders рекордеры эндпоинтов и методов сервисов.
+     */
+    public record LatencyReport(long intervalMillis, long longWindowMillis, List<RecorderReport> recorders) {
+    }
+
+    /**
+     * Задержки одной операции.
+     *
+     * @param name шаблон пути эндпоинта или имя метода сервиса.
+     * @param type {@code endpoint} или {@code service}.
+     * @param shortWindow последний интервал.
+     * @param longWindow длинное окно.
+     */
+    public record RecorderReport(String name, String type, WindowReport shortWindow, WindowReport longWindow) {
+    }
+
+    /**
+     * Распределение задержек за окно, в миллисекундах; точность задаётся {@code bank.latency.significant-digits}.
+     *
+     * @param count число измерений.
+     * @param mean среднее.
+     * @param p50 медиана.
+     * @param p90 90-й перцентиль.
+     * @param p99 99-й перцентиль.
+     * @param p999 99.9-й перцентиль.
+     * @param p9999 99.99-й перцентиль.
+     * @param max максимум.
+     */
+    public record WindowReport(long count, double mean, double p50, double p90, double p99, double p999, double p9999, double max) {
+    }
+
+}
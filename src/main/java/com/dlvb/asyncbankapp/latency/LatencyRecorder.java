@@ -0,0 +1,101 @@
+package com.dlvb.asyncbankapp.latency;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рекордер задержек одной операции на HdrHistogram.
+ * <p>
+ * Запись через {@link Recorder} не захватывает блокировок и не выделяет память; значения хранятся в микросекундах,
+ * значения больше верхней границы записываются как граница. При каждом повороте накопленные значения переносятся
+ * в кольцо последних интервалов: короткое окно — последний интервал, длинное — сумма всех интервалов кольца.
+ * @author Matushkin Anton
+ */
+public final class LatencyRecorder {
+
+    private final String name;
+    private final String type;
+    private final long highestTrackableMicros;
+    private final int significantDigits;
+    private final Recorder recorder;
+    private final Histogram[] intervals;
+
+    private int next;
+    private Histogram recycled;
+
+    LatencyRecorder(String name, String type, long highestTrackableMicros, int significantDigits, int intervalCount) {
+        this.name = name;
+        this.type = type;
+        this.highestTrackableMicros = highestTrackableMicros;
+        this.significantDigits = significantDigits;
+        this.recorder = new Recorder(highestTrackableMicros, significantDigits);
+        this.intervals = new Histogram[intervalCount];
+    }
+
+    /**
+     * Записывает длительность операции.
+     *
+     * @param nanos длительность в наносекундах.
+     */
+    public void recordNanos(long nanos) {
+        recorder.recordValue(Math.min(Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)), highestTrackableMicros));
+    }
+
+    /**
+     * @return имя операции: шаблон пути эндпоинта или метод сервиса.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return тип операции: {@code endpoint} или {@code service}.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Завершает текущий интервал и помещает его в кольцо, вытесняя самый старый.
+     *
+     * @param startMillis начало интервала, мс от эпохи.
+     * @param endMillis конец интервала, мс от эпохи.
+     */
+    synchronized void rotate(long startMillis, long endMillis) {
+        Histogram interval = recorder.getIntervalHistogram(recycled);
+        interval.setStartTimeStamp(startMillis);
+        interval.setEndTimeStamp(endMillis);
+        recycled = intervals[next];
+        intervals[next] = interval;
+        next = (next + 1) % intervals.length;
+    }
+
+    /**
+     * Возвращает сумму последних интервалов.
+     *
+     * @param count число интервалов; не больше размера кольца.
+     * @return новая гистограмма в микросекундах с метками начала и конца окна.
+     */
+    synchronized Histogram window(int count) {
+        Histogram window = new Histogram(highestTrackableMicros, significantDigits);
+        window.setTag(name);
+        long start = Long.MAX_VALUE;
+        long end = 0;
+        for (int i = 1; i <= Math.min(count, intervals.length); i++) {
+            Histogram interval = intervals[Math.floorMod(next - i, intervals.length)];
+            if (interval != null) {
+                window.add(interval);
+                start = Math.min(start, interval.getStartTimeStamp());
+                end = Math.max(end, interval.getEndTimeStamp());
+            }
+        }
+        if (end > 0) {
+            window.setStartTimeStamp(start);
+            window.setEndTimeStamp(end);
+        }
+        return window;
+    }
+
+}
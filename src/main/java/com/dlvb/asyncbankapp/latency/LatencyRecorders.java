@@ -0,0 +1,115 @@
+package com.dlvb.asyncbankapp.latency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реестр рекордеров задержек: по одному на эндпоинт и на метод сервиса.
+ * <p>
+ * Рекордер создаётся при первом вызове операции; дальше он находится в {@link ConcurrentHashMap} без блокировок.
+ * Каждые {@code bank.latency.interval} интервалы всех рекордеров поворачиваются; длинное окно
+ * {@code bank.latency.long-window} складывается из последних интервалов.
+ * @author Matushkin Anton
+ */
+@Component
+public class LatencyRecorders {
+
+    static final String ENDPOINT = "endpoint";
+    static final String SERVICE = "service";
+
+    private final Map<String, LatencyRecorder> endpoints = new ConcurrentHashMap<>();
+    private final Map<Method, LatencyRecorder> methods = new ConcurrentHashMap<>();
+    private final Map<String, LatencyRecorder> methodsByName = new ConcurrentHashMap<>();
+
+    private final Duration interval;
+    private final int longWindowIntervals;
+    private final long highestTrackableMicros;
+    private final int significantDigits;
+
+    private volatile long intervalStartMillis = System.currentTimeMillis();
+
+    public LatencyRecorders(@Value("${bank.latency.interval:PT10S}") Duration interval,
+                            @Value("${bank.latency.long-window:PT1M}") Duration longWindow,
+                            @Value("${bank.latency.highest-trackable:PT1M}") Duration highestTrackable,
+                            @Value("${bank.latency.significant-digits:2}") int significantDigits) {
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("Latency interval must be positive: " + interval);
+        }
+        this.interval = interval;
+        this.longWindowIntervals = (int) Math.max(1, longWindow.toMillis() / interval.toMillis());
+        this.highestTrackableMicros = highestTrackable.toNanos() / 1000;
+        this.significantDigits = significantDigits;
+    }
+
+    /**
+     * @param pattern шаблон пути эндпоинта.
+     * @return рекордер эндпоинта.
+     */
+    public LatencyRecorder endpoint(String pattern) {
+        LatencyRecorder recorder = endpoints.get(pattern);
+        return recorder != null ? recorder : endpoints.computeIfAbsent(pattern, name -> newRecorder(name, ENDPOINT));
+    }
+
+    /**
+     * Возвращает рекордер метода сервиса; перегрузки одного метода пишут в общий рекордер.
+     *
+     * @param method вызванный метод.
+     * @param targetClass класс сервиса.
+     * @return рекордер метода.
+     */
+    public LatencyRecorder method(Method method, Class<?> targetClass) {
+        LatencyRecorder recorder = methods.get(method);
+        return recorder != null ? recorder : methods.computeIfAbsent(method, key -> methodsByName.computeIfAbsent(
+                targetClass.getSimpleName() + "." + key.getName(), name -> newRecorder(name, SERVICE)));
+    }
+
+    /**
+     * Завершает текущий интервал всех рекордеров.
+     */
+    @Scheduled(fixedRateString = "${bank.latency.interval:PT10S}", initialDelayString = "${bank.latency.interval:PT10S}")
+    public void rotate() {
+        long start = intervalStartMillis;
+        long end = System.currentTimeMillis();
+        intervalStartMillis = end;
+        endpoints.values().forEach(recorder -> recorder.rotate(start, end));
+        methodsByName.values().forEach(recorder -> recorder.rotate(start, end));
+    }
+
+    /**
+     * @return все рекордеры: сначала эндпоинты, затем методы сервисов, по имени.
+     */
+    public List<LatencyRecorder> recorders() {
+        List<LatencyRecorder> recorders = new ArrayList<>(endpoints.values());
+        recorders.addAll(methodsByName.values());
+        recorders.sort(Comparator.comparing(LatencyRecorder::getType).thenComparing(LatencyRecorder::getName));
+        return recorders;
+    }
+
+    /**
+     * @return длительность интервала и короткого окна.
+     */
+    public Duration getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return число интервалов в длинном окне.
+     */
+    public int getLongWindowIntervals() {
+        return longWindowIntervals;
+    }
+
+    private LatencyRecorder newRecorder(String name, String type) {
+        return new LatencyRecorder(name, type, highestTrackableMicros, significantDigits, longWindowIntervals);
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.dlvb.asyncbankapp.latency;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Записывает задержку публичных методов сервисов в рекордер метода.
+ * Для асинхронных методов время считается до завершения возвращённого {@link CompletionStage};
+ * вызывающий получает тот же экземпляр, что вернул сервис.
+ * @author Matushkin Anton
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceLatencyRecorder {
+
+    @NonNull
+    private final LatencyRecorders latencyRecorders;
+
+    @Around("execution(public * com.dlvb.asyncbankapp.service.impl.*ServiceImpl.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        LatencyRecorder recorder = latencyRecorders.method(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                AopUtils.getTargetClass(joinPoint.getTarget()));
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            recorder.recordNanos(System.nanoTime() - start);
+            throw e;
+        }
+        if (result instanceof CompletionStage<?> stage) {
+            stage.whenComplete((value, throwable) -> recorder.recordNanos(System.nanoTime() - start));
+        } else {
+            recorder.recordNanos(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+}
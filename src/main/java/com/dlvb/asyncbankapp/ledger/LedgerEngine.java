@@ -0,0 +1,402 @@
+package com.dlvb.asyncbankapp.ledger;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Реестр переводов с отложенной записью в БД (режим {@code bank.ledger.enabled}).
+ * <p>
+ * Балансы аккаунтов, участвовавших в переводах, хранятся в памяти, в массивах {@code long} шардов;
+ * аккаунт получает компактный индекс при первом обращении, баланс при этом читается из БД.
+ * Перевод выполняет шард аккаунта отправителя ({@link LedgerShard}) и подтверждает его после записи
+ * в локальный журнал. Отдельный поток пачками записывает подтверждённые переводы в БД ({@link LedgerStore}),
+ * вместе с позицией журнала каждого шарда.
+ * <p>
+ * При запуске балансы восстанавливаются из БД и записей журналов после сохранённых позиций;
+ * эти записи снова ставятся в очередь на запись в БД. Число шардов нельзя менять, пока в журнале есть записи.
+ * <p>
+ * Если пачку не удалось записать за {@code bank.ledger.flush-max-attempts} попыток или ошибка не устранится
+ * повтором (нарушение ограничений БД, аккаунт не найден), запись в БД останавливается, а реестр перестаёт
+ * принимать переводы: состояние видно в метрике {@code bank.ledger.failed} и в {@link LedgerHealthIndicator}.
+ * Незаписанные переводы остаются в журнале и будут записаны после устранения причины и перезапуска.
+ * Ключи идемпотентности принятых, но ещё не записанных в БД переводов хранятся без вытеснения и освобождаются
+ * только после фиксации записи; после неё ключ переносится в ограниченный кэш, а источником истины становится БД.
+ * Изменения балансов в обход реестра (например, через {@link com.dlvb.asyncbankapp.service.AccountService})
+ * не видны реестру до перезапуска.
+ * @author Matushkin Anton
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bank.ledger.enabled", havingValue = "true")
+public class LedgerEngine implements InitializingBean, DisposableBean {
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final String UNASSIGNED = "";
+
+    private final LedgerStore ledgerStore;
+    private final Path journalDirectory;
+    private final int flushBatchSize;
+    private final Duration flushRetryBackoff;
+    private final int flushMaxAttempts;
+
+    private final LedgerShard[] shards;
+    private final Map<String, Integer> accounts = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final Map<String, String> pendingKeys = new ConcurrentHashMap<>();
+    private final Cache<String, String> flushedKeys;
+    private final BlockingQueue<LedgerTransfer> unflushed = new LinkedBlockingQueue<>();
+
+    private final Counter acceptedTransfers;
+    private final Counter rejectedTransfers;
+    private final Timer flushTimer;
+
+    private volatile boolean flushing;
+    private volatile RuntimeException flushFailure;
+    private Thread flusher;
+
+    public LedgerEngine(LedgerStore ledgerStore,
+                        MeterRegistry meterRegistry,
+                        @Value("${bank.ledger.journal-directory:ledger}") Path journalDirectory,
+                        @Value("${bank.ledger.shards:4}") int shardCount,
+                        @Value("${bank.ledger.fsync:true}") boolean fsync,
+                        @Value("${bank.ledger.segment-size:64MB}") DataSize segmentSize,
+                        @Value("${bank.ledger.queue-capacity:100000}") int queueCapacity,
+                        @Value("${bank.ledger.max-batch-size:4096}") int maxBatchSize,
+                        @Value("${bank.ledger.flush-batch-size:10000}") int flushBatchSize,
+                        @Value("${bank.ledger.flush-retry-backoff:PT1S}") Duration flushRetryBackoff,
+                        @Value("${bank.ledger.flush-max-attempts:10}") int flushMaxAttempts,
+                        @Value("${bank.idempotency.cache-size:100000}") long keyCacheSize,
+                        @Value("${bank.idempotency.cache-ttl:PT1H}") Duration keyCacheTtl) {
+        this.ledgerStore = ledgerStore;
+        this.journalDirectory = journalDirectory;
+        this.flushBatchSize = flushBatchSize;
+        this.flushRetryBackoff = flushRetryBackoff;
+        this.flushMaxAttempts = flushMaxAttempts;
+        this.shards = new LedgerShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            LedgerJournal journal = new LedgerJournal(journalDirectory, i, segmentSize.toBytes(), fsync);
+            shards[i] = new LedgerShard(i, this, journal, queueCapacity, maxBatchSize);
+        }
+        this.flushedKeys = Caffeine.newBuilder()
+                .maximumSize(keyCacheSize)
+                .expireAfterWrite(keyCacheTtl)
+                .build();
+
+        this.acceptedTransfers = meterRegistry.counter("bank.ledger.transfers", "result", "accepted");
+        this.rejectedTransfers = meterRegistry.counter("bank.ledger.transfers", "result", "rejected");
+        this.flushTimer = Timer.builder("bank.ledger.flush")
+                .description("Time to write a batch of ledger transfers to the database")
+                .register(meterRegistry);
+        Gauge.builder("bank.ledger.unflushed", unflushed, BlockingQueue::size)
+                .description("Journaled transfers not yet written to the database")
+                .register(meterRegistry);
+        Gauge.builder("bank.ledger.queued", shards, LedgerEngine::queuedTransfers)
+                .description("Transfers waiting in shard queues")
+                .register(meterRegistry);
+        Gauge.builder("bank.ledger.failed", this, engine -> engine.flushFailure == null ? 0 : 1)
+                .description("1 if writing ledger transfers to the database has stopped after a failure")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        recover();
+        for (LedgerShard shard : shards) {
+            shard.start();
+        }
+        flushing = true;
+        flusher = Thread.ofPlatform().name("ledger-flusher").start(this::flushLoop);
+        log.info("Ledger started with {} shards, journal {}", shards.length, journalDirectory.toAbsolutePath());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (LedgerShard shard : shards) {
+            shard.stop();
+        }
+        flushing = false;
+        if (flusher != null) {
+            flusher.join();
+        }
+    }
+
+    /**
+     * Принимает перевод к исполнению.
+     *
+     * @param fromAccountId идентификатор аккаунта отправителя.
+     * @param toAccountId идентификатор аккаунта получателя.
+     * @param amount сумма в минорных единицах.
+     * @param idempotencyKey ключ идемпотентности, заранее занятый через {@link #claim}, или {@code null};
+     *                       освобождается, если перевод отклонён.
+     * @return перевод после записи в журнал; завершается с {@link IllegalArgumentException} при недостатке средств.
+     * @throws IllegalArgumentException если сумма не положительна или ключ длиннее 255 символов.
+     * @throws NoSuchElementException если один из аккаунтов не найден.
+     * @throws com.dlvb.asyncbankapp.concurrent.OverloadedException если очередь шарда заполнена.
+     * @throws IllegalStateException если запись в БД остановлена после ошибки.
+     */
+    public CompletableFuture<LedgerTransfer> transfer(String fromAccountId, String toAccountId, long amount,
+                                                      String idempotencyKey) {
+        try {
+            if (flushFailure != null) {
+                throw new IllegalStateException("Ledger is stopped: failed to write transfers to the database", flushFailure);
+            }
+            if (amount <= 0) {
+                throw new IllegalArgumentException("Transfer amount must be positive");
+            }
+            if (idempotencyKey != null && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                throw new IllegalArgumentException("Idempotency key is longer than " + MAX_IDEMPOTENCY_KEY_LENGTH);
+            }
+            int from = load(fromAccountId);
+            int to = load(toAccountId);
+            LedgerTransfer transfer = new LedgerTransfer(newId(), from % shards.length, 0, fromAccountId, toAccountId,
+                    amount, System.currentTimeMillis(), idempotencyKey);
+            if (idempotencyKey != null) {
+                pendingKeys.replace(idempotencyKey, transfer.id());
+            }
+            return shardOf(from).submit(slotOf(from), to, transfer);
+        } catch (RuntimeException e) {
+            release(idempotencyKey);
+            throw e;
+        }
+    }
+
+    /**
+     * Регистрирует аккаунт в реестре, если он ещё не зарегистрирован.
+     *
+     * @param accountId идентификатор аккаунта.
+     * @return индекс аккаунта в реестре.
+     * @throws NoSuchElementException если аккаунт не найден в БД.
+     */
+    public int load(String accountId) {
+        Integer index = accounts.get(accountId);
+        if (index != null) {
+            return index;
+        }
+        long balance = ledgerStore.loadBalance(accountId)
+                .orElseThrow(() -> new NoSuchElementException("Account not found: " + accountId));
+        return accounts.computeIfAbsent(accountId, id -> {
+            int registered = nextIndex.getAndIncrement();
+            shardOf(registered).register(slotOf(registered), balance);
+            return registered;
+        });
+    }
+
+    /**
+     * Занимает ключ идемпотентности за переводом. Ключ занят, пока перевод не записан в БД;
+     * после записи он остаётся занятым, пока не вытеснен из кэша, поэтому ключи, занятые здесь, следует проверить и по БД.
+     *
+     * @param idempotencyKey ключ идемпотентности.
+     * @return {@code false}, если ключ уже занят другим переводом.
+     */
+    public boolean claim(String idempotencyKey) {
+        if (pendingKeys.putIfAbsent(idempotencyKey, UNASSIGNED) != null) {
+            return false;
+        }
+        // Записанный ключ сначала попадает в кэш и только потом освобождается, поэтому здесь он уже виден.
+        if (flushedKeys.getIfPresent(idempotencyKey) != null) {
+            pendingKeys.remove(idempotencyKey, UNASSIGNED);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает id перевода, за которым занят ключ идемпотентности.
+     *
+     * @param idempotencyKey ключ идемпотентности.
+     * @return id перевода или {@code null}, если ключ не занят или перевод ещё не передан в {@link #transfer}.
+     */
+    public String transferIdOf(String idempotencyKey) {
+        String transferId = pendingKeys.get(idempotencyKey);
+        if (transferId == null) {
+            transferId = flushedKeys.getIfPresent(idempotencyKey);
+        }
+        return transferId == null || transferId.equals(UNASSIGNED) ? null : transferId;
+    }
+
+    /**
+     * Освобождает ключ, занятый через {@link #claim}, если перевод так и не был передан в {@link #transfer}.
+     *
+     * @param idempotencyKey ключ идемпотентности или {@code null}.
+     */
+    public void release(String idempotencyKey) {
+        if (idempotencyKey != null) {
+            pendingKeys.remove(idempotencyKey);
+        }
+    }
+
+    /**
+     * @return ошибка, после которой запись переводов в БД остановлена, или {@code null}, если запись работает.
+     */
+    public RuntimeException flushFailure() {
+        return flushFailure;
+    }
+
+    LedgerShard shardOf(int index) {
+        return shards[index % shards.length];
+    }
+
+    int slotOf(int index) {
+        return index / shards.length;
+    }
+
+    /**
+     * Передаёт перевод, записанный в журнал, на запись в БД. Вызывается потоком шарда.
+     */
+    void durable(LedgerTransfer transfer) {
+        acceptedTransfers.increment();
+        unflushed.add(transfer);
+    }
+
+    /**
+     * Освобождает ключ отклонённого перевода. Вызывается потоком шарда.
+     */
+    void rejected(LedgerTransfer transfer) {
+        rejectedTransfers.increment();
+        release(transfer.idempotencyKey());
+    }
+
+    private void recover() throws IOException {
+        for (int shard : LedgerJournal.shards(journalDirectory)) {
+            if (shard >= shards.length) {
+                throw new IllegalStateException("Ledger journal " + journalDirectory + " contains shard " + shard
+                        + ", but bank.ledger.shards is " + shards.length);
+            }
+        }
+
+        Map<Integer, Long> checkpoints = ledgerStore.loadCheckpoints();
+        for (int i = 0; i < shards.length; i++) {
+            for (LedgerTransfer transfer : shards[i].recover(checkpoints.getOrDefault(i, 0L))) {
+                int from = load(transfer.fromAccountId());
+                int to = load(transfer.toAccountId());
+                shardOf(from).replay(slotOf(from), -transfer.amount());
+                shardOf(to).replay(slotOf(to), transfer.amount());
+                if (transfer.idempotencyKey() != null) {
+                    pendingKeys.put(transfer.idempotencyKey(), transfer.id());
+                }
+                unflushed.add(transfer);
+            }
+        }
+        if (!unflushed.isEmpty()) {
+            log.info("Recovered {} ledger transfers not yet written to the database", unflushed.size());
+        }
+    }
+
+    private void flushLoop() {
+        List<LedgerTransfer> batch = new ArrayList<>(flushBatchSize);
+        while (flushing || !unflushed.isEmpty()) {
+            try {
+                LedgerTransfer first = unflushed.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                unflushed.drainTo(batch, flushBatchSize - 1);
+                if (!write(batch)) {
+                    return;
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Записывает пачку в БД, повторяя попытки при временных ошибках, пока реестр работает.
+     * Ошибки, которые не устранятся повтором, и исчерпание попыток останавливают запись ({@link #flushFailure()}).
+     *
+     * @return {@code false}, если пачка не записана; она останется в журнале.
+     */
+    private boolean write(List<LedgerTransfer> batch) throws InterruptedException {
+        Map<Integer, Long> checkpoints = new HashMap<>();
+        for (LedgerTransfer transfer : batch) {
+            checkpoints.merge(transfer.shard(), transfer.sequence(), Math::max);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                flushTimer.record(() -> ledgerStore.write(batch, checkpoints));
+                checkpoints.forEach((shard, sequence) -> shards[shard].flushed(sequence));
+                releaseFlushedKeys(batch);
+                return true;
+            } catch (RuntimeException e) {
+                if (!flushing) {
+                    log.error("Failed to write {} ledger transfers on shutdown; they remain in the journal", batch.size(), e);
+                    return false;
+                }
+                if (!isTransient(e) || attempt >= flushMaxAttempts) {
+                    log.error("Failed to write {} ledger transfers after {} attempts; ledger stopped, transfers remain in the journal",
+                            batch.size(), attempt, e);
+                    flushFailure = e;
+                    return false;
+                }
+                log.error("Failed to write {} ledger transfers, retrying in {}", batch.size(), flushRetryBackoff, e);
+                Thread.sleep(flushRetryBackoff.toMillis());
+            }
+        }
+    }
+
+    private void releaseFlushedKeys(List<LedgerTransfer> batch) {
+        for (LedgerTransfer transfer : batch) {
+            if (transfer.idempotencyKey() != null) {
+                flushedKeys.put(transfer.idempotencyKey(), transfer.id());
+                pendingKeys.remove(transfer.idempotencyKey(), transfer.id());
+            }
+        }
+    }
+
+    /**
+     * Нарушение ограничений БД и отсутствие аккаунта повторятся при каждой записи той же пачки.
+     */
+    private static boolean isTransient(RuntimeException e) {
+        return !(e instanceof DataIntegrityViolationException || e instanceof NoSuchElementException);
+    }
+
+    private static double queuedTransfers(LedgerShard[] shards) {
+        return Arrays.stream(shards).mapToInt(LedgerShard::queuedTransfers).sum();
+    }
+
+    /**
+     * Случайный UUID версии 4 от {@link ThreadLocalRandom}: идентификаторы переводов не секретны,
+     * а общий {@link java.security.SecureRandom} {@link UUID#randomUUID()} становится точкой конкуренции потоков.
+     */
+    private static String newId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSignificantBits = random.nextLong() & ~0xF000L | 0x4000L;
+        long leastSignificantBits = random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
+
+}
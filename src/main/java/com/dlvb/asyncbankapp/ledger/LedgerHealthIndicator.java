@@ -0,0 +1,29 @@
+package com.dlvb.asyncbankapp.ledger;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Состояние реестра переводов в {@code /actuator/health}: {@code DOWN}, если запись переводов в БД
+ * остановлена после ошибки ({@link LedgerEngine#flushFailure()}).
+ * @author Matushkin Anton
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "bank.ledger.enabled", havingValue = "true")
+public class LedgerHealthIndicator implements HealthIndicator {
+
+    @NonNull
+    private final LedgerEngine ledgerEngine;
+
+    @Override
+    public Health health() {
+        RuntimeException failure = ledgerEngine.flushFailure();
+        return failure == null ? Health.up().build() : Health.down(failure).build();
+    }
+
+}
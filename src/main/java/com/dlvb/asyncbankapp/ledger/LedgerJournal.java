@@ -0,0 +1,299 @@
+package com.dlvb.asyncbankapp.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал переводов одного шарда реестра: файлы-сегменты только с дозаписью.
+ * <p>
+ * Запись состоит из длины, тела и CRC32 тела. {@link #append} только буферизует запись,
+ * {@link #sync} записывает буфер и вызывает {@code fsync} один раз на пачку записей.
+ * Сегмент закрывается при превышении размера; сегменты, все записи которых уже записаны в БД, удаляются.
+ * При восстановлении недописанная запись в конце сегмента отбрасывается, а сегмент обрезается.
+ * Журнал не потокобезопасен: его пишет только поток шарда.
+ * @author Matushkin Anton
+ */
+@Slf4j
+final class LedgerJournal implements Closeable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("shard-(\\d+)-(\\d+)\\.journal");
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_RECORD_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final int shard;
+    private final long segmentSize;
+    private final boolean fsync;
+
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream payload = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private FileChannel channel;
+    private DataOutputStream out;
+    private long segmentBytes;
+    private long lastSequence;
+
+    LedgerJournal(Path directory, int shard, long segmentSize, boolean fsync) {
+        this.directory = directory;
+        this.shard = shard;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Возвращает номера шардов, для которых в каталоге есть сегменты журнала.
+     *
+     * @param directory каталог журнала.
+     * @return номера шардов по возрастанию.
+     * @throws IOException если каталог не удалось прочитать.
+     */
+    static Set<Integer> shards(Path directory) throws IOException {
+        Set<Integer> shards = new TreeSet<>();
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> {
+                    Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                    if (matcher.matches()) {
+                        shards.add(Integer.parseInt(matcher.group(1)));
+                    }
+                });
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Читает журнал и возвращает записи после указанного номера. Вызывается один раз, до первой записи.
+     *
+     * @param afterSequence номер последней записи, уже записанной в БД.
+     * @return записи с номером больше {@code afterSequence} в порядке номеров.
+     * @throws IOException если журнал не удалось прочитать.
+     * @throws IllegalStateException если в журнале пропущены записи.
+     */
+    List<LedgerTransfer> recover(long afterSequence) throws IOException {
+        Files.createDirectories(directory);
+        List<LedgerTransfer> transfers = new ArrayList<>();
+        long last = 0;
+        for (Segment segment : listSegments()) {
+            if (Files.size(segment.path()) == 0) {
+                Files.delete(segment.path());
+                continue;
+            }
+            if (last > 0 ? segment.firstSequence() != last + 1 : segment.firstSequence() > afterSequence + 1) {
+                throw new IllegalStateException("Ledger journal of shard " + shard + " is missing records before "
+                        + segment.firstSequence() + " (last known " + Math.max(last, afterSequence) + ")");
+            }
+            last = readSegment(segment, afterSequence, transfers);
+            segments.addLast(segment);
+        }
+        lastSequence = Math.max(last, afterSequence);
+        return transfers;
+    }
+
+    /**
+     * @return номер последней записи журнала или позиции, восстановленной из БД.
+     */
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Буферизует запись перевода; на диск она попадает при {@link #sync}.
+     *
+     * @param transfer перевод с номером {@code lastSequence() + 1}.
+     * @throws IOException если запись не удалось выполнить.
+     */
+    void append(LedgerTransfer transfer) throws IOException {
+        if (out == null) {
+            openSegment(transfer.sequence());
+        }
+        encode(transfer);
+        crc.reset();
+        crc.update(record.toByteArray());
+
+        out.writeInt(record.size());
+        record.writeTo(out);
+        out.writeInt((int) crc.getValue());
+        segmentBytes += Integer.BYTES * 2 + record.size();
+        lastSequence = transfer.sequence();
+    }
+
+    /**
+     * Записывает буферизованные записи на диск и, если включено, дожидается {@code fsync}.
+     * После этого записи переживают перезапуск процесса; при заполнении сегмента открывается следующий.
+     *
+     * @throws IOException если запись или синхронизация не удалась.
+     */
+    void sync() throws IOException {
+        if (out == null) {
+            return;
+        }
+        out.flush();
+        if (fsync) {
+            channel.force(false);
+        }
+        if (segmentBytes >= segmentSize) {
+            closeSegment();
+        }
+    }
+
+    /**
+     * Удаляет закрытые сегменты, все записи которых уже записаны в БД.
+     *
+     * @param flushedSequence номер последней записи, записанной в БД.
+     * @throws IOException если сегмент не удалось удалить.
+     */
+    void deleteFlushed(long flushedSequence) throws IOException {
+        while (segments.size() > 1) {
+            Segment oldest = segments.pollFirst();
+            Segment next = segments.peekFirst();
+            if (next.firstSequence() - 1 > flushedSequence) {
+                segments.addFirst(oldest);
+                return;
+            }
+            Files.deleteIfExists(oldest.path());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            sync();
+            closeSegment();
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("shard-%d-%020d.journal", shard, firstSequence));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        segmentBytes = 0;
+        segments.addLast(new Segment(path, firstSequence));
+    }
+
+    private void closeSegment() throws IOException {
+        out.close();
+        out = null;
+        channel = null;
+    }
+
+    private List<Segment> listSegments() throws IOException {
+        List<Segment> found = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches() && Integer.parseInt(matcher.group(1)) == shard) {
+                    found.add(new Segment(file, Long.parseLong(matcher.group(2))));
+                }
+            });
+        }
+        found.sort(Comparator.comparingLong(Segment::firstSequence));
+        return found;
+    }
+
+    private long readSegment(Segment segment, long afterSequence, List<LedgerTransfer> transfers) throws IOException {
+        long expected = segment.firstSequence();
+        long validBytes = 0;
+        try (InputStream file = Files.newInputStream(segment.path());
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, BUFFER_SIZE))) {
+            while (true) {
+                LedgerTransfer transfer = readRecord(in);
+                if (transfer == null || transfer.sequence() != expected) {
+                    break;
+                }
+                if (transfer.sequence() > afterSequence) {
+                    transfers.add(transfer);
+                }
+                validBytes += Integer.BYTES * 2 + recordSize(transfer);
+                expected++;
+            }
+        }
+        if (validBytes < Files.size(segment.path())) {
+            log.warn("Truncating ledger journal {} after sequence {}: incomplete record", segment.path(), expected - 1);
+            try (FileChannel file = FileChannel.open(segment.path(), StandardOpenOption.WRITE)) {
+                file.truncate(validBytes);
+                file.force(true);
+            }
+        }
+        return expected - 1;
+    }
+
+    private LedgerTransfer readRecord(DataInputStream in) throws IOException {
+        try {
+            int size = in.readInt();
+            if (size <= 0 || size > MAX_RECORD_SIZE) {
+                return null;
+            }
+            byte[] body = new byte[size];
+            in.readFully(body);
+            int checksum = in.readInt();
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != checksum) {
+                return null;
+            }
+            DataInputStream fields = new DataInputStream(new ByteArrayInputStream(body));
+            long sequence = fields.readLong();
+            long createdAt = fields.readLong();
+            long amount = fields.readLong();
+            String id = fields.readUTF();
+            String from = fields.readUTF();
+            String to = fields.readUTF();
+            String idempotencyKey = fields.readBoolean() ? fields.readUTF() : null;
+            return new LedgerTransfer(id, shard, sequence, from, to, amount, createdAt, idempotencyKey);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private int recordSize(LedgerTransfer transfer) throws IOException {
+        encode(transfer);
+        return record.size();
+    }
+
+    private void encode(LedgerTransfer transfer) throws IOException {
+        record.reset();
+        payload.writeLong(transfer.sequence());
+        payload.writeLong(transfer.createdAt());
+        payload.writeLong(transfer.amount());
+        payload.writeUTF(transfer.id());
+        payload.writeUTF(transfer.fromAccountId());
+        payload.writeUTF(transfer.toAccountId());
+        payload.writeBoolean(transfer.idempotencyKey() != null);
+        if (transfer.idempotencyKey() != null) {
+            payload.writeUTF(transfer.idempotencyKey());
+        }
+    }
+
+    private record Segment(Path path, long firstSequence) {
+    }
+
+}
@@ -0,0 +1,283 @@
+package com.dlvb.asyncbankapp.ledger;
+
+import com.dlvb.asyncbankapp.concurrent.OverloadedException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Шард реестра: балансы части аккаунтов и единственный поток, который их меняет.
+ * <p>
+ * Команды шарда (регистрация аккаунта, перевод, зачисление от другого шарда) ставятся в очередь и применяются
+ * потоком шарда пачками: переводы пачки проверяются и применяются к балансам, записываются в журнал,
+ * после чего журнал синхронизируется один раз на пачку. Только после этого переводы подтверждаются,
+ * передаются на запись в БД, а зачисления отправляются шардам получателей — поэтому получатель
+ * не может потратить деньги, перевод которых не сохранён в журнале.
+ * Зачисление на аккаунт того же шарда применяется сразу: записи журнала шарда восстанавливаются по порядку.
+ * @author Matushkin Anton
+ */
+@Slf4j
+final class LedgerShard implements Runnable {
+
+    private static final String INSUFFICIENT_BALANCE = "Insufficient balance";
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final int id;
+    private final LedgerEngine engine;
+    private final LedgerJournal journal;
+    private final int queueCapacity;
+    private final int maxBatchSize;
+
+    private final BlockingQueue<Command> commands = new LinkedBlockingQueue<>();
+    private final AtomicInteger queuedTransfers = new AtomicInteger();
+
+    private long[] balances = new long[1024];
+    private long sequence;
+    private volatile long flushedSequence;
+    private volatile boolean running;
+    private volatile boolean failed;
+    private Thread thread;
+
+    LedgerShard(int id, LedgerEngine engine, LedgerJournal journal, int queueCapacity, int maxBatchSize) {
+        this.id = id;
+        this.engine = engine;
+        this.journal = journal;
+        this.queueCapacity = queueCapacity;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Читает журнал шарда при запуске. Вызывается до {@link #start()}.
+     *
+     * @param flushedSequence номер последней записи, записанной в БД.
+     * @return записи журнала, ещё не записанные в БД.
+     * @throws IOException если журнал не удалось прочитать.
+     */
+    List<LedgerTransfer> recover(long flushedSequence) throws IOException {
+        List<LedgerTransfer> transfers = journal.recover(flushedSequence);
+        this.sequence = journal.lastSequence();
+        this.flushedSequence = flushedSequence;
+        return transfers;
+    }
+
+    /**
+     * Запускает поток шарда.
+     */
+    void start() {
+        running = true;
+        thread = Thread.ofPlatform().name("ledger-shard-" + id).start(this);
+    }
+
+    /**
+     * Прекращает приём переводов, дожидается применения уже принятых команд и закрывает журнал.
+     *
+     * @throws InterruptedException если ожидание прервано.
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.error("Failed to close ledger journal of shard {}", id, e);
+        }
+    }
+
+    /**
+     * Регистрирует аккаунт с балансом из БД. До запуска потока баланс записывается напрямую.
+     *
+     * @param slot позиция аккаунта в шарде.
+     * @param balance баланс в минорных единицах.
+     */
+    void register(int slot, long balance) {
+        if (thread == null) {
+            setBalance(slot, balance);
+        } else {
+            commands.add(new Register(slot, balance));
+        }
+    }
+
+    /**
+     * Применяет к балансам запись журнала при восстановлении. Вызывается до {@link #start()}.
+     *
+     * @param slot позиция аккаунта в шарде.
+     * @param amount изменение баланса в минорных единицах.
+     */
+    void replay(int slot, long amount) {
+        balances[slot] += amount;
+    }
+
+    /**
+     * Ставит перевод в очередь шарда отправителя.
+     *
+     * @param fromSlot позиция аккаунта отправителя в этом шарде.
+     * @param toIndex индекс аккаунта получателя в реестре.
+     * @param transfer перевод без номера записи.
+     * @return перевод, записанный в журнал; завершается с {@link IllegalArgumentException} при недостатке средств.
+     * @throws OverloadedException если очередь шарда заполнена.
+     * @throws IllegalStateException если шард остановлен.
+     */
+    CompletableFuture<LedgerTransfer> submit(int fromSlot, int toIndex, LedgerTransfer transfer) {
+        if (!running || failed) {
+            throw new IllegalStateException("Ledger shard " + id + " is not running");
+        }
+        if (queuedTransfers.incrementAndGet() > queueCapacity) {
+            queuedTransfers.decrementAndGet();
+            throw new OverloadedException(RETRY_AFTER);
+        }
+        Transfer command = new Transfer(fromSlot, toIndex, transfer, new CompletableFuture<>());
+        commands.add(command);
+        return command.future();
+    }
+
+    /**
+     * Ставит в очередь зачисление по переводу, уже записанному в журнал другого шарда.
+     *
+     * @param slot позиция аккаунта получателя в этом шарде.
+     * @param amount сумма в минорных единицах.
+     */
+    void credit(int slot, long amount) {
+        commands.add(new Credit(slot, amount));
+    }
+
+    /**
+     * Сообщает, что переводы шарда до указанного номера записаны в БД.
+     *
+     * @param sequence номер последней записанной записи.
+     */
+    void flushed(long sequence) {
+        flushedSequence = sequence;
+    }
+
+    /**
+     * @return переводы в очереди шарда.
+     */
+    int queuedTransfers() {
+        return queuedTransfers.get();
+    }
+
+    @Override
+    public void run() {
+        List<Command> batch = new ArrayList<>(maxBatchSize);
+        List<Transfer> accepted = new ArrayList<>(maxBatchSize);
+        while (running || !commands.isEmpty()) {
+            try {
+                Command first = commands.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                commands.drainTo(batch, maxBatchSize - 1);
+                for (Command command : batch) {
+                    apply(command, accepted);
+                }
+                commit(accepted);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                fail(accepted, e);
+                return;
+            } finally {
+                batch.clear();
+                accepted.clear();
+            }
+        }
+    }
+
+    private void apply(Command command, List<Transfer> accepted) throws IOException {
+        switch (command) {
+            case Register register -> setBalance(register.slot(), register.balance());
+            case Credit credit -> balances[credit.slot()] += credit.amount();
+            case Transfer transfer -> {
+                queuedTransfers.decrementAndGet();
+                LedgerTransfer pending = transfer.transfer();
+                if (balances[transfer.fromSlot()] < pending.amount()) {
+                    engine.rejected(pending);
+                    transfer.future().completeExceptionally(new IllegalArgumentException(INSUFFICIENT_BALANCE));
+                    return;
+                }
+                LedgerTransfer journaled = new LedgerTransfer(pending.id(), id, ++sequence, pending.fromAccountId(),
+                        pending.toAccountId(), pending.amount(), pending.createdAt(), pending.idempotencyKey());
+                journal.append(journaled);
+                balances[transfer.fromSlot()] -= pending.amount();
+                if (engine.shardOf(transfer.toIndex()) == this) {
+                    balances[engine.slotOf(transfer.toIndex())] += pending.amount();
+                }
+                accepted.add(new Transfer(transfer.fromSlot(), transfer.toIndex(), journaled, transfer.future()));
+            }
+        }
+    }
+
+    private void commit(List<Transfer> accepted) throws IOException {
+        if (accepted.isEmpty()) {
+            return;
+        }
+        journal.sync();
+        for (Transfer transfer : accepted) {
+            LedgerTransfer journaled = transfer.transfer();
+            engine.durable(journaled);
+            LedgerShard target = engine.shardOf(transfer.toIndex());
+            if (target != this) {
+                target.credit(engine.slotOf(transfer.toIndex()), journaled.amount());
+            }
+            transfer.future().complete(journaled);
+        }
+        try {
+            journal.deleteFlushed(flushedSequence);
+        } catch (IOException e) {
+            log.warn("Failed to delete flushed ledger journal segments of shard {}", id, e);
+        }
+    }
+
+    private void fail(List<Transfer> accepted, IOException cause) {
+        log.error("Ledger journal of shard {} failed, shard stopped; restart recovers from the journal", id, cause);
+        failed = true;
+        IllegalStateException failure = new IllegalStateException("Ledger journal of shard " + id + " failed", cause);
+        for (Transfer transfer : accepted) {
+            transfer.future().completeExceptionally(failure);
+        }
+        List<Command> rest = new ArrayList<>();
+        commands.drainTo(rest);
+        for (Command command : rest) {
+            if (command instanceof Transfer transfer) {
+                queuedTransfers.decrementAndGet();
+                engine.rejected(transfer.transfer());
+                transfer.future().completeExceptionally(failure);
+            }
+        }
+    }
+
+    private void setBalance(int slot, long balance) {
+        if (slot >= balances.length) {
+            balances = Arrays.copyOf(balances, Math.max(slot + 1, balances.length * 2));
+        }
+        balances[slot] = balance;
+    }
+
+    private sealed interface Command permits Register, Credit, Transfer {
+    }
+
+    private record Register(int slot, long balance) implements Command {
+    }
+
+    private record Credit(int slot, long amount) implements Command {
+    }
+
+    private record Transfer(int fromSlot, int toIndex, LedgerTransfer transfer,
+                            CompletableFuture<LedgerTransfer> future) implements Command {
+    }
+
+}
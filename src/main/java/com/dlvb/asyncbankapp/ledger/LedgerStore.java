@@ -0,0 +1,125 @@
+package com.dlvb.asyncbankapp.ledger;
+
+import com.dlvb.asyncbankapp.model.LedgerCheckpoint;
+import com.dlvb.asyncbankapp.repository.AccountRepository;
+import com.dlvb.asyncbankapp.repository.LedgerCheckpointRepository;
+import com.dlvb.asyncbankapp.service.IdempotencyService;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Запись переводов реестра в БД.
+ * <p>
+ * Пачка переводов записывается одной транзакцией: строки {@link com.dlvb.asyncbankapp.model.Transaction}
+ * вставляются JDBC-пакетом, изменения балансов сворачиваются до одного обновления на аккаунт,
+ * ключи идемпотентности сохраняются, а позиции журналов шардов ({@link LedgerCheckpoint}) сдвигаются.
+ * Поэтому после сбоя каждый перевод журнала либо уже есть в БД вместе с позицией, либо будет записан повторно.
+ * @author Matushkin Anton
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "bank.ledger.enabled", havingValue = "true")
+public class LedgerStore {
+
+    private static final String INSERT_TRANSACTION_SQL = "insert into transaction "
+            + "(id, from_account_id, to_account_id, amount, created_at, updated_at) values (?, ?, ?, ?, ?, ?)";
+
+    @NonNull
+    private final AccountRepository accountRepository;
+
+    @NonNull
+    private final LedgerCheckpointRepository ledgerCheckpointRepository;
+
+    @NonNull
+    private final IdempotencyService idempotencyService;
+
+    @NonNull
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return позиции журналов по номерам шардов.
+     */
+    public Map<Integer, Long> loadCheckpoints() {
+        Map<Integer, Long> checkpoints = new HashMap<>();
+        for (LedgerCheckpoint checkpoint : ledgerCheckpointRepository.findAll()) {
+            checkpoints.put(checkpoint.getShard(), checkpoint.getSequence());
+        }
+        return checkpoints;
+    }
+
+    /**
+     * @param accountId идентификатор аккаунта.
+     * @return баланс аккаунта в БД или пустой результат, если аккаунт не найден.
+     */
+    public Optional<Long> loadBalance(String accountId) {
+        return accountRepository.findBalanceById(accountId);
+    }
+
+    /**
+     * Записывает пачку переводов и позиции журналов одной транзакцией.
+     *
+     * @param transfers переводы в порядке журналов шардов.
+     * @param checkpoints номер последнего перевода пачки для каждого шарда.
+     * @throws NoSuchElementException если аккаунт перевода не найден; транзакция откатывается.
+     */
+    @Transactional
+    public void write(List<LedgerTransfer> transfers, Map<Integer, Long> checkpoints) {
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                LedgerTransfer transfer = transfers.get(i);
+                Timestamp createdAt = new Timestamp(transfer.createdAt());
+                statement.setString(1, transfer.id());
+                statement.setString(2, transfer.fromAccountId());
+                statement.setString(3, transfer.toAccountId());
+                statement.setLong(4, transfer.amount());
+                statement.setTimestamp(5, createdAt);
+                statement.setTimestamp(6, createdAt);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return transfers.size();
+            }
+        });
+
+        TreeMap<String, Long> deltas = new TreeMap<>();
+        Map<String, String> keys = new HashMap<>();
+        for (LedgerTransfer transfer : transfers) {
+            deltas.merge(transfer.fromAccountId(), -transfer.amount(), Long::sum);
+            deltas.merge(transfer.toAccountId(), transfer.amount(), Long::sum);
+            if (transfer.idempotencyKey() != null) {
+                keys.put(transfer.idempotencyKey(), transfer.id());
+            }
+        }
+        String[] accountIds = deltas.keySet().toArray(String[]::new);
+        long[] amounts = deltas.values().stream().mapToLong(Long::longValue).toArray();
+        int[] updated = accountRepository.applyBalanceDeltas(accountIds, amounts);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw new NoSuchElementException("Account not found: " + accountIds[i]);
+            }
+        }
+
+        idempotencyService.remember(keys);
+        ledgerCheckpointRepository.saveAll(checkpoints.entrySet().stream()
+                .map(checkpoint -> LedgerCheckpoint.builder().shard(checkpoint.getKey()).sequence(checkpoint.getValue()).build())
+                .toList());
+    }
+
+}
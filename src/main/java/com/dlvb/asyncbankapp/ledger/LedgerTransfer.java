@@ -0,0 +1,18 @@
+package com.dlvb.asyncbankapp.ledger;
+
+/**
+ * Перевод, принятый реестром и записанный в журнал шарда.
+ *
+ * @param id идентификатор перевода; становится идентификатором {@link com.dlvb.asyncbankapp.model.Transaction}.
+ * @param shard шард, принявший перевод (шард аккаунта отправителя).
+ * @param sequence номер записи в журнале шарда.
+ * @param fromAccountId идентификатор аккаунта отправителя.
+ * @param toAccountId идентификатор аккаунта получателя.
+ * @param amount сумма перевода в минорных единицах.
+ * @param createdAt время приёма, мс от эпохи.
+ * @param idempotencyKey ключ идемпотентности или {@code null}.
+ * @author Matushkin Anton
+ */
+public record LedgerTransfer(String id, int shard, long sequence, String fromAccountId, String toAccountId,
+                             long amount, long createdAt, String idempotencyKey) {
+}
@@ -0,0 +1,21 @@
+package com.dlvb.asyncbankapp.model;
+
+/**
+ * Условия депозита, достаточные для расчёта статистики: баланс и ставка, без аккаунта и служебных полей.
+ *
+ * @param id идентификатор депозита.
+ * @param balance баланс в минорных единицах.
+ * @param rate ставка в процентах годовых.
+ * @author Matushkin Anton
+ */
+public record DepositTerms(String id, long balance, double rate) {
+
+    /**
+     * @param deposit депозит.
+     * @return условия депозита.
+     */
+    public static DepositTerms of(Deposit deposit) {
+        return new DepositTerms(deposit.getId(), deposit.getBalance(), deposit.getRate());
+    }
+
+}
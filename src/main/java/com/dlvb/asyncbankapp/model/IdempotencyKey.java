@@ -0,0 +1,47 @@
+package com.dlvb.asyncbankapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.Id;
+import jakarta.persistence.Transient;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сущность для хранения обработанных ключей идемпотентности.
+ * Первичный ключ гарантирует, что операция с одним ключом будет применена только один раз.
+ * @author Matushkin Anton
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class IdempotencyKey implements Persistable<String> {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String result;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Override
+    @Transient
+    public boolean isNew() {
+        return true;
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.dlvb.asyncbankapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Сущность для хранения позиции журнала реестра переводов, до которой переводы записаны в БД.
+ * Обновляется в одной транзакции с записанными переводами.
+ * @author Matushkin Anton
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerCheckpoint {
+
+    @Id
+    private Integer shard;
+
+    @Column(nullable = false)
+    private long sequence;
+
+}
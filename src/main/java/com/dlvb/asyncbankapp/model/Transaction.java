@@ -1,5 +1,6 @@
 package com.dlvb.asyncbankapp.model;
 
+import com.dlvb.asyncbankapp.money.JsonMoney;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
@@ -42,7 +43,8 @@ public class Transaction {
     @JoinColumn(name = "to_account_id", nullable = false)
     private Account toAccount;
 
-    private double amount;
+    @JsonMoney
+    private long amount;
 
     @CreatedDate
     @Column(name = "created_at", nullable = false)
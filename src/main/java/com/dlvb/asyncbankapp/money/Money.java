@@ -0,0 +1,106 @@
+package com.dlvb.asyncbankapp.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Денежные суммы в виде {@code long} в минорных единицах (копейках).
+ * <p>
+ * Суммы хранятся в колонках {@code bigint} и складываются без погрешности округления;
+ * в JSON они передаются в основных единицах с двумя знаками после запятой.
+ * @author Matushkin Anton
+ */
+public final class Money {
+
+    /**
+     * Число знаков после запятой в основных единицах.
+     */
+    public static final int SCALE = 2;
+
+    /**
+     * Число минорных единиц в одной основной.
+     */
+    public static final long MINOR_UNITS_PER_MAJOR = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Переводит сумму в основных единицах в минорные.
+     *
+     * @param major сумма в основных единицах.
+     * @return сумма в минорных единицах.
+     * @throws ArithmeticException если у суммы больше {@link #SCALE} знаков после запятой или она не помещается в {@code long}.
+     */
+    public static long ofMajor(BigDecimal major) {
+        return major.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Переводит сумму в минорных единицах в основные.
+     *
+     * @param minor сумма в минорных единицах.
+     * @return сумма в основных единицах с {@link #SCALE} знаками после запятой.
+     */
+    public static BigDecimal toMajor(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /**
+     * Форматирует сумму в основных единицах, например {@code 1234.50}.
+     *
+     * @param minor сумма в минорных единицах.
+     * @return строковое представление суммы.
+     */
+    public static String format(long minor) {
+        return toMajor(minor).toPlainString();
+    }
+
+    /**
+     * Складывает суммы.
+     *
+     * @throws ArithmeticException при переполнении.
+     */
+    public static long add(long first, long second) {
+        return Math.addExact(first, second);
+    }
+
+    /**
+     * Вычитает сумму.
+     *
+     * @throws ArithmeticException при переполнении.
+     */
+    public static long subtract(long minuend, long subtrahend) {
+        return Math.subtractExact(minuend, subtrahend);
+    }
+
+    /**
+     * Умножает сумму на дробный множитель и округляет результат до минорной единицы (половина — вверх по модулю).
+     *
+     * @param minor сумма в минорных единицах.
+     * @param factor множитель, например {@code 0.05} для 5%.
+     * @return сумма в минорных единицах.
+     */
+    public static long multiply(long minor, double factor) {
+        return round(minor * factor);
+    }
+
+    /**
+     * Округляет дробное значение в минорных единицах до целой минорной единицы, половину — от нуля.
+     * Сравнивается с половиной только дробная часть: прибавление {@code 0.5} ко всему значению само округляется
+     * ({@code 0.49999999999999994} дало бы {@code 1}, нечётные значения от 2<sup>52</sup> — соседнее чётное).
+     *
+     * @param minor значение в минорных единицах.
+     * @return округлённая сумма.
+     * @throws ArithmeticException если значение не помещается в {@code long}.
+     */
+    public static long round(double minor) {
+        if (Double.isNaN(minor) || Math.abs(minor) >= 0x1p63) {
+            throw new ArithmeticException("Money amount out of range: " + minor);
+        }
+        long truncated = (long) minor;
+        double fraction = minor - truncated;
+        return Math.abs(fraction) >= 0.5 ? truncated + (long) Math.signum(fraction) : truncated;
+    }
+
+}
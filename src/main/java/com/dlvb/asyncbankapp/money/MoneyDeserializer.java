@@ -0,0 +1,46 @@
+package com.dlvb.asyncbankapp.money;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Читает число в основных единицах как сумму в минорных единицах, например {@code 120.5} как {@code 12050}.
+ * Суммы с дробной частью мельче минорной единицы отклоняются.
+ * @author Matushkin Anton
+ */
+public class MoneyDeserializer extends StdDeserializer<Long> {
+
+    public MoneyDeserializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        BigDecimal major;
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            major = parser.getDecimalValue();
+        } else if (token == JsonToken.VALUE_STRING) {
+            try {
+                major = new BigDecimal(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return (Long) context.handleWeirdStringValue(Long.class, parser.getText(), "not a money amount");
+            }
+        } else {
+            return (Long) context.handleUnexpectedToken(Long.class, parser);
+        }
+
+        try {
+            return Money.ofMajor(major);
+        } catch (ArithmeticException e) {
+            return (Long) context.handleWeirdNumberValue(Long.class, major,
+                    "money amount must fit into long with at most %d decimal places", Money.SCALE);
+        }
+    }
+
+}
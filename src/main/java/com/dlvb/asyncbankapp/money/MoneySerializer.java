@@ -0,0 +1,24 @@
+package com.dlvb.asyncbankapp.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Пишет сумму в минорных единицах как число в основных единицах, например {@code 12050} как {@code 120.50}.
+ * @author Matushkin Anton
+ */
+public class MoneySerializer extends StdSerializer<Long> {
+
+    public MoneySerializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public void serialize(Long value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeNumber(Money.toMajor(value));
+    }
+
+}
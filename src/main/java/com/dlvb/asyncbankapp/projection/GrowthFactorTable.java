@@ -0,0 +1,37 @@
+package com.dlvb.asyncbankapp.projection;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ограниченный кэш {@link GrowthFactors} для часто встречающихся пар (ставка, число лет).
+ * @author Matushkin Anton
+ */
+@Component
+public class GrowthFactorTable {
+
+    private final Cache<Key, GrowthFactors> factors;
+
+    public GrowthFactorTable(@Value("${bank.deposits.growth-factor-cache-size:10000}") long cacheSize) {
+        this.factors = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * Возвращает множители роста, вычисляя их при первом обращении.
+     *
+     * @param rateInPercents ставка в процентах годовых.
+     * @param years число лет.
+     * @return множители роста.
+     */
+    public GrowthFactors get(double rateInPercents, int years) {
+        return factors.get(new Key(rateInPercents, years), key -> GrowthFactors.compute(key.rate(), key.years()));
+    }
+
+    private record Key(double rate, int years) {
+    }
+
+}
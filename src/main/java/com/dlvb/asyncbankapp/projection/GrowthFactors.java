@@ -0,0 +1,70 @@
+package com.dlvb.asyncbankapp.projection;
+
+import com.dlvb.asyncbankapp.money.Money;
+
+/**
+ * Множители роста депозита для пары (ставка, число лет).
+ * <p>
+ * {@code growth = (1 + 0.01 * rate)^years} — множитель капитализации начального баланса,
+ * {@code annuityRatio = (growth - 1) / (0.01 * rate)} — множитель ежегодных пополнений;
+ * при нулевой ставке это его предел, {@code years}: операции просто суммируются без капитализации.
+ * Степень вычисляется один раз и переиспользуется всеми сценариями и депозитами с той же ставкой;
+ * результаты совпадают с прямым вычислением {@link Math#pow} в каждом сценарии бит в бит.
+ *
+ * @param growth множитель капитализации.
+ * @param annuityRatio множитель ежегодных операций.
+ * @author Matushkin Anton
+ */
+public record GrowthFactors(double growth, double annuityRatio) {
+
+    /**
+     * Вычисляет множители.
+     *
+     * @param rateInPercents ставка в процентах годовых.
+     * @param years число лет.
+     * @return множители роста.
+     */
+    public static GrowthFactors compute(double rateInPercents, int years) {
+        if (rateInPercents == 0) {
+            return new GrowthFactors(1, years);
+        }
+        double growth = Math.pow(1 + 0.01 * rateInPercents, years);
+        return new GrowthFactors(growth, (growth - 1) / (0.01 * rateInPercents));
+    }
+
+    /**
+     * @param balance начальный баланс в минорных единицах.
+     * @return баланс с капитализацией в минорных единицах.
+     */
+    public long balance(long balance) {
+        return Money.round(compound(balance));
+    }
+
+    /**
+     * @param balance начальный баланс в минорных единицах.
+     * @param operation ежегодная операция в минорных единицах.
+     * @return баланс с капитализацией и ежегодными операциями в минорных единицах.
+     */
+    public long balanceWithOperation(long balance, long operation) {
+        return Money.round(operation * annuityRatio + compound(balance));
+    }
+
+    /**
+     * @param balance начальный баланс в минорных единицах.
+     * @param topUps ежегодные пополнения в минорных единицах.
+     * @param withdraw ежегодные снятия в минорных единицах.
+     * @return баланс с капитализацией, пополнениями и снятиями в минорных единицах.
+     * @throws IllegalArgumentException если снятия больше пополнений.
+     */
+    public long balanceWithTopUpsAndWithdraw(long balance, long topUps, long withdraw) {
+        if (withdraw > topUps) {
+            throw new IllegalArgumentException("Withdraw cannot be less than topUps.");
+        }
+        return Money.round(compound(balance) + (annuityRatio * Money.subtract(topUps, withdraw)));
+    }
+
+    private double compound(long balance) {
+        return balance * growth;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.dlvb.asyncbankapp.projection;
+
+/**
+ * Результат проекции портфеля депозитов в виде структуры массивов.
+ * <p>
+ * {@code balances[scenario][deposit]} — баланс депозита в минорных единицах для сценария из {@link ProjectionScenarios}.
+ * @author Matushkin Anton
+ */
+public final class PortfolioProjection {
+
+    private final ProjectionScenarios scenarios;
+    private final long[][] balances;
+
+    PortfolioProjection(ProjectionScenarios scenarios, int deposits) {
+        this.scenarios = scenarios;
+        this.balances = new long[scenarios.count()][deposits];
+    }
+
+    /**
+     * @return сценарии проекции.
+     */
+    public ProjectionScenarios scenarios() {
+        return scenarios;
+    }
+
+    /**
+     * @return число депозитов.
+     */
+    public int size() {
+        return balances[0].length;
+    }
+
+    /**
+     * @param scenario номер сценария.
+     * @return балансы всех депозитов для сценария; массив не копируется.
+     */
+    public long[] scenario(int scenario) {
+        return balances[scenario];
+    }
+
+    /**
+     * @param scenario номер сценария.
+     * @param deposit номер депозита во входных массивах.
+     * @return баланс в минорных единицах.
+     */
+    public long balance(int scenario, int deposit) {
+        return balances[scenario][deposit];
+    }
+
+    long[][] balances() {
+        return balances;
+    }
+
+}
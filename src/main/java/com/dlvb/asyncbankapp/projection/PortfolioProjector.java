@@ -0,0 +1,88 @@
+package com.dlvb.asyncbankapp.projection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Пакетная проекция балансов депозитов по примитивным массивам.
+ * <p>
+ * Множители роста берутся из {@link GrowthFactorTable} и раскладываются по массивам, после чего все сценарии считаются
+ * одним проходом без создания объектов на депозит. При {@code bank.projection.vectorized=true} и подключённом модуле
+ * {@code jdk.incubator.vector} используется векторное ядро, иначе — скалярное с тем же результатом.
+ * @author Matushkin Anton
+ */
+@Slf4j
+@Component
+public class PortfolioProjector {
+
+    /**
+     * Наибольший допустимый баланс в минорных единицах: до {@code 2^53} значения {@code long} точно представимы в {@code double}.
+     */
+    public static final long MAX_BALANCE = 1L << 53;
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private final GrowthFactorTable growthFactorTable;
+    private final ProjectionKernel kernel;
+
+    public PortfolioProjector(GrowthFactorTable growthFactorTable,
+                              @Value("${bank.projection.vectorized:true}") boolean vectorized) {
+        this.growthFactorTable = growthFactorTable;
+        this.kernel = vectorized ? vectorKernelIfAvailable() : ScalarProjectionKernel.INSTANCE;
+        log.info("Portfolio projections use the {} kernel", kernel);
+    }
+
+    /**
+     * Рассчитывает все сценарии для каждого депозита.
+     *
+     * @param balances начальные балансы в минорных единицах.
+     * @param rates ставки депозитов в процентах годовых.
+     * @param requestedRate запрошенная ставка в процентах годовых.
+     * @param years число лет.
+     * @param scenarios сценарии проекции.
+     * @return балансы по сценариям.
+     * @throws IllegalArgumentException если длины массивов различаются или баланс вне {@code [0, MAX_BALANCE]}.
+     * @throws ArithmeticException если итоговый баланс не помещается в {@code long}.
+     */
+    public PortfolioProjection project(long[] balances, double[] rates, double requestedRate, int years,
+                                       ProjectionScenarios scenarios) {
+        if (balances.length != rates.length) {
+            throw new IllegalArgumentException("Balances and rates must have the same length");
+        }
+        double[] growth = new double[balances.length];
+        double[] annuityRatio = new double[balances.length];
+        GrowthFactors factors = null;
+        for (int d = 0; d < balances.length; d++) {
+            if (balances[d] < 0 || balances[d] > MAX_BALANCE) {
+                throw new IllegalArgumentException("Balance out of range: " + balances[d]);
+            }
+            if (factors == null || Double.compare(rates[d], rates[d - 1]) != 0) {
+                factors = growthFactorTable.get(rates[d], years);
+            }
+            growth[d] = factors.growth();
+            annuityRatio[d] = factors.annuityRatio();
+        }
+
+        PortfolioProjection projection = new PortfolioProjection(scenarios, balances.length);
+        kernel.project(balances, growth, annuityRatio, growthFactorTable.get(requestedRate, years).growth(),
+                scenarios, projection.balances(), 0, balances.length);
+        return projection;
+    }
+
+    /**
+     * @return {@code true}, если используется векторное ядро.
+     */
+    public boolean isVectorized() {
+        return kernel != ScalarProjectionKernel.INSTANCE;
+    }
+
+    private static ProjectionKernel vectorKernelIfAvailable() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            log.warn("Module {} is not enabled; add --add-modules {} to use the vector kernel", VECTOR_MODULE, VECTOR_MODULE);
+            return ScalarProjectionKernel.INSTANCE;
+        }
+        return VectorProjectionKernel.isEffective() ? new VectorProjectionKernel() : ScalarProjectionKernel.INSTANCE;
+    }
+
+}
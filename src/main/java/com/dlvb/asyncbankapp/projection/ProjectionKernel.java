@@ -0,0 +1,24 @@
+package com.dlvb.asyncbankapp.projection;
+
+/**
+ * Расчёт сценариев проекции для диапазона депозитов.
+ * Реализации обязаны давать одинаковый результат бит в бит и совпадать с {@link GrowthFactors}.
+ * @author Matushkin Anton
+ */
+interface ProjectionKernel {
+
+    /**
+     * @param balances начальные балансы в минорных единицах, от {@code 0} до {@link PortfolioProjector#MAX_BALANCE}.
+     * @param growth множители капитализации по ставке каждого депозита.
+     * @param annuityRatio множители ежегодных операций по ставке каждого депозита.
+     * @param requestedGrowth множитель капитализации по запрошенной ставке.
+     * @param scenarios сценарии проекции.
+     * @param out {@code out[scenario][deposit]} для результатов.
+     * @param from первый депозит диапазона.
+     * @param to депозит после последнего в диапазоне.
+     * @throws ArithmeticException если баланс не помещается в {@code long}.
+     */
+    void project(long[] balances, double[] growth, double[] annuityRatio, double requestedGrowth,
+                 ProjectionScenarios scenarios, long[][] out, int from, int to);
+
+}
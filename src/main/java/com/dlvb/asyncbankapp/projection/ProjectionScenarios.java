@@ -0,0 +1,76 @@
+package com.dlvb.asyncbankapp.projection;
+
+/**
+ * Набор сценариев проекции баланса депозита.
+ * <p>
+ * Сценарии идут в порядке: баланс по запрошенной ставке, баланс по ставке депозита, затем по одному сценарию
+ * на каждую долю ежегодной операции и на каждую пару долей пополнения и снятия.
+ * Доли снятий берутся по кругу, если их меньше, чем долей пополнений. Все доли лежат в {@code [0, 1]}.
+ * Массивы не копируются и не должны изменяться.
+ *
+ * @param operationPercentages доли баланса для ежегодной операции, например {@code 0.05} для 5%.
+ * @param topUpPercentages доли баланса для ежегодных пополнений.
+ * @param withdrawPercentages доли баланса для ежегодных снятий.
+ * @author Matushkin Anton
+ */
+public record ProjectionScenarios(double[] operationPercentages, double[] topUpPercentages, double[] withdrawPercentages) {
+
+    /**
+     * Номер сценария с балансом по запрошенной ставке.
+     */
+    public static final int BY_RATE = 0;
+
+    /**
+     * Номер сценария с балансом по ставке депозита.
+     */
+    public static final int ACTUAL_RATE = 1;
+
+    public ProjectionScenarios {
+        if (withdrawPercentages.length == 0 && topUpPercentages.length > 0) {
+            throw new IllegalArgumentException("Withdraw percentages are required for top-up scenarios");
+        }
+        checkPercentages(operationPercentages);
+        checkPercentages(topUpPercentages);
+        checkPercentages(withdrawPercentages);
+    }
+
+    /**
+     * @return общее число сценариев.
+     */
+    public int count() {
+        return 2 + operationPercentages.length + topUpPercentages.length;
+    }
+
+    /**
+     * @param index номер доли ежегодной операции.
+     * @return номер сценария.
+     */
+    public int withOperation(int index) {
+        return 2 + index;
+    }
+
+    /**
+     * @param index номер доли пополнения.
+     * @return номер сценария.
+     */
+    public int withTopUpsAndWithdraw(int index) {
+        return 2 + operationPercentages.length + index;
+    }
+
+    /**
+     * @param index номер доли пополнения.
+     * @return доля снятия, парная пополнению.
+     */
+    public double withdrawPercentage(int index) {
+        return withdrawPercentages[index % withdrawPercentages.length];
+    }
+
+    private static void checkPercentages(double[] percentages) {
+        for (double percentage : percentages) {
+            if (!(percentage >= 0 && percentage <= 1)) {
+                throw new IllegalArgumentException("Percentage must be between 0 and 1: " + percentage);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.dlvb.asyncbankapp.projection;
+
+import com.dlvb.asyncbankapp.money.Money;
+
+/**
+ * Скалярный расчёт проекции: те же операции, что и в {@link GrowthFactors}, по одному депозиту за шаг.
+ * @author Matushkin Anton
+ */
+final class ScalarProjectionKernel implements ProjectionKernel {
+
+    static final ScalarProjectionKernel INSTANCE = new ScalarProjectionKernel();
+
+    private ScalarProjectionKernel() {
+    }
+
+    @Override
+    public void project(long[] balances, double[] growth, double[] annuityRatio, double requestedGrowth,
+                        ProjectionScenarios scenarios, long[][] out, int from, int to) {
+        double[] operationPercentages = scenarios.operationPercentages();
+        double[] topUpPercentages = scenarios.topUpPercentages();
+        for (int d = from; d < to; d++) {
+            long balance = balances[d];
+            double compound = balance * growth[d];
+            out[ProjectionScenarios.BY_RATE][d] = Money.round(balance * requestedGrowth);
+            out[ProjectionScenarios.ACTUAL_RATE][d] = Money.round(compound);
+            for (int i = 0; i < operationPercentages.length; i++) {
+                long operation = Money.multiply(balance, operationPercentages[i]);
+                out[scenarios.withOperation(i)][d] = Money.round(operation * annuityRatio[d] + compound);
+            }
+            for (int i = 0; i < topUpPercentages.length; i++) {
+                long topUps = Money.multiply(balance, topUpPercentages[i]);
+                long withdraw = -Money.multiply(balance, scenarios.withdrawPercentage(i));
+                out[scenarios.withTopUpsAndWithdraw(i)][d] = Money.round(compound + (annuityRatio[d] * Money.subtract(topUps, withdraw)));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.dlvb.asyncbankapp.projection;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Расчёт проекции на {@code jdk.incubator.vector}: каждый шаг обрабатывает столько депозитов, сколько помещается в регистр.
+ * <p>
+ * Депозиты обрабатываются плитками по {@value #TILE} штук, а внутри плитки каждый сценарий считается отдельным коротким циклом:
+ * входные массивы плитки остаются в кэше процессора, а каждый цикл достаточно мал, чтобы JIT встроил все операции
+ * с векторами и не размещал их в куче.
+ * Операции выполняются в том же порядке и без слияния умножения со сложением, а округление повторяет
+ * {@link com.dlvb.asyncbankapp.money.Money#round}, поэтому результат совпадает со {@link ScalarProjectionKernel} бит в бит.
+ * Проверяются только итоговые балансы: доли сценариев не больше единицы, поэтому суммы операций не превышают баланс,
+ * а баланс с капитализацией проверяется в сценарии {@link ProjectionScenarios#ACTUAL_RATE} той же плитки.
+ * Если в плитке значение выходит за пределы {@code long} или не является числом, плитка пересчитывается скалярно,
+ * что даёт то же исключение; хвост, не заполняющий регистр, тоже считается скалярно.
+ * Класс загружается, только если модуль {@code jdk.incubator.vector} подключён.
+ * @author Matushkin Anton
+ */
+final class VectorProjectionKernel implements ProjectionKernel {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final double LONG_RANGE = 0x1p63;
+    private static final int TILE = 1024;
+
+    /**
+     * @return {@code true}, если в регистр помещается больше одного значения.
+     */
+    static boolean isEffective() {
+        return DOUBLES.length() > 1 && DOUBLES.length() == LONGS.length();
+    }
+
+    @Override
+    public void project(long[] balances, double[] growth, double[] annuityRatio, double requestedGrowth,
+                        ProjectionScenarios scenarios, long[][] out, int from, int to) {
+        for (int tileStart = from; tileStart < to; tileStart += TILE) {
+            int tileEnd = Math.min(to, tileStart + TILE);
+            int vectorEnd = tileStart + DOUBLES.loopBound(tileEnd - tileStart);
+            if (!projectTile(balances, growth, annuityRatio, requestedGrowth, scenarios, out, tileStart, vectorEnd)) {
+                ScalarProjectionKernel.INSTANCE.project(balances, growth, annuityRatio, requestedGrowth, scenarios, out, tileStart, vectorEnd);
+            }
+            ScalarProjectionKernel.INSTANCE.project(balances, growth, annuityRatio, requestedGrowth, scenarios, out, vectorEnd, tileEnd);
+        }
+    }
+
+    private static boolean projectTile(long[] balances, double[] growth, double[] annuityRatio, double requestedGrowth,
+                                       ProjectionScenarios scenarios, long[][] out, int from, int to) {
+        boolean valid = projectCompound(balances, requestedGrowth, out[ProjectionScenarios.BY_RATE], from, to);
+        valid &= projectCompound(balances, growth, out[ProjectionScenarios.ACTUAL_RATE], from, to);
+        double[] operationPercentages = scenarios.operationPercentages();
+        for (int i = 0; i < operationPercentages.length; i++) {
+            valid &= projectOperation(balances, growth, annuityRatio, operationPercentages[i],
+                    out[scenarios.withOperation(i)], from, to);
+        }
+        double[] topUpPercentages = scenarios.topUpPercentages();
+        for (int i = 0; i < topUpPercentages.length; i++) {
+            valid &= projectTopUpsAndWithdraw(balances, growth, annuityRatio, topUpPercentages[i], scenarios.withdrawPercentage(i),
+                    out[scenarios.withTopUpsAndWithdraw(i)], from, to);
+        }
+        return valid;
+    }
+
+    private static boolean projectCompound(long[] balances, double requestedGrowth, long[] out, int from, int to) {
+        boolean invalid = false;
+        for (int d = from; d < to; d += DOUBLES.length()) {
+            DoubleVector projected = balance(balances, d).mul(requestedGrowth);
+            invalid |= outOfRange(projected);
+            round(projected).intoArray(out, d);
+        }
+        return !invalid;
+    }
+
+    private static boolean projectCompound(long[] balances, double[] growth, long[] out, int from, int to) {
+        boolean invalid = false;
+        for (int d = from; d < to; d += DOUBLES.length()) {
+            DoubleVector projected = balance(balances, d).mul(DoubleVector.fromArray(DOUBLES, growth, d));
+            invalid |= outOfRange(projected);
+            round(projected).intoArray(out, d);
+        }
+        return !invalid;
+    }
+
+    private static boolean projectOperation(long[] balances, double[] growth, double[] annuityRatio, double percentage,
+                                            long[] out, int from, int to) {
+        boolean invalid = false;
+        for (int d = from; d < to; d += DOUBLES.length()) {
+            DoubleVector balance = balance(balances, d);
+            DoubleVector compound = balance.mul(DoubleVector.fromArray(DOUBLES, growth, d));
+            DoubleVector operation = balance.mul(percentage);
+            DoubleVector projected = toDouble(round(operation)).mul(DoubleVector.fromArray(DOUBLES, annuityRatio, d)).add(compound);
+            invalid |= outOfRange(projected);
+            round(projected).intoArray(out, d);
+        }
+        return !invalid;
+    }
+
+    private static boolean projectTopUpsAndWithdraw(long[] balances, double[] growth, double[] annuityRatio, double topUpPercentage,
+                                                    double withdrawPercentage, long[] out, int from, int to) {
+        boolean invalid = false;
+        for (int d = from; d < to; d += DOUBLES.length()) {
+            DoubleVector balance = balance(balances, d);
+            DoubleVector compound = balance.mul(DoubleVector.fromArray(DOUBLES, growth, d));
+            DoubleVector topUps = balance.mul(topUpPercentage);
+            DoubleVector withdraw = balance.mul(withdrawPercentage);
+            LongVector net = round(topUps).add(round(withdraw));
+            DoubleVector projected = compound.add(DoubleVector.fromArray(DOUBLES, annuityRatio, d).mul(toDouble(net)));
+            invalid |= outOfRange(projected);
+            round(projected).intoArray(out, d);
+        }
+        return !invalid;
+    }
+
+    private static DoubleVector balance(long[] balances, int d) {
+        return toDouble(LongVector.fromArray(LONGS, balances, d));
+    }
+
+    private static DoubleVector toDouble(LongVector vector) {
+        return (DoubleVector) vector.convert(VectorOperators.L2D, 0);
+    }
+
+    private static boolean outOfRange(DoubleVector minor) {
+        return !minor.abs().compare(VectorOperators.LT, LONG_RANGE).allTrue();
+    }
+
+    /**
+     * То же округление, что {@link com.dlvb.asyncbankapp.money.Money#round}: по дробной части после отбрасывания.
+     */
+    private static LongVector round(DoubleVector minor) {
+        LongVector truncated = (LongVector) minor.convert(VectorOperators.D2L, 0);
+        DoubleVector fraction = minor.sub(toDouble(truncated));
+        VectorMask<Long> up = fraction.compare(VectorOperators.GE, 0.5).cast(LONGS);
+        VectorMask<Long> down = fraction.compare(VectorOperators.LE, -0.5).cast(LONGS);
+        return truncated.add(1, up).sub(1, down);
+    }
+
+    @Override
+    public String toString() {
+        return "vector(" + DOUBLES.length() + " lanes)";
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.dlvb.asyncbankapp.repository;
+
+/**
+ * Пакетные операции над балансами аккаунтов в обход контекста персистентности.
+ * @author Matushkin Anton
+ */
+public interface AccountBatchRepository {
+
+    /**
+     * Прибавляет к балансам аккаунтов суммы одним JDBC-пакетом и увеличивает их версии.
+     * Для отсутствия взаимных блокировок идентификаторы следует передавать отсортированными.
+     *
+     * @param accountIds идентификаторы аккаунтов.
+     * @param deltas суммы изменения в минорных единицах, по одной на аккаунт.
+     * @return число обновлённых строк для каждого аккаунта: {@code 0}, если аккаунт не найден.
+     */
+    int[] applyBalanceDeltas(String[] accountIds, long[] deltas);
+
+}
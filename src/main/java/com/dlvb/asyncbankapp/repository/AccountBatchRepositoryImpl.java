@@ -0,0 +1,41 @@
+package com.dlvb.asyncbankapp.repository;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Имплементация {@link AccountBatchRepository} на {@link JdbcTemplate}.
+ * Выполняется в текущей транзакции: JPA-менеджер транзакций открывает JDBC-соединение и для неё.
+ * @author Matushkin Anton
+ */
+@RequiredArgsConstructor
+public class AccountBatchRepositoryImpl implements AccountBatchRepository {
+
+    private static final String APPLY_DELTA_SQL = "update account set balance = balance + ?, version = version + 1, "
+            + "updated_at = current_timestamp where id = ?";
+
+    @NonNull
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] applyBalanceDeltas(String[] accountIds, long[] deltas) {
+        return jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setLong(1, deltas[i]);
+                statement.setString(2, accountIds[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return accountIds.length;
+            }
+        });
+    }
+
+}
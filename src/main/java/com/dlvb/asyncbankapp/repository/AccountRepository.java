@@ -1,13 +1,83 @@
 package com.dlvb.asyncbankapp.repository;
 
 import com.dlvb.asyncbankapp.model.Account;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Репозиторий для манипуляций с {@link Account}.
  * @author Matushkin Anton
  */
 @Repository
-public interface AccountRepository extends JpaRepository<Account, String> {
+public interface AccountRepository extends JpaRepository<Account, String>, AccountBatchRepository {
+
+    /**
+     * Списывает сумму с аккаунта одним запросом, если на нём достаточно средств.
+     * Версия аккаунта увеличивается, чтобы параллельные изменения через сущность получили конфликт.
+     * Контекст персистентности не очищается: сущность, уже загруженная в этой транзакции, сохраняет прежний баланс.
+     *
+     * @param accountId идентификатор аккаунта.
+     * @param amount сумма списания в минорных единицах.
+     * @return {@code 1}, если списание выполнено; {@code 0}, если средств недостаточно или аккаунт не найден.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1, a.updatedAt = CURRENT_TIMESTAMP "
+            + "where a.id = :accountId and a.balance >= :amount")
+    int debitIfSufficient(@Param("accountId") String accountId, @Param("amount") long amount);
+
+    /**
+     * Зачисляет сумму на аккаунт одним запросом и увеличивает его версию.
+     * Контекст персистентности не очищается: {@code updateBalance} выполняет зачисление и чтение аккаунта
+     * в одной транзакции и получает новый баланс только потому, что до зачисления сущность в ней не загружалась.
+     *
+     * @param accountId идентификатор аккаунта.
+     * @param amount сумма зачисления в минорных единицах.
+     * @return {@code 1}, если зачисление выполнено; {@code 0}, если аккаунт не найден.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1, a.updatedAt = CURRENT_TIMESTAMP "
+            + "where a.id = :accountId")
+    int credit(@Param("accountId") String accountId, @Param("amount") long amount);
+
+    /**
+     * Блокирует строку аккаунта до конца транзакции, не изменяя её.
+     *
+     * @param accountId идентификатор аккаунта.
+     * @return идентификатор аккаунта или пустой результат, если аккаунт не найден.
+     */
+    @Query(value = "select id from account where id = :accountId for update", nativeQuery = true)
+    Optional<String> lockById(@Param("accountId") String accountId);
+
+    /**
+     * Возвращает баланс аккаунта без загрузки сущности.
+     *
+     * @param accountId идентификатор аккаунта.
+     * @return баланс в минорных единицах или пустой результат, если аккаунт не найден.
+     */
+    @Query("select a.balance from Account a where a.id = :accountId")
+    Optional<Long> findBalanceById(@Param("accountId") String accountId);
+
+    /**
+     * Загружает аккаунты одним запросом и блокирует их строки до конца транзакции.
+     * Строки блокируются в порядке идентификаторов, чтобы параллельные пачки не вызывали deadlock.
+     *
+     * @param accountIds идентификаторы аккаунтов.
+     * @return найденные аккаунты; отсутствующие идентификаторы пропускаются.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id in :accountIds order by a.id")
+    List<Account> findAllByIdForUpdate(@Param("accountIds") Collection<String> accountIds);
+
 }
@@ -1,13 +1,29 @@
 package com.dlvb.asyncbankapp.repository;
 
 import com.dlvb.asyncbankapp.model.Deposit;
+import com.dlvb.asyncbankapp.model.DepositTerms;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Репозиторий для манипуляций с {@link Deposit}.
  * @author Matushkin Anton
  */
 @Repository
 public interface DepositRepository extends JpaRepository<Deposit, String> {
+
+    /**
+     * Загружает условия депозитов одним запросом, не затрагивая таблицу аккаунтов.
+     *
+     * @param depositIds идентификаторы депозитов.
+     * @return условия найденных депозитов; отсутствующие идентификаторы пропускаются.
+     */
+    @Query("select new com.dlvb.asyncbankapp.model.DepositTerms(d.id, d.balance, d.rate) from Deposit d where d.id in :depositIds")
+    List<DepositTerms> findTermsByIdIn(@Param("depositIds") Collection<String> depositIds);
+
 }
@@ -0,0 +1,27 @@
+package com.dlvb.asyncbankapp.repository;
+
+/**
+ * Пакетные операции над ключами идемпотентности в обход контекста персистентности.
+ * @author Matushkin Anton
+ */
+public interface IdempotencyKeyBatchRepository {
+
+    /**
+     * Вставляет ключи одним JDBC-пакетом, пропуская уже существующие.
+     * Если такой же ключ вставлен незафиксированной транзакцией, вставка ждёт её завершения.
+     * Для отсутствия взаимных блокировок ключи следует передавать отсортированными.
+     *
+     * @param keys ключи идемпотентности.
+     * @param result результат, сохраняемый для вставленных ключей.
+     */
+    void insertMissing(String[] keys, String result);
+
+    /**
+     * Заменяет результаты ключей одним JDBC-пакетом.
+     *
+     * @param keys ключи идемпотентности.
+     * @param results новые результаты, по одному на ключ.
+     */
+    void updateResults(String[] keys, String[] results);
+
+}
@@ -0,0 +1,59 @@
+package com.dlvb.asyncbankapp.repository;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Имплементация {@link IdempotencyKeyBatchRepository} на {@link JdbcTemplate}.
+ * Выполняется в текущей транзакции: JPA-менеджер транзакций открывает JDBC-соединение и для неё.
+ * @author Matushkin Anton
+ */
+@RequiredArgsConstructor
+public class IdempotencyKeyBatchRepositoryImpl implements IdempotencyKeyBatchRepository {
+
+    private static final String INSERT_MISSING_SQL = "insert into idempotency_key (id, result, created_at) "
+            + "values (?, ?, current_timestamp) on conflict do nothing";
+
+    private static final String UPDATE_RESULT_SQL = "update idempotency_key set result = ? where id = ?";
+
+    @NonNull
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertMissing(String[] keys, String result) {
+        jdbcTemplate.batchUpdate(INSERT_MISSING_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setString(1, keys[i]);
+                statement.setString(2, result);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return keys.length;
+            }
+        });
+    }
+
+    @Override
+    public void updateResults(String[] keys, String[] results) {
+        jdbcTemplate.batchUpdate(UPDATE_RESULT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setString(1, results[i]);
+                statement.setString(2, keys[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return keys.length;
+            }
+        });
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.dlvb.asyncbankapp.repository;
+
+import com.dlvb.asyncbankapp.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Репозиторий для манипуляций с {@link IdempotencyKey}.
+ * @author Matushkin Anton
+ */
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String>, IdempotencyKeyBatchRepository {
+
+    /**
+     * Удаляет ключи, созданные раньше указанного момента.
+     *
+     * @param createdBefore граница хранения.
+     * @return число удалённых ключей.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :createdBefore")
+    int deleteCreatedBefore(@Param("createdBefore") LocalDateTime createdBefore);
+
+}
@@ -0,0 +1,13 @@
+package com.dlvb.asyncbankapp.repository;
+
+import com.dlvb.asyncbankapp.model.LedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Репозиторий для манипуляций с {@link LedgerCheckpoint}.
+ * @author Matushkin Anton
+ */
+@Repository
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, Integer> {
+}
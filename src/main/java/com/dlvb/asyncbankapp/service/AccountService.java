@@ -1,6 +1,7 @@
 package com.dlvb.asyncbankapp.service;
 
 import com.dlvb.asyncbankapp.dto.BalanceUpdateRequest;
+import com.dlvb.asyncbankapp.dto.BalanceUpdateResult;
 import com.dlvb.asyncbankapp.dto.CreateAccountDTO;
 import com.dlvb.asyncbankapp.model.Account;
 
@@ -33,28 +34,39 @@ public interface AccountService {
      * Обновляет баланс указанного аккаунта на заданную сумму.
      *
      * @param accountId идентификатор аккаунта.
-     * @param amount сумма, на которую необходимо обновить баланс.
+     * @param amount сумма в минорных единицах, на которую необходимо обновить баланс.
      * @return обновленный аккаунт.
      */
-    Account updateBalance(String accountId, double amount);
+    Account updateBalance(String accountId, long amount);
 
     /**
      * Асинхронно обновляет баланс указанного аккаунта на заданную сумму.
      *
      * @param accountId идентификатор аккаунта.
-     * @param amount сумма, на которую необходимо обновить баланс.
+     * @param amount сумма в минорных единицах, на которую необходимо обновить баланс.
      * @return {@link CompletableFuture}, который будет содержать обновленный аккаунт.
      */
 
-    CompletableFuture<Account> updateBalanceAsync(String accountId, double amount);
+    CompletableFuture<Account> updateBalanceAsync(String accountId, long amount);
 
     /**
      * Обновляет балансы для нескольких аккаунтов.
+     * Изменения одного аккаунта сворачиваются в одну сумму, поэтому число записей в БД
+     * равно числу различных аккаунтов, а не числу запросов.
      *
      * @param requests список DTO для обновления баланса.
      */
     void updateMultipleBalances(List<BalanceUpdateRequest> requests);
 
+    /**
+     * Обновляет балансы для нескольких аккаунтов так же, как {@link #updateMultipleBalances(List)},
+     * и возвращает результат для каждого запроса.
+     *
+     * @param requests список DTO для обновления баланса.
+     * @return результаты в порядке запросов.
+     */
+    List<BalanceUpdateResult> updateMultipleBalancesWithResults(List<BalanceUpdateRequest> requests);
+
     /**
      * Асинхронно обновляет балансы для нескольких аккаунтов.
      *
@@ -63,4 +75,14 @@ public interface AccountService {
      */
     CompletableFuture<Void> updateMultipleBalancesAsync(List<BalanceUpdateRequest> requests);
 
+    /**
+     * Асинхронно обновляет балансы для нескольких аккаунтов и сообщает о прогрессе.
+     * Запросы к несуществующим аккаунтам передаются слушателю как неуспешные.
+     *
+     * @param requests список DTO для обновления баланса.
+     * @param listener получатель прогресса.
+     * @return {@link CompletableFuture}, который завершится после обработки всех запросов.
+     */
+    CompletableFuture<Void> updateMultipleBalancesAsync(List<BalanceUpdateRequest> requests, BatchProgressListener listener);
+
 }
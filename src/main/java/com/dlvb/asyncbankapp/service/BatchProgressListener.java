@@ -0,0 +1,37 @@
+package com.dlvb.asyncbankapp.service;
+
+/**
+ * Получатель прогресса пакетной обработки.
+ * @author Matushkin Anton
+ */
+public interface BatchProgressListener {
+
+    /**
+     * Слушатель, игнорирующий прогресс.
+     */
+    BatchProgressListener NOOP = new BatchProgressListener() {
+        @Override
+        public void onItemsCompleted(int count) {
+        }
+
+        @Override
+        public void onItemFailed(int index, String reason) {
+        }
+    };
+
+    /**
+     * Вызывается после фиксации очередной части пачки.
+     *
+     * @param count число обработанных элементов, включая неуспешные.
+     */
+    void onItemsCompleted(int count);
+
+    /**
+     * Вызывается для элемента, который не удалось применить.
+     *
+     * @param index позиция элемента в исходной пачке.
+     * @param reason причина ошибки.
+     */
+    void onItemFailed(int index, String reason);
+
+}
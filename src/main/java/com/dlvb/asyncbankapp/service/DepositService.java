@@ -1,8 +1,12 @@
 package com.dlvb.asyncbankapp.service;
 
 import com.dlvb.asyncbankapp.dto.CreateOrUpdateDepositDTO;
+import com.dlvb.asyncbankapp.dto.VolatilityEstimate;
 import com.dlvb.asyncbankapp.model.Deposit;
+import com.dlvb.asyncbankapp.projection.PortfolioProjection;
+import com.dlvb.asyncbankapp.projection.ProjectionScenarios;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -35,9 +39,9 @@ public interface DepositService {
      *
      * @param date дата, на которую необходимо рассчитать баланс.
      * @param deposit депозит, для которого выполняется расчет.
-     * @return баланс депозита на указанную дату.
+     * @return баланс депозита на указанную дату в минорных единицах.
      */
-    double calculateDepositBalanceFixedRateByDate(LocalDate date, Deposit deposit);
+    long calculateDepositBalanceFixedRateByDate(LocalDate date, Deposit deposit);
 
     /**
      * Рассчитывает баланс депозита на указанную дату с учетом указанной ставки.
@@ -45,30 +49,30 @@ public interface DepositService {
      * @param date дата, на которую необходимо рассчитать баланс.
      * @param rate ставка депозита.
      * @param deposit депозит, для которого выполняется расчет.
-     * @return баланс депозита на указанную дату с учетом ставки.
+     * @return баланс депозита на указанную дату с учетом ставки в минорных единицах.
      */
-    double calculateDepositBalanceByDateAndRate(LocalDate date, double rate, Deposit deposit);
+    long calculateDepositBalanceByDateAndRate(LocalDate date, double rate, Deposit deposit);
 
     /**
      * Рассчитывает баланс депозита на указанную дату с учетом операции (пополнение или снятие).
      *
      * @param date дата, на которую необходимо рассчитать баланс.
-     * @param operation сумма операции (пополнение или снятие).
+     * @param operation сумма операции (пополнение или снятие) в минорных единицах.
      * @param deposit депозит, для которого выполняется расчет.
-     * @return обновленный баланс депозита с учетом операции.
+     * @return обновленный баланс депозита с учетом операции в минорных единицах.
      */
-    double calculateUpdatableDepositBalanceByDate(LocalDate date, double operation, Deposit deposit);
+    long calculateUpdatableDepositBalanceByDate(LocalDate date, long operation, Deposit deposit);
 
     /**
      * Рассчитывает баланс депозита на указанную дату с учетом фиксированных пополнений и снятий.
      *
      * @param date дата, на которую необходимо рассчитать баланс.
-     * @param fixedTopUps сумма фиксированных пополнений.
-     * @param fixedWithdraw сумма фиксированных снятий.
+     * @param fixedTopUps сумма фиксированных пополнений в минорных единицах.
+     * @param fixedWithdraw сумма фиксированных снятий в минорных единицах.
      * @param deposit депозит, для которого выполняется расчет.
-     * @return обновленный баланс депозита с учетом пополнений и снятий.
+     * @return обновленный баланс депозита с учетом пополнений и снятий в минорных единицах.
      */
-    double calculateUpdatableDepositBalanceByDate(LocalDate date, double fixedTopUps, double fixedWithdraw, Deposit deposit);
+    long calculateUpdatableDepositBalanceByDate(LocalDate date, long fixedTopUps, long fixedWithdraw, Deposit deposit);
 
     /**
      * Получает статистику для депозита на указанную дату.
@@ -76,7 +80,7 @@ public interface DepositService {
      * @param date дата, на которую необходимо получить расчеты.
      * @param rate ставка депозита.
      * @param depositId идентификатор депозита.
-     * @return карта с расчетами для депозита.
+     * @return неизменяемая карта с расчетами для депозита; суммы указаны в основных единицах.
      */
     Map<String, String> getCalculationsByDateAndRate(LocalDate date, double rate, String depositId);
 
@@ -86,7 +90,7 @@ public interface DepositService {
      * @param date дата, на которую необходимо получить расчеты.
      * @param rate ставка депозита.
      * @param depositIds список идентификаторов депозитов.
-     * @return карта с расчетами для нескольких депозитов.
+     * @return карта с расчетами для нескольких депозитов; для неизвестного депозита — карта с ключом {@code error}.
      */
     Map<String, Map<String, String>> getCalculationsByDateAndRateForMultipleAccounts(LocalDate date, double rate, List<String> depositIds);
 
@@ -96,16 +100,27 @@ public interface DepositService {
      * @param date дата, на которую необходимо получить расчеты.
      * @param rate ставка депозита.
      * @param depositIds список идентификаторов депозитов.
-     * @return карта с асинхронными расчетами для нескольких депозитов.
+     * @return карта с асинхронными расчетами для нескольких депозитов; для неизвестного депозита — карта с ключом {@code error}.
      */
     Map<String, Map<String, String>> getCalculationsByDateAndRateForMultipleAccountsAsync(LocalDate date, double rate, List<String> depositIds);
 
+    /**
+     * Рассчитывает все сценарии статистики для портфеля депозитов, заданного массивами балансов и ставок.
+     * @param date дата, на которую необходимо получить расчеты.
+     * @param rate ставка, по которой рассчитывается сценарий {@link ProjectionScenarios#BY_RATE}.
+     * @param balances балансы депозитов в минорных единицах.
+     * @param rates ставки депозитов в процентах годовых, в том же порядке, что и балансы.
+     * @return балансы по сценариям в минорных единицах.
+     */
+    PortfolioProjection projectPortfolio(LocalDate date, double rate, long[] balances, double[] rates);
+
     /**
      * Рассчитывает волатильность на основе различных факторов.
      * @param currentTime текущее время в миллисекундах.
+     * @param seed зерно генератора случайного фактора; {@code null} — случайное.
      * @return вычисленная волатильность.
      */
-    double calculateVolatility(long currentTime, int iterations) throws ExecutionException;
+    double calculateVolatility(long currentTime, int iterations, Long seed) throws ExecutionException;
 
     /**
      * Рассчитывает волатильность (используя Runnable) на основе различных факторов.
@@ -116,9 +131,22 @@ public interface DepositService {
 
     /**
      * Рассчитывает волатильность, используя Future, на основе различных факторов.
+     * Итерации распределяются по пулу fork/join; при одинаковом зерне результат совпадает с {@link #calculateVolatility}.
      * @param currentTime текущее время в миллисекундах.
+     * @param seed зерно генератора случайного фактора; {@code null} — случайное.
      * @return вычисленная волатильность.
      */
-    double calculateVolatilityFuture(long currentTime, int iterations) throws ExecutionException;
+    double calculateVolatilityFuture(long currentTime, int iterations, Long seed) throws ExecutionException;
+
+    /**
+     * Оценивает волатильность с заданной точностью вместо фиксированного числа итераций.
+     * @param currentTime текущее время в миллисекундах.
+     * @param targetStandardError целевая стандартная ошибка среднего.
+     * @param timeBudget время, после которого расчёт останавливается с достигнутой точностью.
+     * @param seed зерно генератора случайного фактора; {@code null} — случайное.
+     * @return среднее, доверительный интервал и число выполненных итераций.
+     */
+    VolatilityEstimate estimateVolatility(long currentTime, double targetStandardError, Duration timeBudget, Long seed)
+            throws ExecutionException;
 
 }
@@ -0,0 +1,48 @@
+package com.dlvb.asyncbankapp.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Сервис для учёта ключей идемпотентности операций.
+ * @author Matushkin Anton
+ */
+public interface IdempotencyService {
+
+    /**
+     * Находит уже обработанные ключи и сохранённые для них результаты.
+     *
+     * @param keys ключи идемпотентности.
+     * @return карта "ключ - результат" только для обработанных ключей.
+     */
+    Map<String, String> findProcessed(Collection<String> keys);
+
+    /**
+     * Атомарно занимает ключи в текущей транзакции.
+     * Ключ, занятый параллельной незафиксированной транзакцией, ожидает её завершения:
+     * после фиксации возвращается её результат, после отката ключ занимает текущая транзакция.
+     * Результаты занятых ключей сохраняются через {@link #complete(Map)} в той же транзакции.
+     *
+     * @param keys ключи идемпотентности, не найденные через {@link #findProcessed(Collection)}.
+     * @return карта "ключ - результат" для ключей, уже обработанных другими транзакциями;
+     *         остальные ключи заняты текущей транзакцией.
+     */
+    Map<String, String> claim(Collection<String> keys);
+
+    /**
+     * Сохраняет результаты ключей, занятых через {@link #claim(Collection)} в текущей транзакции.
+     * В кэш ключи попадают только после её фиксации.
+     *
+     * @param results карта "ключ - результат".
+     */
+    void complete(Map<String, String> results);
+
+    /**
+     * Сохраняет результаты обработки в текущей транзакции.
+     * В кэш ключи попадают только после её фиксации.
+     *
+     * @param results карта "ключ - результат".
+     */
+    void remember(Map<String, String> results);
+
+}
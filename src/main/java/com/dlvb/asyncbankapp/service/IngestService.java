@@ -0,0 +1,35 @@
+package com.dlvb.asyncbankapp.service;
+
+import com.dlvb.asyncbankapp.dto.IngestReport;
+
+import java.io.InputStream;
+
+/**
+ * Сервис потоковой загрузки больших пачек в формате NDJSON (одна JSON-запись на строку).
+ * <p>
+ * Записи читаются по одной и применяются частями фиксированного размера, каждая часть в своей транзакции БД,
+ * поэтому в памяти одновременно находится не больше одной части независимо от размера загрузки.
+ * При ошибке посередине потока уже зафиксированные части остаются применёнными.
+ * @author Matushkin Anton
+ */
+public interface IngestService {
+
+    /**
+     * Загружает и последовательно обрабатывает транзакции.
+     *
+     * @param body поток записей {@link com.dlvb.asyncbankapp.dto.TransactionDTO}.
+     * @param batchIdempotencyKey ключ идемпотентности пачки или {@code null}; ключи записей выводятся из него
+     *                            и сквозной позиции записи, поэтому повтор загрузки не применит зафиксированные части повторно.
+     * @return итоги загрузки.
+     */
+    IngestReport ingestTransactions(InputStream body, String batchIdempotencyKey);
+
+    /**
+     * Загружает и последовательно применяет обновления балансов.
+     *
+     * @param body поток записей {@link com.dlvb.asyncbankapp.dto.BalanceUpdateRequest}.
+     * @return итоги загрузки.
+     */
+    IngestReport ingestBalanceUpdates(InputStream body);
+
+}
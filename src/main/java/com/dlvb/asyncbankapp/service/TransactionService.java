@@ -1,6 +1,7 @@
 package com.dlvb.asyncbankapp.service;
 
 import com.dlvb.asyncbankapp.dto.TransactionDTO;
+import com.dlvb.asyncbankapp.dto.TransactionResult;
 import com.dlvb.asyncbankapp.model.Transaction;
 
 import java.util.List;
@@ -17,34 +18,52 @@ public interface TransactionService {
      *
      * @param fromAccountId идентификатор аккаунта отправителя.
      * @param toAccountId идентификатор аккаунта получателя.
-     * @param amount сумма транзакции.
+     * @param amount сумма транзакции в минорных единицах.
      * @return CompletableFuture, который возвращает транзакцию после её обработки.
      */
-    CompletableFuture<Transaction> processTransaction(String fromAccountId, String toAccountId, double amount);
+    CompletableFuture<Transaction> processTransaction(String fromAccountId, String toAccountId, long amount);
 
     /**
      * Обрабатывает несколько транзакций синхронно.
      *
      * @param transactions список транзакций для обработки.
+     * @return результаты в порядке транзакций; повтор транзакции с уже обработанным ключом идемпотентности
+     *         возвращает сохранённый id транзакции с отметкой {@code replayed} и не меняет балансы.
      */
-    void processMultipleTransactions(List<TransactionDTO> transactions);
+    List<TransactionResult> processMultipleTransactions(List<TransactionDTO> transactions);
 
     /**
      * Обрабатывает несколько транзакций асинхронно.
+     * <p>
+     * Пачка разбивается на группы, не имеющие общих аккаунтов; группы выполняются параллельно,
+     * каждая в своей транзакции БД, с сохранением порядка транзакций внутри группы.
      *
      * @param transactions список транзакций для обработки.
      * @return CompletableFuture, который сигнализирует о завершении обработки транзакций.
      */
     CompletableFuture<Void> processMultipleTransactionsAsync(List<TransactionDTO> transactions);
 
+    /**
+     * Обрабатывает несколько транзакций асинхронно и сообщает о прогрессе.
+     * Прогресс и ошибки элементов передаются слушателю после фиксации каждой группы;
+     * если группа откатывается, все её транзакции отмечаются как неуспешные, а независимые группы применяются.
+     * Если исполнитель отклоняет часть групп, уже запущенные группы выполняются, а отклонённые отмечаются как неуспешные;
+     * возвращаемый future тогда завершается с ошибкой.
+     *
+     * @param transactions список транзакций для обработки.
+     * @param listener получатель прогресса.
+     * @return CompletableFuture, который сигнализирует о завершении обработки транзакций.
+     */
+    CompletableFuture<Void> processMultipleTransactionsAsync(List<TransactionDTO> transactions, BatchProgressListener listener);
+
 
     /**
      * Обрабатывает перевод в безопасном режиме. С локами.
      *
      * @param fromAccountId идентификатор аккаунта отправителя.
      * @param toAccountId идентификатор аккаунта получателя.
-     * @param amount сумма транзакции.
+     * @param amount сумма транзакции в минорных единицах.
      */
-    void safeLockTransfer(String fromAccountId, String toAccountId, double amount);
+    void safeLockTransfer(String fromAccountId, String toAccountId, long amount);
 
 }
@@ -1,18 +1,21 @@
 package com.dlvb.asyncbankapp.service.impl;
 
 import com.dlvb.asyncbankapp.dto.BalanceUpdateRequest;
+import com.dlvb.asyncbankapp.dto.BalanceUpdateResult;
 import com.dlvb.asyncbankapp.dto.CreateAccountDTO;
 import com.dlvb.asyncbankapp.model.Account;
 import com.dlvb.asyncbankapp.repository.AccountRepository;
 import com.dlvb.asyncbankapp.service.AccountService;
+import com.dlvb.asyncbankapp.service.BatchProgressListener;
+import io.micrometer.core.annotation.Timed;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -21,8 +24,11 @@ import java.util.concurrent.CompletableFuture;
  */
 @Service
 @RequiredArgsConstructor
+@Timed(value = "bank.service", histogram = true)
 public class AccountServiceImpl implements AccountService {
 
+    private static final String ACCOUNT_NOT_FOUND = "Account not found";
+
     @NonNull
     private final AccountRepository accountRepository;
 
@@ -38,45 +44,81 @@ public class AccountServiceImpl implements AccountService {
 
     @Override
     @Transactional
-    public Account updateBalance(String accountId, double amount) {
-        Optional<Account> optionalAccount = accountRepository.findById(accountId);
-        if (optionalAccount.isPresent()) {
-            Account account = optionalAccount.get();
-            account.setBalance(account.getBalance() + amount);
-            return accountRepository.save(optionalAccount.get());
+    public Account updateBalance(String accountId, long amount) {
+        if (accountRepository.credit(accountId, amount) == 0) {
+            return null;
         }
-        return null;
+        return accountRepository.findById(accountId).orElse(null);
     }
 
     @Async
     @Override
     @Transactional
-    public CompletableFuture<Account> updateBalanceAsync(String accountId, double amount) {
-        Optional<Account> optionalAccount = accountRepository.findById(accountId);
-        if (optionalAccount.isPresent()) {
-            Account account = optionalAccount.get();
-            account.setBalance(account.getBalance() + amount);
-            return CompletableFuture.completedFuture(accountRepository.save(optionalAccount.get()));
+    public CompletableFuture<Account> updateBalanceAsync(String accountId, long amount) {
+        if (accountRepository.credit(accountId, amount) == 0) {
+            return CompletableFuture.completedFuture(null);
         }
-        return null;
+        return CompletableFuture.completedFuture(accountRepository.findById(accountId).orElse(null));
     }
 
     @Override
     @Transactional
     public void updateMultipleBalances(List<BalanceUpdateRequest> requests) {
-        for (BalanceUpdateRequest request : requests) {
-            updateBalance(request.getAccountId(), request.getAmount());
+        applyBalanceDeltas(requests);
+    }
+
+    @Override
+    @Transactional
+    public List<BalanceUpdateResult> updateMultipleBalancesWithResults(List<BalanceUpdateRequest> requests) {
+        boolean[] applied = applyBalanceDeltas(requests);
+        List<BalanceUpdateResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            BalanceUpdateRequest request = requests.get(i);
+            results.add(BalanceUpdateResult.builder()
+                    .accountId(request.getAccountId())
+                    .amount(request.getAmount())
+                    .applied(applied[i])
+                    .error(applied[i] ? null : ACCOUNT_NOT_FOUND)
+                    .build());
         }
+        return results;
     }
 
     @Async
     @Override
     @Transactional
     public CompletableFuture<Void> updateMultipleBalancesAsync(List<BalanceUpdateRequest> requests) {
-        for (BalanceUpdateRequest request : requests) {
-            updateBalanceAsync(request.getAccountId(), request.getAmount());
+        return updateMultipleBalancesAsync(requests, BatchProgressListener.NOOP);
+    }
+
+    @Async
+    @Override
+    @Transactional
+    public CompletableFuture<Void> updateMultipleBalancesAsync(List<BalanceUpdateRequest> requests, BatchProgressListener listener) {
+        boolean[] applied = applyBalanceDeltas(requests);
+        for (int i = 0; i < requests.size(); i++) {
+            if (!applied[i]) {
+                listener.onItemFailed(i, ACCOUNT_NOT_FOUND + ": " + requests.get(i).getAccountId());
+            }
         }
+        listener.onItemsCompleted(requests.size());
         return CompletableFuture.completedFuture(null);
     }
 
+    /**
+     * Сворачивает изменения по аккаунтам и применяет их одним JDBC-пакетом.
+     *
+     * @return для каждого запроса признак того, что его аккаунт найден и обновлён.
+     */
+    private boolean[] applyBalanceDeltas(List<BalanceUpdateRequest> requests) {
+        BalanceDeltas balanceDeltas = BalanceDeltas.coalesce(requests);
+        int[] updatedRows = accountRepository.applyBalanceDeltas(balanceDeltas.accountIds(), balanceDeltas.deltas());
+
+        boolean[] applied = new boolean[requests.size()];
+        for (int i = 0; i < applied.length; i++) {
+            applied[i] = updatedRows[balanceDeltas.slotOf(i)] != 0;
+        }
+        return applied;
+    }
+
 }
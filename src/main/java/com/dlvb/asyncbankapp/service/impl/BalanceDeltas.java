@@ -0,0 +1,142 @@
+package com.dlvb.asyncbankapp.service.impl;
+
+import com.dlvb.asyncbankapp.dto.BalanceUpdateRequest;
+import com.dlvb.asyncbankapp.money.Money;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Свёртка пачки изменений балансов в одну итоговую сумму на аккаунт.
+ * <p>
+ * Суммы накапливаются в массиве {@code long}; индекс аккаунта в нём ищется в хеш-таблице с открытой адресацией
+ * поверх массива {@code int}, без упаковки индексов в {@link Integer}.
+ * Аккаунты упорядочены по идентификатору, чтобы параллельные пачки обновляли строки в одном порядке.
+ * @author Matushkin Anton
+ */
+final class BalanceDeltas {
+
+    private static final String ACCOUNT_ID_REQUIRED = "Account id is required";
+
+    private final String[] accountIds;
+    private final long[] deltas;
+    private final int[] requestSlots;
+
+    private BalanceDeltas(String[] accountIds, long[] deltas, int[] requestSlots) {
+        this.accountIds = accountIds;
+        this.deltas = deltas;
+        this.requestSlots = requestSlots;
+    }
+
+    /**
+     * Сворачивает изменения балансов по аккаунтам.
+     *
+     * @param requests изменения балансов.
+     * @return итоговые изменения по аккаунтам.
+     * @throws IllegalArgumentException если у изменения не указан идентификатор аккаунта.
+     * @throws ArithmeticException если итоговая сумма не помещается в {@code long}.
+     */
+    static BalanceDeltas coalesce(List<BalanceUpdateRequest> requests) {
+        int size = requests.size();
+        SlotTable slots = new SlotTable(size);
+        String[] ids = new String[size];
+        long[] sums = new long[size];
+        int[] requestSlots = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            BalanceUpdateRequest request = requests.get(i);
+            String accountId = request.getAccountId();
+            if (accountId == null || accountId.isBlank()) {
+                throw new IllegalArgumentException(ACCOUNT_ID_REQUIRED);
+            }
+            int slot = slots.slotOf(accountId, ids);
+            sums[slot] = Money.add(sums[slot], request.getAmount());
+            requestSlots[i] = slot;
+        }
+
+        int distinct = slots.size();
+        String[] sortedIds = Arrays.copyOf(ids, distinct);
+        Arrays.sort(sortedIds);
+        long[] sortedSums = new long[distinct];
+        int[] sortedSlotOf = new int[distinct];
+        for (int i = 0; i < distinct; i++) {
+            int slot = slots.slotOf(sortedIds[i], ids);
+            sortedSums[i] = sums[slot];
+            sortedSlotOf[slot] = i;
+        }
+        for (int i = 0; i < size; i++) {
+            requestSlots[i] = sortedSlotOf[requestSlots[i]];
+        }
+        return new BalanceDeltas(sortedIds, sortedSums, requestSlots);
+    }
+
+    /**
+     * @return идентификаторы аккаунтов по возрастанию.
+     */
+    String[] accountIds() {
+        return accountIds;
+    }
+
+    /**
+     * @return итоговые изменения в минорных единицах в порядке {@link #accountIds()}.
+     */
+    long[] deltas() {
+        return deltas;
+    }
+
+    /**
+     * Возвращает позицию аккаунта запроса в {@link #accountIds()}.
+     *
+     * @param requestIndex позиция запроса в исходной пачке.
+     * @return позиция аккаунта.
+     */
+    int slotOf(int requestIndex) {
+        return requestSlots[requestIndex];
+    }
+
+    /**
+     * Хеш-таблица "идентификатор - индекс" с линейным пробированием. Хранит {@code индекс + 1},
+     * {@code 0} означает пустую ячейку; сами идентификаторы лежат во внешнем массиве по индексу.
+     * Размер выбирается не меньше удвоенного числа запросов, поэтому таблица не расширяется.
+     */
+    private static final class SlotTable {
+
+        private final int[] table;
+        private final int mask;
+        private int size;
+
+        SlotTable(int capacity) {
+            int length = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+            this.table = new int[length];
+            this.mask = length - 1;
+        }
+
+        /**
+         * Возвращает индекс идентификатора, добавляя его в {@code ids} под новым индексом, если он ещё не встречался.
+         */
+        int slotOf(String accountId, String[] ids) {
+            int i = spread(accountId.hashCode()) & mask;
+            while (table[i] != 0) {
+                int slot = table[i] - 1;
+                if (ids[slot].equals(accountId)) {
+                    return slot;
+                }
+                i = (i + 1) & mask;
+            }
+            int slot = size++;
+            ids[slot] = accountId;
+            table[i] = slot + 1;
+            return slot;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+    }
+
+}
@@ -1,40 +1,84 @@
 package com.dlvb.asyncbankapp.service.impl;
 
+import com.dlvb.asyncbankapp.diagnostics.jfr.DepositComputationEvent;
 import com.dlvb.asyncbankapp.dto.CreateOrUpdateDepositDTO;
+import com.dlvb.asyncbankapp.dto.VolatilityEstimate;
 import com.dlvb.asyncbankapp.model.Deposit;
+import com.dlvb.asyncbankapp.model.DepositTerms;
+import com.dlvb.asyncbankapp.money.Money;
+import com.dlvb.asyncbankapp.projection.GrowthFactorTable;
+import com.dlvb.asyncbankapp.projection.GrowthFactors;
+import com.dlvb.asyncbankapp.projection.PortfolioProjection;
+import com.dlvb.asyncbankapp.projection.PortfolioProjector;
+import com.dlvb.asyncbankapp.projection.ProjectionScenarios;
 import com.dlvb.asyncbankapp.repository.DepositRepository;
 import com.dlvb.asyncbankapp.service.AccountService;
 import com.dlvb.asyncbankapp.service.DepositService;
+import com.dlvb.asyncbankapp.volatility.VolatilityEngine;
+import com.dlvb.asyncbankapp.volatility.VolatilityModel;
+import io.micrometer.core.annotation.Timed;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 /**
  * Имплементация сервиса {@link DepositService}.
+ * <p>
+ * Параллельные расчёты выполняются в общем пуле {@code computeExecutor}; один запрос занимает
+ * не больше {@code bank.compute.max-parallelism-per-request} потоков (по умолчанию — весь пул).
+ * Для статистики по нескольким депозитам баланс и ставка загружаются частями по {@code bank.batch.lookup-chunk-size}
+ * идентификаторов одним запросом {@code IN (...)} на часть, без загрузки аккаунтов.
+ * Множители роста вычисляются один раз на пару (ставка, число лет) и берутся из {@link GrowthFactorTable};
+ * сценарии статистики считаются пакетно в {@link PortfolioProjector} по массивам балансов и ставок.
+ * Статистика по одному депозиту кэшируется в {@link DepositStatisticsCache} с учётом версии депозита.
+ * Волатильность методом Монте-Карло рассчитывается {@link VolatilityEngine}.
+ * Этапы расчёта статистики записываются событиями JFR {@link DepositComputationEvent}.
  * @author Matushkin Anton
  */
 @Service
 @RequiredArgsConstructor
+@Timed(value = "bank.service", histogram = true)
 public class DepositServiceImpl implements DepositService {
 
     private static final double[] OPERATION_PERCENTAGE = {0.05, 0.1, 0.15, 0.2};
     private static final double[] TOP_UP_PERCENTAGES = {0.05, 0.1, 0.15, 0.2};
     private static final double[] WITHDRAW_PERCENTAGES = {0.025, 0.05, 0.1, 0.15};
-    private static final int FACTOR_COUNT = 7;
-    private static final int NUMBER_OF_THREADS = 2;
+    private static final String DEPOSIT_NOT_FOUND = "Deposit not found for ID: ";
+    private static final String ERROR_KEY = "error";
+    private static final ProjectionScenarios SCENARIOS = new ProjectionScenarios(OPERATION_PERCENTAGE, TOP_UP_PERCENTAGES,
+            WITHDRAW_PERCENTAGES);
+    private static final String[] TOP_UP_KEYS = new String[OPERATION_PERCENTAGE.length];
+    private static final String[] TOP_UP_AND_WITHDRAW_KEYS = new String[TOP_UP_PERCENTAGES.length];
+
+    static {
+        for (int i = 0; i < OPERATION_PERCENTAGE.length; i++) {
+            TOP_UP_KEYS[i] = String.format("balance_with_%d_percents_top_ups", (int) (OPERATION_PERCENTAGE[i] * 100));
+        }
+        for (int i = 0; i < TOP_UP_PERCENTAGES.length; i++) {
+            TOP_UP_AND_WITHDRAW_KEYS[i] = String.format("balance_with_%d_percents_top_ups_and_%d_percents_withdraw",
+                    (int) (TOP_UP_PERCENTAGES[i] * 100),
+                    (int) Math.abs(WITHDRAW_PERCENTAGES[i % WITHDRAW_PERCENTAGES.length] * 100));
+        }
+    }
 
 
     @NonNull
@@ -43,150 +87,138 @@ public class DepositServiceImpl implements DepositService {
     @NonNull
     private final AccountService accountService;
 
+    @NonNull
+    private final GrowthFactorTable growthFactorTable;
+
+    @NonNull
+    private final DepositStatisticsCache statisticsCache;
+
+    @NonNull
+    private final PortfolioProjector portfolioProjector;
+
+    @NonNull
+    private final VolatilityEngine volatilityEngine;
+
+    @NonNull
+    @Qualifier("computeExecutor")
+    private final ThreadPoolTaskExecutor computeExecutor;
+
+    @Value("${bank.compute.max-parallelism-per-request:0}")
+    private int maxParallelismPerRequest;
+
+    @Value("${bank.batch.lookup-chunk-size:1000}")
+    private int lookupChunkSize;
+
     @Override
     public Deposit getDepositById(String id) {
         return depositRepository.findById(id).orElseThrow(() ->
-                new IllegalArgumentException("Deposit not found for ID: " + id)
+                new IllegalArgumentException(DEPOSIT_NOT_FOUND + id)
         );
     }
 
     @Override
     public Deposit createDeposit(CreateOrUpdateDepositDTO depositDTO) {
-        return depositRepository.save(CreateOrUpdateDepositDTO.fromDTO(depositDTO, accountService));
+        Deposit deposit = depositRepository.save(CreateOrUpdateDepositDTO.fromDTO(depositDTO, accountService));
+        statisticsCache.onDepositWritten(deposit.getId(), versionOf(deposit));
+        return deposit;
     }
 
     @Override
-    public double calculateDepositBalanceFixedRateByDate(LocalDate date, Deposit deposit) {
-        LocalDate dateNow = LocalDate.now();
-        int years = date.getYear() - dateNow.getYear();
-        return calculateSimpleCompoundInterest(deposit.getBalance(), deposit.getRate(), years);
+    public long calculateDepositBalanceFixedRateByDate(LocalDate date, Deposit deposit) {
+        return factors(deposit.getRate(), yearsUntil(date)).balance(deposit.getBalance());
     }
 
     @Override
-    public double calculateDepositBalanceByDateAndRate(LocalDate date, double rate, Deposit deposit) {
-        LocalDate dateNow = LocalDate.now();
-        int years = date.getYear() - dateNow.getYear();
-        return calculateSimpleCompoundInterest(deposit.getBalance(), rate, years);
+    public long calculateDepositBalanceByDateAndRate(LocalDate date, double rate, Deposit deposit) {
+        return factors(rate, yearsUntil(date)).balance(deposit.getBalance());
     }
 
     @Override
-    public double calculateUpdatableDepositBalanceByDate(LocalDate date, double operation, Deposit deposit) {
-        LocalDate dateNow = LocalDate.now();
-        int years = date.getYear() - dateNow.getYear();
-        return operation * calculateOperationRatio(deposit.getRate(), years)
-                + calculateSimpleCompoundInterest(deposit.getBalance(), deposit.getRate(), years);
+    public long calculateUpdatableDepositBalanceByDate(LocalDate date, long operation, Deposit deposit) {
+        return factors(deposit.getRate(), yearsUntil(date)).balanceWithOperation(deposit.getBalance(), operation);
     }
 
     @Override
-    public double calculateUpdatableDepositBalanceByDate(LocalDate date, double fixedTopUps,
-                                                         double fixedWithdraw, Deposit deposit) {
-        if (fixedWithdraw > fixedTopUps) {
-            throw new IllegalArgumentException("Withdraw cannot be less than topUps.");
-        }
-        LocalDate dateNow = LocalDate.now();
-        int years = date.getYear() - dateNow.getYear();
-        double balance = deposit.getBalance();
-        double rate = deposit.getRate();
-        return calculateSimpleCompoundInterest(balance, rate, years) + (calculateOperationRatio(rate, years)
-                * (fixedTopUps - fixedWithdraw));
+    public long calculateUpdatableDepositBalanceByDate(LocalDate date, long fixedTopUps,
+                                                       long fixedWithdraw, Deposit deposit) {
+        return factors(deposit.getRate(), yearsUntil(date))
+                .balanceWithTopUpsAndWithdraw(deposit.getBalance(), fixedTopUps, fixedWithdraw);
+    }
+
+    @Override
+    public PortfolioProjection projectPortfolio(LocalDate date, double rate, long[] balances, double[] rates) {
+        return portfolioProjector.project(balances, rates, rate, yearsUntil(date), SCENARIOS);
     }
 
     @Override
     public Map<String, String> getCalculationsByDateAndRate(LocalDate date, double rate, String depositId) {
+        int currentYear = LocalDate.now().getYear();
+        Map<String, String> cached = statisticsCache.find(depositId, rate, date.getYear(), currentYear);
+        if (cached != null) {
+            return cached;
+        }
 
         Deposit deposit = getDepositById(depositId);
-        double depositBalance = deposit.getBalance();
-
-        Double balanceActualRate = calculateDepositBalanceFixedRateByDate(date, deposit);
-        Double balanceByRate = calculateDepositBalanceByDateAndRate(date, rate, deposit);
-
-        Map<String, Double> topUpBalances = calculateTopUpBalancesForStatistics(date, depositBalance, deposit);
-        Map<String, Double> topUpAndWithdrawBalances = calculateTopUpAndWithdrawBalancesForStatistics(date, depositBalance, deposit);
-
-        return formatCalculationsForStatistics(balanceByRate, balanceActualRate, topUpBalances, topUpAndWithdrawBalances);
+        int years = date.getYear() - currentYear;
+        Map<String, String> calculations = Collections.unmodifiableMap(
+                calculateStatistics(rate, years, DepositTerms.of(deposit)));
+        statisticsCache.put(depositId, versionOf(deposit), rate, date.getYear(), currentYear, calculations);
+        return calculations;
     }
 
     @Override
     public Map<String, Map<String, String>> getCalculationsByDateAndRateForMultipleAccounts(LocalDate date, double rate, List<String> depositIds) {
-        Map<String, Map<String, String>> calculationsForId = new HashMap<>();
-        for (String depositId: depositIds) {
-            calculationsForId.put(depositId, getCalculationsByDateAndRate(date, rate, depositId));
-        }
-        return calculationsForId;
+        return calculateStatistics(rate, yearsUntil(date), depositIds, loadTerms(depositIds));
     }
 
     @Override
     public Map<String, Map<String, String>> getCalculationsByDateAndRateForMultipleAccountsAsync(LocalDate date, double rate, List<String> depositIds) {
-        Map<String, Map<String, String>> calculationsForId = new HashMap<>();
-        ExecutorService executorService = Executors.newFixedThreadPool(depositIds.size());
-
-        List<Callable<Map<String, String>>> tasks = depositIds.stream()
-                .map(depositId -> (Callable<Map<String, String>>) ()
-                        -> getCalculationsByDateAndRate(date, rate, depositId))
-                .toList();
+        Map<String, DepositTerms> terms = loadTerms(depositIds);
+        int years = yearsUntil(date);
+        int chunkCount = requestParallelism(depositIds.size());
+        int chunkSize = (depositIds.size() + chunkCount - 1) / chunkCount;
+
+        List<CompletableFuture<Map<String, Map<String, String>>>> futures = new ArrayList<>(chunkCount);
+        for (int start = 0; start < depositIds.size(); start += chunkSize) {
+            List<String> chunk = depositIds.subList(start, Math.min(depositIds.size(), start + chunkSize));
+            futures.add(CompletableFuture.supplyAsync(() -> calculateStatistics(rate, years, chunk, terms), computeExecutor));
+        }
 
+        Map<String, Map<String, String>> calculationsForId = new HashMap<>();
         try {
-            List<Future<Map<String, String>>> futures = executorService.invokeAll(tasks);
-            for (int i = 0; i < depositIds.size(); i++) {
-                Future<Map<String, String>> future = futures.get(i);
-                calculationsForId.put(depositIds.get(i), future.get());
+            for (CompletableFuture<Map<String, Map<String, String>>> future : futures) {
+                calculationsForId.putAll(future.join());
             }
-        } catch (InterruptedException | ExecutionException e) {
-            Thread.currentThread().interrupt();
-            executorService.shutdownNow();
-            throw new IllegalStateException("Error occurred during calculations", e);
-        } finally {
-            executorService.shutdown();
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            throw new IllegalStateException("Error occurred during calculations", e.getCause());
         }
 
         return calculationsForId;
     }
 
     @Override
-    public double calculateVolatility(long currentTime, int iterations) {
-        double totalVolatility = 0;
-
-        for (int i = 0; i < iterations; i++) {
-            double volatility = getRandomVolatility()
-                    + getTrendVolatility(currentTime)
-                    + getExponentialVolatility(currentTime)
-                    + calculateMovingAverage(15)
-                    + getCrossCurrencyVolatility()
-                    + getSeasonalVolatility()
-                    + predictCurrencyRate();
-
-            totalVolatility += volatility;
-        }
-
-        return iterations == 0 ? 0 : totalVolatility / iterations;
+    public double calculateVolatility(long currentTime, int iterations, Long seed) {
+        return volatilityEngine.averageVolatilitySequential(currentTime, iterations, seed);
     }
 
     @Override
-    public double calculateVolatilityFuture(long currentTime, int iterations) throws ExecutionException {
-        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
-        List<Future<Double>> futures = new ArrayList<>();
-
-        calculateBatchVolatility(currentTime, iterations, futures, executor);
-
-        double totalVolatility = 0;
-        try {
-            for (Future<Double> future : futures) {
-                totalVolatility += future.get();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+    public double calculateVolatilityFuture(long currentTime, int iterations, Long seed) throws ExecutionException {
+        return volatilityEngine.averageVolatility(currentTime, iterations, seed);
+    }
 
-        executor.shutdown();
-        return iterations == 0 ? 0 : totalVolatility / iterations;
+    @Override
+    public VolatilityEstimate estimateVolatility(long currentTime, double targetStandardError, Duration timeBudget, Long seed)
+            throws ExecutionException {
+        return volatilityEngine.estimate(currentTime, targetStandardError, timeBudget, seed);
     }
 
     @Override
     public double calculateVolatilityWithRunnable(long currentTime, int iterations) {
-        double[] results = new double[FACTOR_COUNT];
-        CountDownLatch latch = new CountDownLatch(FACTOR_COUNT);
+        double[] results = new double[VolatilityModel.FACTOR_COUNT];
+        CountDownLatch latch = new CountDownLatch(VolatilityModel.FACTOR_COUNT);
 
-        ExecutorService executorService = getExecutorService(currentTime, results, latch);
+        submitFactorTasks(currentTime, results, latch);
 
         try {
             latch.await();
@@ -204,141 +236,137 @@ public class DepositServiceImpl implements DepositService {
             totalVolatility += volatilityForSingleCalculation;
         }
 
-        executorService.shutdown();
         return iterations == 0 ? 0 : totalVolatility / iterations;
     }
 
-    private void calculateBatchVolatility(long currentTime, int iterations, List<Future<Double>> futures, ExecutorService executor) {
-        int batchSize = iterations / NUMBER_OF_THREADS;
-
-        for (int i = 0; i < NUMBER_OF_THREADS; i++) {
-            final int start = i * batchSize;
-            final int end = (i == NUMBER_OF_THREADS - 1) ? iterations : (i + 1) * batchSize;
-
-            futures.add(executor.submit(() -> {
-                double batchVolatility = 0;
-                for (int j = start; j < end; j++) {
-                    batchVolatility += getRandomVolatility()
-                            + getTrendVolatility(currentTime)
-                            + getExponentialVolatility(currentTime)
-                            + calculateMovingAverage(15)
-                            + getCrossCurrencyVolatility()
-                            + getSeasonalVolatility()
-                            + predictCurrencyRate();
+    private void submitFactorTasks(long currentTime, double[] results, CountDownLatch latch) {
+        SplittableRandom random = new SplittableRandom();
+        int groupCount = requestParallelism(VolatilityModel.FACTOR_COUNT);
+        for (int i = 0; i < groupCount; i++) {
+            final int first = i;
+            final SplittableRandom groupRandom = random.split();
+            computeExecutor.execute(() -> {
+                for (int index = first; index < VolatilityModel.FACTOR_COUNT; index += groupCount) {
+                    try {
+                        results[index] = VolatilityModel.factor(index, currentTime, groupRandom);
+                    } finally {
+                        latch.countDown();
+                    }
                 }
-                return batchVolatility;
-            }));
+            });
         }
     }
 
-    private ExecutorService getExecutorService(long currentTime, double[] results, CountDownLatch latch) {
-        Runnable[] tasks = new Runnable[]{
-                () -> results[0] = getRandomVolatility(),
-                () -> results[1] = getTrendVolatility(currentTime),
-                () -> results[2] = getExponentialVolatility(currentTime),
-                () -> results[3] = calculateMovingAverage(15),
-                () -> results[4] = getCrossCurrencyVolatility(),
-                () -> results[5] = getSeasonalVolatility(),
-                () -> results[6] = predictCurrencyRate()
-        };
-
-        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-
-        for (int i = 0; i < FACTOR_COUNT; i++) {
-            final int index = i;
-            executorService.submit(() -> {
-                tasks[index].run();
-                latch.countDown();
-            });
-        }
-        return executorService;
+    private int requestParallelism(int taskCount) {
+        int limit = maxParallelismPerRequest > 0 ? maxParallelismPerRequest : computeExecutor.getMaxPoolSize();
+        return Math.max(1, Math.min(limit, taskCount));
     }
 
-    private Map<String, Double> calculateTopUpBalancesForStatistics(LocalDate date, double depositBalance, Deposit deposit) {
-        Map<String, Double> balances = new LinkedHashMap<>();
-        for (double percentage : OPERATION_PERCENTAGE) {
-            double topUpAmount = depositBalance * percentage;
-            balances.put(String.format("balance_with_%d_percents_top_ups", (int) (percentage * 100)),
-                    calculateUpdatableDepositBalanceByDate(date, topUpAmount, deposit));
+    private Map<String, DepositTerms> loadTerms(List<String> depositIds) {
+        DepositComputationEvent event = DepositComputationEvent.start(DepositComputationEvent.LOAD_TERMS, depositIds.size());
+        try {
+            return loadTermsInChunks(new LinkedHashSet<>(depositIds));
+        } finally {
+            event.commit();
         }
-        return balances;
     }
 
-    private Map<String, Double> calculateTopUpAndWithdrawBalancesForStatistics(LocalDate date, double depositBalance,
-                                                                               Deposit deposit) {
-        Map<String, Double> balances = new LinkedHashMap<>();
-
-        for (int i = 0; i < TOP_UP_PERCENTAGES.length; i++) {
-            double topUpAmount = depositBalance * TOP_UP_PERCENTAGES[i];
-            double withdrawAmount = -depositBalance * WITHDRAW_PERCENTAGES[i % WITHDRAW_PERCENTAGES.length];
-            balances.put(
-                    String.format("balance_with_%d_percents_top_ups_and_%d_percents_withdraw",
-                            (int) (TOP_UP_PERCENTAGES[i] * 100),
-                            (int) Math.abs(WITHDRAW_PERCENTAGES[i % WITHDRAW_PERCENTAGES.length] * 100)),
-                    calculateUpdatableDepositBalanceByDate(date, topUpAmount, withdrawAmount, deposit)
-            );
+    private Map<String, DepositTerms> loadTermsInChunks(Set<String> uniqueIds) {
+        Map<String, DepositTerms> terms = new HashMap<>(uniqueIds.size() * 2);
+        List<String> chunk = new ArrayList<>(Math.min(lookupChunkSize, uniqueIds.size()));
+        for (String depositId : uniqueIds) {
+            chunk.add(depositId);
+            if (chunk.size() == lookupChunkSize) {
+                putAll(terms, depositRepository.findTermsByIdIn(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            putAll(terms, depositRepository.findTermsByIdIn(chunk));
         }
-        return balances;
+        return terms;
     }
 
-    private Map<String, String> formatCalculationsForStatistics(
-            Double balanceByRate,
-            Double balanceActualRate,
-            Map<String, Double> topUpBalances,
-            Map<String, Double> topUpAndWithdrawBalances) {
-
-        Map<String, String> formattedCalculations = new LinkedHashMap<>();
-
-        formattedCalculations.put("balance_by_rate", String.format("%.3f", balanceByRate));
-        formattedCalculations.put("balance_with_actual_rate", String.format("%.3f", balanceActualRate));
-
-        topUpBalances.forEach((key, value) -> formattedCalculations.put(key, String.format("%.3f", value)));
-        topUpAndWithdrawBalances.forEach((key, value) -> formattedCalculations.put(key, String.format("%.3f", value)));
-
-        return formattedCalculations;
+    private void putAll(Map<String, DepositTerms> terms, List<DepositTerms> loaded) {
+        for (DepositTerms depositTerms : loaded) {
+            terms.put(depositTerms.id(), depositTerms);
+        }
     }
 
-    private double calculateSimpleCompoundInterest(double initialPrincipalBalance,
-                                                   double rateInPercents, double time) {
-        return initialPrincipalBalance * Math.pow((1 + 0.01 * rateInPercents), time);
-    }
+    private Map<String, Map<String, String>> calculateStatistics(double rate, int years, List<String> depositIds,
+                                                                 Map<String, DepositTerms> terms) {
+        Map<String, Map<String, String>> calculationsForId = new HashMap<>();
+        List<DepositTerms> found = new ArrayList<>(depositIds.size());
+        for (String depositId : depositIds) {
+            DepositTerms depositTerms = terms.get(depositId);
+            if (depositTerms == null) {
+                calculationsForId.put(depositId, Map.of(ERROR_KEY, DEPOSIT_NOT_FOUND + depositId));
+            } else {
+                found.add(depositTerms);
+            }
+        }
 
-    private double calculateOperationRatio(double rateInPercents, double time) {
-        return (Math.pow(1 + 0.01 * rateInPercents, time) - 1) / (0.01 * rateInPercents);
-    }
+        long[] balances = new long[found.size()];
+        double[] rates = new double[found.size()];
+        for (int d = 0; d < balances.length; d++) {
+            balances[d] = found.get(d).balance();
+            rates[d] = found.get(d).rate();
+        }
+        PortfolioProjection projection = project(balances, rates, rate, years);
 
-    private double getRandomVolatility() {
-        return Math.random() * 0.1 - 0.05;
+        DepositComputationEvent event = DepositComputationEvent.start(DepositComputationEvent.FORMAT, balances.length);
+        try {
+            for (int d = 0; d < balances.length; d++) {
+                calculationsForId.put(found.get(d).id(), toCalculations(projection, d));
+            }
+        } finally {
+            event.commit();
+        }
+        return calculationsForId;
     }
 
-    private double getTrendVolatility(long currentTime) {
-        return Math.cos(currentTime / 1000.0) * 0.02;
+    private Map<String, String> calculateStatistics(double rate, int years, DepositTerms terms) {
+        PortfolioProjection projection = project(new long[]{terms.balance()}, new double[]{terms.rate()}, rate, years);
+        DepositComputationEvent event = DepositComputationEvent.start(DepositComputationEvent.FORMAT, 1);
+        try {
+            return toCalculations(projection, 0);
+        } finally {
+            event.commit();
+        }
     }
 
-    private double getExponentialVolatility(long currentTime) {
-        double factor = currentTime / 10000.0;
-        if (factor > 10) {
-            factor = 10;
+    private PortfolioProjection project(long[] balances, double[] rates, double rate, int years) {
+        DepositComputationEvent event = DepositComputationEvent.start(DepositComputationEvent.PROJECT, balances.length);
+        try {
+            return portfolioProjector.project(balances, rates, rate, years, SCENARIOS);
+        } finally {
+            event.commit();
         }
-        return Math.min(Math.exp(factor) * 0.01, 0.1);
     }
 
-    private double calculateMovingAverage(double currentRate) {
-        return currentRate * 0.98 + 0.02;
+    private Map<String, String> toCalculations(PortfolioProjection projection, int deposit) {
+        Map<String, String> calculations = new LinkedHashMap<>();
+        calculations.put("balance_by_rate", Money.format(projection.balance(ProjectionScenarios.BY_RATE, deposit)));
+        calculations.put("balance_with_actual_rate", Money.format(projection.balance(ProjectionScenarios.ACTUAL_RATE, deposit)));
+        for (int i = 0; i < TOP_UP_KEYS.length; i++) {
+            calculations.put(TOP_UP_KEYS[i], Money.format(projection.balance(SCENARIOS.withOperation(i), deposit)));
+        }
+        for (int i = 0; i < TOP_UP_AND_WITHDRAW_KEYS.length; i++) {
+            calculations.put(TOP_UP_AND_WITHDRAW_KEYS[i], Money.format(projection.balance(SCENARIOS.withTopUpsAndWithdraw(i), deposit)));
+        }
+        return calculations;
     }
 
-    private double getCrossCurrencyVolatility() {
-        double usdRate = 1.1;
-        double eurRate = 1.2;
-        return (usdRate / eurRate) * 0.15;
+    private GrowthFactors factors(double rate, int years) {
+        return growthFactorTable.get(rate, years);
     }
 
-    private double getSeasonalVolatility() {
-        return 0.01;
+    private static long versionOf(Deposit deposit) {
+        return deposit.getVersion() == null ? 0 : deposit.getVersion();
     }
 
-    private double predictCurrencyRate() {
-        return 1.15;
+    private int yearsUntil(LocalDate date) {
+        return date.getYear() - LocalDate.now().getYear();
     }
 
 }
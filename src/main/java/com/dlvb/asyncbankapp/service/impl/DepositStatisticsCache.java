@@ -0,0 +1,88 @@
+package com.dlvb.asyncbankapp.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Кэш статистики по депозиту.
+ * <p>
+ * Ключ включает идентификатор депозита, ставку, целевой и текущий год, а также версию депозита.
+ * Последняя известная версия каждого депозита хранится отдельно: запись через {@link com.dlvb.asyncbankapp.service.DepositService}
+ * сообщает новую версию, после чего записи со старой версией больше не находятся и вытесняются по размеру или TTL.
+ * Изменения в обход сервиса становятся видны не позже, чем через TTL.
+ * Метрики попаданий, промахов и вытеснений публикуются под именем {@code deposit.statistics}.
+ * @author Matushkin Anton
+ */
+@Component
+public class DepositStatisticsCache {
+
+    private final Cache<Key, Map<String, String>> statistics;
+    private final Cache<String, Long> versions;
+
+    public DepositStatisticsCache(MeterRegistry meterRegistry,
+                                  @Value("${bank.deposits.statistics-cache.size:10000}") long size,
+                                  @Value("${bank.deposits.statistics-cache.ttl:PT10M}") Duration ttl) {
+        this.statistics = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(ttl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, statistics, "deposit.statistics");
+    }
+
+    /**
+     * Ищет статистику для последней известной версии депозита.
+     *
+     * @param depositId идентификатор депозита.
+     * @param rate ставка расчёта.
+     * @param targetYear год, на который выполняется расчёт.
+     * @param currentYear текущий год.
+     * @return статистика или {@code null}, если её нет в кэше.
+     */
+    public Map<String, String> find(String depositId, double rate, int targetYear, int currentYear) {
+        Long version = versions.getIfPresent(depositId);
+        return version == null ? null : statistics.getIfPresent(new Key(depositId, rate, targetYear, currentYear, version));
+    }
+
+    /**
+     * Сохраняет статистику, рассчитанную для указанной версии депозита.
+     *
+     * @param depositId идентификатор депозита.
+     * @param version версия депозита, по которой выполнен расчёт.
+     * @param rate ставка расчёта.
+     * @param targetYear год, на который выполняется расчёт.
+     * @param currentYear текущий год.
+     * @param calculations неизменяемая статистика.
+     */
+    public void put(String depositId, long version, double rate, int targetYear, int currentYear, Map<String, String> calculations) {
+        long latest = versions.asMap().merge(depositId, version, Math::max);
+        if (latest == version) {
+            statistics.put(new Key(depositId, rate, targetYear, currentYear, version), calculations);
+        }
+    }
+
+    /**
+     * Сообщает о записи депозита; статистика по предыдущим версиям больше не возвращается.
+     *
+     * @param depositId идентификатор депозита.
+     * @param version версия депозита после записи.
+     */
+    public void onDepositWritten(String depositId, long version) {
+        versions.asMap().merge(depositId, version, Math::max);
+    }
+
+    private record Key(String depositId, double rate, int targetYear, int currentYear, long version) {
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.dlvb.asyncbankapp.service.impl;
+
+import com.dlvb.asyncbankapp.model.IdempotencyKey;
+import com.dlvb.asyncbankapp.repository.IdempotencyKeyRepository;
+import com.dlvb.asyncbankapp.service.IdempotencyService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Имплементация сервиса {@link IdempotencyService}.
+ * <p>
+ * Недавние ключи хранятся в ограниченном кэше с вытеснением по TTL, источником истины
+ * служит таблица {@link IdempotencyKey} с уникальным первичным ключом.
+ * Ключи занимаются вставкой строки с временным результатом {@code claimed:<uuid>} до применения операций;
+ * параллельная вставка того же ключа ждёт фиксации или отката первой транзакции, а не нарушает первичный ключ.
+ * @author Matushkin Anton
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final String CLAIM_PREFIX = "claimed:";
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Cache<String, String> recentKeys;
+    private final Duration retention;
+    private final int lookupChunkSize;
+
+    public IdempotencyServiceImpl(IdempotencyKeyRepository idempotencyKeyRepository,
+                                  @Value("${bank.idempotency.cache-size:100000}") long cacheSize,
+                                  @Value("${bank.idempotency.cache-ttl:PT1H}") Duration cacheTtl,
+                                  @Value("${bank.idempotency.retention:P7D}") Duration retention,
+                                  @Value("${bank.batch.lookup-chunk-size:1000}") int lookupChunkSize) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.recentKeys = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        this.retention = retention;
+        this.lookupChunkSize = lookupChunkSize;
+    }
+
+    @Override
+    public Map<String, String> findProcessed(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> processed = new HashMap<>(recentKeys.getAllPresent(keys));
+        if (processed.size() == keys.size()) {
+            return processed;
+        }
+
+        List<String> chunk = new ArrayList<>(Math.min(lookupChunkSize, keys.size()));
+        for (String key : keys) {
+            if (!processed.containsKey(key)) {
+                chunk.add(key);
+                if (chunk.size() == lookupChunkSize) {
+                    loadInto(processed, chunk);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            loadInto(processed, chunk);
+        }
+        return processed;
+    }
+
+    @Override
+    @Transactional
+    public Map<String, String> claim(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        String[] sortedKeys = new TreeSet<>(keys).toArray(String[]::new);
+        String claim = CLAIM_PREFIX + UUID.randomUUID();
+        idempotencyKeyRepository.insertMissing(sortedKeys, claim);
+
+        Map<String, String> processed = new HashMap<>();
+        for (int from = 0; from < sortedKeys.length; from += lookupChunkSize) {
+            List<String> chunk = Arrays.asList(sortedKeys).subList(from, Math.min(from + lookupChunkSize, sortedKeys.length));
+            for (IdempotencyKey stored : idempotencyKeyRepository.findAllById(chunk)) {
+                if (!claim.equals(stored.getResult())) {
+                    processed.put(stored.getId(), stored.getResult());
+                }
+            }
+        }
+        return processed;
+    }
+
+    @Override
+    @Transactional
+    public void complete(Map<String, String> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        TreeMap<String, String> sorted = new TreeMap<>(results);
+        idempotencyKeyRepository.updateResults(sorted.keySet().toArray(String[]::new), sorted.values().toArray(String[]::new));
+        cacheAfterCommit(results);
+    }
+
+    @Override
+    @Transactional
+    public void remember(Map<String, String> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        List<IdempotencyKey> rows = new ArrayList<>(results.size());
+        results.forEach((key, result) -> rows.add(IdempotencyKey.builder().id(key).result(result).build()));
+        idempotencyKeyRepository.saveAll(rows);
+        cacheAfterCommit(results);
+    }
+
+    private void cacheAfterCommit(Map<String, String> results) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentKeys.putAll(results);
+                }
+            });
+        } else {
+            recentKeys.putAll(results);
+        }
+    }
+
+    /**
+     * Удаляет из БД ключи старше срока хранения.
+     */
+    @Scheduled(fixedDelayString = "${bank.idempotency.purge-interval:PT1H}")
+    public void purgeExpiredKeys() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private void loadInto(Map<String, String> processed, List<String> keys) {
+        for (IdempotencyKey stored : idempotencyKeyRepository.findAllById(keys)) {
+            processed.put(stored.getId(), stored.getResult());
+            recentKeys.put(stored.getId(), stored.getResult());
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.dlvb.asyncbankapp.service.impl;
+
+import com.dlvb.asyncbankapp.dto.BalanceUpdateRequest;
+import com.dlvb.asyncbankapp.dto.IngestReport;
+import com.dlvb.asyncbankapp.dto.TransactionDTO;
+import com.dlvb.asyncbankapp.service.AccountService;
+import com.dlvb.asyncbankapp.service.IngestService;
+import com.dlvb.asyncbankapp.service.TransactionService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Имплементация сервиса {@link IngestService}.
+ * @author Matushkin Anton
+ */
+@Slf4j
+@Service
+public class IngestServiceImpl implements IngestService {
+
+    private final ObjectMapper objectMapper;
+    private final TransactionService transactionService;
+    private final AccountService accountService;
+    private final int chunkSize;
+
+    public IngestServiceImpl(ObjectMapper objectMapper,
+                             TransactionService transactionService,
+                             AccountService accountService,
+                             @Value("${bank.ingest.chunk-size:1000}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        this.transactionService = transactionService;
+        this.accountService = accountService;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public IngestReport ingestTransactions(InputStream body, String batchIdempotencyKey) {
+        return ingest(body, TransactionDTO.class, "transactions", (chunk, offset) -> {
+            TransactionDTO.applyBatchIdempotencyKey(chunk, batchIdempotencyKey, offset);
+            transactionService.processMultipleTransactions(chunk);
+        });
+    }
+
+    @Override
+    public IngestReport ingestBalanceUpdates(InputStream body) {
+        return ingest(body, BalanceUpdateRequest.class, "balance updates",
+                (chunk, offset) -> accountService.updateMultipleBalances(chunk));
+    }
+
+    /**
+     * Читает записи потоковым парсером Jackson и передаёт их обработчику частями по {@code chunkSize}.
+     *
+     * @param chunkHandler обработчик части; получает записи и сквозную позицию первой из них.
+     */
+    private <T> IngestReport ingest(InputStream body, Class<T> type, String description,
+                                    BiConsumer<List<T>, Long> chunkHandler) {
+        long startTime = System.nanoTime();
+        IngestReport report = IngestReport.builder().build();
+        List<T> chunk = new ArrayList<>(chunkSize);
+
+        try (MappingIterator<T> records = objectMapper.readerFor(type).readValues(body)) {
+            while (records.hasNextValue()) {
+                chunk.add(records.nextValue());
+                if (chunk.size() == chunkSize) {
+                    commitChunk(report, chunk, chunkHandler, description);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                commitChunk(report, chunk, chunkHandler, description);
+            }
+            report.setCompleted(true);
+        } catch (IOException | RuntimeException e) {
+            report.setFailedAtItem(report.getCommittedItems());
+            report.setError(e.getMessage());
+            log.warn("NDJSON {} ingestion stopped after {} committed items: {}",
+                    description, report.getCommittedItems(), e.getMessage());
+        }
+
+        report.setDurationMillis((System.nanoTime() - startTime) / 1_000_000);
+        return report;
+    }
+
+    private <T> void commitChunk(IngestReport report, List<T> chunk,
+                                 BiConsumer<List<T>, Long> chunkHandler, String description) {
+        chunkHandler.accept(chunk, report.getCommittedItems());
+        report.setCommittedChunks(report.getCommittedChunks() + 1);
+        report.setCommittedItems(report.getCommittedItems() + chunk.size());
+        log.info("NDJSON {} chunk {} committed: {} items, {} total",
+                description, report.getCommittedChunks(), chunk.size(), report.getCommittedItems());
+    }
+
+}
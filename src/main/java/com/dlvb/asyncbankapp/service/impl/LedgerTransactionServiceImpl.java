@@ -0,0 +1,242 @@
+package com.dlvb.asyncbankapp.service.impl;
+
+import com.dlvb.asyncbankapp.dto.TransactionDTO;
+import com.dlvb.asyncbankapp.dto.TransactionResult;
+import com.dlvb.asyncbankapp.ledger.LedgerEngine;
+import com.dlvb.asyncbankapp.ledger.LedgerTransfer;
+import com.dlvb.asyncbankapp.model.Account;
+import com.dlvb.asyncbankapp.model.Transaction;
+import com.dlvb.asyncbankapp.service.BatchProgressListener;
+import com.dlvb.asyncbankapp.service.IdempotencyService;
+import com.dlvb.asyncbankapp.service.TransactionService;
+import io.micrometer.core.annotation.Timed;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Имплементация сервиса {@link TransactionService} поверх реестра переводов {@link LedgerEngine}
+ * (режим {@code bank.ledger.enabled}).
+ * <p>
+ * Перевод подтверждается после записи в журнал реестра; строки {@link Transaction} и балансы в БД
+ * обновляются позже, пачками. Переводы с недостатком средств отклоняются и в БД не записываются.
+ * Транзакции с уже обработанным ключом идемпотентности пропускаются; в результате возвращается id перевода, за которым занят ключ.
+ * <p>
+ * Переводы с одного аккаунта применяются в порядке следования. Зачисление на аккаунт другого шарда
+ * становится доступно для списания после записи перевода в журнал, поэтому цепочка переводов внутри одной пачки
+ * может быть отклонена, даже если при последовательном применении средств хватило бы.
+ * @author Matushkin Anton
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@Timed(value = "bank.service", histogram = true)
+@ConditionalOnProperty(name = "bank.ledger.enabled", havingValue = "true")
+public class LedgerTransactionServiceImpl implements TransactionService {
+
+    @NonNull
+    private final LedgerEngine ledgerEngine;
+
+    @NonNull
+    private final IdempotencyService idempotencyService;
+
+    @Override
+    public CompletableFuture<Transaction> processTransaction(String fromAccountId, String toAccountId, long amount) {
+        return ledgerEngine.transfer(fromAccountId, toAccountId, amount, null)
+                .thenApply(LedgerTransactionServiceImpl::toTransaction);
+    }
+
+    @Override
+    public List<TransactionResult> processMultipleTransactions(List<TransactionDTO> transactions) {
+        TransactionResult[] results = new TransactionResult[transactions.size()];
+        CompletableFuture.allOf(submit(transactions, results, BatchProgressListener.NOOP)).join();
+        resolveReplays(results);
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public CompletableFuture<Void> processMultipleTransactionsAsync(List<TransactionDTO> transactions) {
+        return processMultipleTransactionsAsync(transactions, BatchProgressListener.NOOP);
+    }
+
+    @Override
+    public CompletableFuture<Void> processMultipleTransactionsAsync(List<TransactionDTO> transactions,
+                                                                    BatchProgressListener listener) {
+        try {
+            return CompletableFuture.allOf(submit(transactions, new TransactionResult[transactions.size()], listener));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void safeLockTransfer(String fromAccountId, String toAccountId, long amount) {
+        try {
+            ledgerEngine.transfer(fromAccountId, toAccountId, amount, null).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Передаёт транзакции пачки в реестр в порядке следования.
+     * Аккаунты всех транзакций проверяются до передачи первой из них; если реестр отказывает в приёме
+     * (например, из-за перегрузки), уже принятые транзакции остаются принятыми, а остальные отмечаются как неуспешные.
+     *
+     * @param results заполняется результатами транзакций по мере их завершения.
+     * @return по одному future на переданную транзакцию; завершаются успешно и после отклонения перевода.
+     */
+    private CompletableFuture<?>[] submit(List<TransactionDTO> transactions, TransactionResult[] results,
+                                          BatchProgressListener listener) {
+        for (TransactionDTO dto : transactions) {
+            ledgerEngine.load(dto.getFromAccountId());
+            ledgerEngine.load(dto.getToAccountId());
+        }
+        int replayedCount = claimKeys(transactions, results);
+        listener.onItemsCompleted(replayedCount);
+
+        List<CompletableFuture<?>> futures = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            TransactionDTO dto = transactions.get(i);
+            int index = i;
+            try {
+                futures.add(ledgerEngine.transfer(dto.getFromAccountId(), dto.getToAccountId(), dto.getAmount(),
+                                dto.getIdempotencyKey())
+                        .handle((transfer, throwable) -> {
+                            TransactionResult.TransactionResultBuilder result = TransactionResult.builder()
+                                    .idempotencyKey(dto.getIdempotencyKey());
+                            if (throwable != null) {
+                                String reason = unwrap(throwable).getMessage();
+                                result.error(reason);
+                                listener.onItemFailed(index, reason);
+                            } else {
+                                result.transactionId(transfer.id());
+                            }
+                            results[index] = result.build();
+                            listener.onItemsCompleted(1);
+                            return transfer;
+                        }));
+            } catch (RuntimeException e) {
+                rejectRemaining(transactions, results, i, e, listener);
+                throw e;
+            }
+        }
+        return futures.toArray(CompletableFuture<?>[]::new);
+    }
+
+    /**
+     * Занимает ключи идемпотентности транзакций пачки. Транзакциям, которые уже обработаны
+     * или повторяют ключ другой транзакции, проставляется результат с id перевода, за которым занят ключ.
+     *
+     * @return число таких транзакций.
+     */
+    private int claimKeys(List<TransactionDTO> transactions, TransactionResult[] results) {
+        List<String> claimed = new ArrayList<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            String key = transactions.get(i).getIdempotencyKey();
+            if (key != null && !ledgerEngine.claim(key)) {
+                results[i] = TransactionResult.builder().idempotencyKey(key).replayed(true).build();
+            } else if (key != null) {
+                claimed.add(key);
+            }
+        }
+        Map<String, String> processed = Map.of();
+        if (!claimed.isEmpty()) {
+            try {
+                processed = idempotencyService.findProcessed(claimed);
+            } catch (RuntimeException e) {
+                claimed.forEach(ledgerEngine::release);
+                throw e;
+            }
+        }
+        // Ключи, уже записанные в БД, не занимаются в реестре: повтор найдёт их по БД.
+        processed.keySet().forEach(ledgerEngine::release);
+
+        int replayed = 0;
+        for (int i = 0; i < transactions.size(); i++) {
+            String key = transactions.get(i).getIdempotencyKey();
+            if (key != null && processed.containsKey(key)) {
+                results[i] = TransactionResult.replayOf(key, processed.get(key));
+            } else if (results[i] != null) {
+                results[i].setTransactionId(ledgerEngine.transferIdOf(key));
+            }
+            if (results[i] != null) {
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Проставляет id перевода повторам, ключ которых при приёме пачки был занят ещё не переданным переводом,
+     * например более ранней транзакцией этой же пачки.
+     */
+    private void resolveReplays(TransactionResult[] results) {
+        Map<String, String> applied = new HashMap<>();
+        for (TransactionResult result : results) {
+            if (!result.isReplayed() && result.getIdempotencyKey() != null && result.getTransactionId() != null) {
+                applied.put(result.getIdempotencyKey(), result.getTransactionId());
+            }
+        }
+        for (TransactionResult result : results) {
+            if (result.isReplayed() && result.getTransactionId() == null) {
+                String key = result.getIdempotencyKey();
+                result.setTransactionId(applied.containsKey(key) ? applied.get(key) : ledgerEngine.transferIdOf(key));
+            }
+        }
+    }
+
+    private void rejectRemaining(List<TransactionDTO> transactions, TransactionResult[] results, int from,
+                                 RuntimeException cause, BatchProgressListener listener) {
+        int remaining = 0;
+        for (int i = from; i < transactions.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            String key = transactions.get(i).getIdempotencyKey();
+            if (i > from) {
+                ledgerEngine.release(key);
+            }
+            results[i] = TransactionResult.builder().idempotencyKey(key).error(cause.getMessage()).build();
+            listener.onItemFailed(i, cause.getMessage());
+            remaining++;
+        }
+        listener.onItemsCompleted(remaining);
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+
+    private static Transaction toTransaction(LedgerTransfer transfer) {
+        LocalDateTime createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(transfer.createdAt()), ZoneId.systemDefault());
+        return Transaction.builder()
+                .id(transfer.id())
+                .fromAccount(Account.builder().id(transfer.fromAccountId()).build())
+                .toAccount(Account.builder().id(transfer.toAccountId()).build())
+                .amount(transfer.amount())
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .build();
+    }
+
+}
@@ -0,0 +1,238 @@
+package com.dlvb.asyncbankapp.service.impl;
+
+import com.dlvb.asyncbankapp.dto.TransactionDTO;
+import com.dlvb.asyncbankapp.dto.TransactionResult;
+import com.dlvb.asyncbankapp.model.Account;
+import com.dlvb.asyncbankapp.model.Transaction;
+import com.dlvb.asyncbankapp.money.Money;
+import com.dlvb.asyncbankapp.repository.AccountRepository;
+import com.dlvb.asyncbankapp.repository.TransactionRepository;
+import com.dlvb.asyncbankapp.service.IdempotencyService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Пакетная запись транзакций.
+ * <p>
+ * Все аккаунты пачки загружаются несколькими запросами {@code IN (...)}, балансы меняются в памяти,
+ * после чего Hibernate отправляет вставки {@link Transaction} и обновления {@link Account} JDBC-пакетами.
+ * Транзакции с уже обработанным ключом идемпотентности пропускаются, а в результате возвращается сохранённый исход:
+ * id транзакции и ошибка, если перевод не был применён.
+ * Необработанные ключи занимаются в той же транзакции БД до изменения балансов, поэтому из двух параллельных пачек
+ * с одним ключом операцию применяет только одна, а вторая получает её результат.
+ * <p>
+ * По умолчанию строки аккаунтов не блокируются: обновления проверяют версию аккаунта,
+ * и при параллельном изменении фиксация завершается {@link org.springframework.dao.OptimisticLockingFailureException}.
+ * Вызывающий код повторяет пачку целиком, а последнюю попытку выполняет с блокировкой строк {@code SELECT ... FOR UPDATE}.
+ * Режим {@code bank.batch.pessimistic-locking} блокирует строки всегда, для нагрузки с частыми конфликтами.
+ * @author Matushkin Anton
+ */
+@Component
+public class TransactionBatchProcessor {
+
+    private static final String INSUFFICIENT_BALANCE = "Insufficient balance";
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final IdempotencyService idempotencyService;
+    private final int lookupChunkSize;
+    private final boolean pessimisticLocking;
+
+    public TransactionBatchProcessor(AccountRepository accountRepository,
+                                     TransactionRepository transactionRepository,
+                                     IdempotencyService idempotencyService,
+                                     @Value("${bank.batch.lookup-chunk-size:1000}") int lookupChunkSize,
+                                     @Value("${bank.batch.pessimistic-locking:false}") boolean pessimisticLocking) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.idempotencyService = idempotencyService;
+        this.lookupChunkSize = lookupChunkSize;
+        this.pessimisticLocking = pessimisticLocking;
+    }
+
+    /**
+     * Применяет транзакции в порядке следования в одной транзакции БД.
+     * Транзакция с недостаточным балансом сохраняется без изменения балансов.
+     *
+     * @param transactions список транзакций.
+     * @return результаты в порядке {@code transactions}; для транзакции с уже обработанным ключом идемпотентности
+     *         возвращаются сохранённые id транзакции и ошибка, балансы не меняются.
+     * @throws NoSuchElementException если какой-либо из аккаунтов не найден; пачка целиком откатывается.
+     * @throws org.springframework.dao.OptimisticLockingFailureException если аккаунт был изменён параллельно;
+     *         пачка целиком откатывается и может быть повторена.
+     */
+    @Transactional
+    public List<TransactionResult> process(List<TransactionDTO> transactions) {
+        return process(transactions, pessimisticLocking);
+    }
+
+    /**
+     * Применяет транзакции так же, как {@link #process(List)}, с явным выбором блокировки строк аккаунтов.
+     *
+     * @param transactions список транзакций.
+     * @param lockRows блокировать ли строки аккаунтов до конца транзакции.
+     * @return результаты в порядке {@code transactions}.
+     */
+    @Transactional
+    public List<TransactionResult> process(List<TransactionDTO> transactions, boolean lockRows) {
+        Map<String, String> processed = claimKeys(transactions);
+        List<Integer> positions = pendingPositions(transactions, processed);
+        List<TransactionDTO> pending = positions.size() == transactions.size()
+                ? transactions
+                : positions.stream().map(transactions::get).toList();
+        Map<String, Account> accounts = loadAccounts(pending, lockRows || pessimisticLocking);
+        List<Transaction> rows = new ArrayList<>(pending.size());
+        String[] errors = new String[pending.size()];
+
+        for (int i = 0; i < pending.size(); i++) {
+            TransactionDTO dto = pending.get(i);
+            Account fromAccount = getAccount(accounts, dto.getFromAccountId());
+            Account toAccount = getAccount(accounts, dto.getToAccountId());
+            long amount = dto.getAmount();
+
+            long fromAccountBalanceAfterTransaction = Money.subtract(fromAccount.getBalance(), amount);
+            if (fromAccountBalanceAfterTransaction >= 0) {
+                fromAccount.setBalance(fromAccountBalanceAfterTransaction);
+                toAccount.setBalance(Money.add(toAccount.getBalance(), amount));
+            } else {
+                errors[i] = INSUFFICIENT_BALANCE;
+            }
+
+            rows.add(Transaction.builder()
+                    .fromAccount(fromAccount)
+                    .toAccount(toAccount)
+                    .amount(amount)
+                    .build());
+        }
+
+        transactionRepository.saveAll(rows);
+        Map<String, String> applied = completeKeys(pending, rows, errors);
+        return results(transactions, positions, rows, errors, processed, applied);
+    }
+
+    /**
+     * Занимает ключи идемпотентности пачки: сначала проверяет уже обработанные, затем атомарно занимает остальные.
+     *
+     * @return карта "ключ - сохранённый исход" для ключей, обработанных ранее или параллельной транзакцией.
+     */
+    private Map<String, String> claimKeys(List<TransactionDTO> transactions) {
+        Set<String> keys = new HashSet<>();
+        for (TransactionDTO dto : transactions) {
+            if (dto.getIdempotencyKey() != null) {
+                keys.add(dto.getIdempotencyKey());
+            }
+        }
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, String> processed = new HashMap<>(idempotencyService.findProcessed(keys));
+        if (processed.size() < keys.size()) {
+            keys.removeAll(processed.keySet());
+            processed.putAll(idempotencyService.claim(keys));
+        }
+        return processed;
+    }
+
+    private List<Integer> pendingPositions(List<TransactionDTO> transactions, Map<String, String> processed) {
+        Set<String> seen = new HashSet<>();
+        List<Integer> positions = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            String key = transactions.get(i).getIdempotencyKey();
+            if (key == null || !processed.containsKey(key) && seen.add(key)) {
+                positions.add(i);
+            }
+        }
+        return positions;
+    }
+
+    private Map<String, String> completeKeys(List<TransactionDTO> pending, List<Transaction> rows, String[] errors) {
+        Map<String, String> applied = new HashMap<>();
+        for (int i = 0; i < pending.size(); i++) {
+            String key = pending.get(i).getIdempotencyKey();
+            if (key != null) {
+                applied.put(key, TransactionResult.toStoredResult(rows.get(i).getId(), errors[i]));
+            }
+        }
+        idempotencyService.complete(applied);
+        return applied;
+    }
+
+    /**
+     * Собирает результаты в порядке пачки. Транзакции, пропущенные из-за ключа идемпотентности,
+     * получают исход транзакции, сохранённой для этого ключа ранее или раньше в этой же пачке.
+     */
+    private List<TransactionResult> results(List<TransactionDTO> transactions, List<Integer> positions, List<Transaction> rows,
+                                            String[] errors, Map<String, String> processed, Map<String, String> applied) {
+        TransactionResult[] results = new TransactionResult[transactions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            int position = positions.get(i);
+            results[position] = TransactionResult.builder()
+                    .transactionId(rows.get(i).getId())
+                    .idempotencyKey(transactions.get(position).getIdempotencyKey())
+                    .error(errors[i])
+                    .build();
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                String key = transactions.get(i).getIdempotencyKey();
+                results[i] = TransactionResult.replayOf(key, processed.getOrDefault(key, applied.get(key)));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private Map<String, Account> loadAccounts(List<TransactionDTO> transactions, boolean lockRows) {
+        TreeSet<String> accountIds = new TreeSet<>();
+        for (TransactionDTO dto : transactions) {
+            accountIds.add(dto.getFromAccountId());
+            accountIds.add(dto.getToAccountId());
+        }
+
+        Map<String, Account> accounts = new HashMap<>(accountIds.size() * 2);
+        List<String> chunk = new ArrayList<>(Math.min(lookupChunkSize, accountIds.size()));
+        for (String accountId : accountIds) {
+            chunk.add(accountId);
+            if (chunk.size() == lookupChunkSize) {
+                putAll(accounts, findAll(chunk, lockRows));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            putAll(accounts, findAll(chunk, lockRows));
+        }
+        return accounts;
+    }
+
+    private List<Account> findAll(List<String> accountIds, boolean lockRows) {
+        return lockRows
+                ? accountRepository.findAllByIdForUpdate(accountIds)
+                : accountRepository.findAllById(accountIds);
+    }
+
+    private void putAll(Map<String, Account> accounts, List<Account> loaded) {
+        for (Account account : loaded) {
+            accounts.put(account.getId(), account);
+        }
+    }
+
+    private Account getAccount(Map<String, Account> accounts, String accountId) {
+        Account account = accounts.get(accountId);
+        if (account == null) {
+            throw new NoSuchElementException("Account not found: " + accountId);
+        }
+        return account;
+    }
+
+}
@@ -1,23 +1,31 @@
 package com.dlvb.asyncbankapp.service.impl;
 
+import com.dlvb.asyncbankapp.concurrent.AccountLockManager;
+import com.dlvb.asyncbankapp.concurrent.ConflictPartitioner;
+import com.dlvb.asyncbankapp.concurrent.OptimisticRetryTemplate;
+import com.dlvb.asyncbankapp.diagnostics.jfr.TransferEvent;
 import com.dlvb.asyncbankapp.dto.TransactionDTO;
-import com.dlvb.asyncbankapp.model.Account;
+import com.dlvb.asyncbankapp.dto.TransactionResult;
 import com.dlvb.asyncbankapp.model.Transaction;
 import com.dlvb.asyncbankapp.repository.AccountRepository;
 import com.dlvb.asyncbankapp.repository.TransactionRepository;
+import com.dlvb.asyncbankapp.service.BatchProgressListener;
 import com.dlvb.asyncbankapp.service.TransactionService;
+import io.micrometer.core.annotation.Timed;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
@@ -27,94 +35,215 @@ import java.util.concurrent.locks.ReentrantLock;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed(value = "bank.service", histogram = true)
 public class TransactionServiceImpl implements TransactionService {
 
+    private static final String BATCH_OPERATION = "transactions.batch";
+
     @NonNull
     private final AccountRepository accountRepository;
 
     @NonNull
     private final TransactionRepository transactionRepository;
 
-    private final Lock lock1 = new ReentrantLock();
-    private final Lock lock2 = new ReentrantLock();
+    @NonNull
+    private final AccountLockManager accountLockManager;
+
+    @NonNull
+    private final TransactionBatchProcessor transactionBatchProcessor;
+
+    @NonNull
+    private final OptimisticRetryTemplate optimisticRetryTemplate;
+
+    @NonNull
+    @Qualifier("taskExecutor")
+    private final Executor taskExecutor;
+
+    @Value("${bank.transactions.parallelism:10}")
+    private int parallelism;
 
     @Override
     @Transactional
-    public CompletableFuture<Transaction> processTransaction(String fromAccountId, String toAccountId, double amount) {
-        Account fromAccount = accountRepository.findById(fromAccountId).orElseThrow();
-        Account toAccount = accountRepository.findById(toAccountId).orElseThrow();
+    public CompletableFuture<Transaction> processTransaction(String fromAccountId, String toAccountId, long amount) {
+        TransferEvent event = TransferEvent.start("processTransaction", fromAccountId, toAccountId, amount);
+        try {
+            boolean moved = moveFunds(fromAccountId, toAccountId, amount);
 
-        double fromAccountBalanceAfterTransaction = fromAccount.getBalance() - amount;
-        if (fromAccountBalanceAfterTransaction >= 0) {
-            fromAccount.setBalance(fromAccountBalanceAfterTransaction);
-            toAccount.setBalance(toAccount.getBalance() + amount);
+            Transaction transaction = Transaction.builder()
+                    .fromAccount(accountRepository.getReferenceById(fromAccountId))
+                    .toAccount(accountRepository.getReferenceById(toAccountId))
+                    .amount(amount)
+                    .build();
 
-        }
+            transactionRepository.save(transaction);
+            if (moved) {
+                event.succeeded();
+            }
 
-        Transaction transaction = Transaction.builder()
-                .fromAccount(fromAccount)
-                .toAccount(toAccount)
-                .amount(amount)
-                .build();
+            return CompletableFuture.completedFuture(transaction);
+        } finally {
+            event.commit();
+        }
+    }
 
-        transactionRepository.save(transaction);
-        accountRepository.save(fromAccount);
-        accountRepository.save(toAccount);
+    @Override
+    public List<TransactionResult> processMultipleTransactions(List<TransactionDTO> transactions) {
+        return processBatch(transactions);
+    }
 
-        return CompletableFuture.completedFuture(transaction);
+    @Override
+    public CompletableFuture<Void> processMultipleTransactionsAsync(List<TransactionDTO> transactions) {
+        return processMultipleTransactionsAsync(transactions, BatchProgressListener.NOOP);
     }
 
     @Override
-    @Transactional
-    public void processMultipleTransactions(List<TransactionDTO> transactions) {
-        for (TransactionDTO transaction : transactions) {
-            processTransaction(transaction.getFromAccountId(), transaction.getToAccountId(), transaction.getAmount());
+    public CompletableFuture<Void> processMultipleTransactionsAsync(List<TransactionDTO> transactions,
+                                                                    BatchProgressListener listener) {
+        List<int[]> groups = partition(transactions);
+        List<int[]> buckets = ConflictPartitioner.pack(groups, parallelism);
+        log.debug("Split {} transactions into {} independent groups and {} parallel buckets",
+                transactions.size(), groups.size(), buckets.size());
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[buckets.size()];
+        for (int i = 0; i < buckets.size(); i++) {
+            int[] indices = buckets.get(i);
+            List<TransactionDTO> bucket = ConflictPartitioner.select(transactions, indices);
+            try {
+                futures[i] = CompletableFuture.runAsync(() -> processBucket(bucket, indices, listener), taskExecutor);
+            } catch (RejectedExecutionException e) {
+                failAll(indices, e, listener);
+                listener.onItemsCompleted(indices.length);
+                futures[i] = CompletableFuture.failedFuture(e);
+            }
         }
+        return CompletableFuture.allOf(futures);
     }
 
-    @Async
-    @Override
-    @Transactional
-    public CompletableFuture<Void> processMultipleTransactionsAsync(List<TransactionDTO> transactions) {
-        for (TransactionDTO transaction : transactions) {
-            processTransaction(transaction.getFromAccountId(), transaction.getToAccountId(), transaction.getAmount());
+    private List<TransactionResult> processBatch(List<TransactionDTO> transactions) {
+        return optimisticRetryTemplate.execute(BATCH_OPERATION,
+                () -> transactionBatchProcessor.process(transactions),
+                () -> transactionBatchProcessor.process(transactions, true));
+    }
+
+    private static List<int[]> partition(List<TransactionDTO> transactions) {
+        return ConflictPartitioner.partition(transactions,
+                TransactionDTO::getFromAccountId, TransactionDTO::getToAccountId, TransactionDTO::getIdempotencyKey);
+    }
+
+    /**
+     * Записывает корзину одной транзакцией БД. Если она откатывается, а в корзине несколько независимых групп,
+     * группы повторяются по одной: ошибка одной группы не откатывает остальные.
+     */
+    private void processBucket(List<TransactionDTO> bucket, int[] indices, BatchProgressListener listener) {
+        try {
+            reportFailures(processBatch(bucket), indices, listener);
+        } catch (RuntimeException e) {
+            List<int[]> groups = partition(bucket);
+            if (groups.size() == 1) {
+                failAll(indices, e, listener);
+                throw e;
+            }
+            log.debug("Bucket of {} transactions failed, retrying its {} groups one by one", bucket.size(), groups.size(), e);
+            processGroups(bucket, indices, groups, listener);
+        } finally {
+            listener.onItemsCompleted(indices.length);
+        }
+    }
+
+    private void processGroups(List<TransactionDTO> bucket, int[] indices, List<int[]> groups, BatchProgressListener listener) {
+        RuntimeException failure = null;
+        for (int[] group : groups) {
+            int[] groupIndices = new int[group.length];
+            for (int i = 0; i < group.length; i++) {
+                groupIndices[i] = indices[group[i]];
+            }
+            try {
+                reportFailures(processBatch(ConflictPartitioner.select(bucket, group)), groupIndices, listener);
+            } catch (RuntimeException e) {
+                failAll(groupIndices, e, listener);
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void reportFailures(List<TransactionResult> results, int[] indices, BatchProgressListener listener) {
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).getError() != null) {
+                listener.onItemFailed(indices[i], results.get(i).getError());
+            }
+        }
+    }
+
+    private static void failAll(int[] indices, RuntimeException cause, BatchProgressListener listener) {
+        for (int index : indices) {
+            listener.onItemFailed(index, cause.getMessage());
         }
-        return CompletableFuture.completedFuture(null);
     }
 
     @Override
-    public void safeLockTransfer(String fromAccountId, String toAccountId, double amount) {
-        boolean acquiredLock1 = false;
-        boolean acquiredLock2 = false;
+    @Transactional
+    public void safeLockTransfer(String fromAccountId, String toAccountId, long amount) {
+        TransferEvent event = TransferEvent.start("safeLockTransfer", fromAccountId, toAccountId, amount);
+        boolean locked = false;
         try {
-            acquiredLock1 = lock1.tryLock(1, TimeUnit.SECONDS);
-            acquiredLock2 = lock2.tryLock(1, TimeUnit.SECONDS);
-
-            if (acquiredLock1 && acquiredLock2) {
-                Account fromAccount = accountRepository.findById(fromAccountId).orElseThrow();
-                Account toAccount = accountRepository.findById(toAccountId).orElseThrow();
+            locked = accountLockManager.tryLock(fromAccountId, toAccountId, 1, TimeUnit.SECONDS);
 
-                if (fromAccount.getBalance() < amount) {
+            if (locked) {
+                if (!moveFunds(fromAccountId, toAccountId, amount)) {
                     throw new IllegalArgumentException("Insufficient balance");
                 }
-                fromAccount.setBalance(fromAccount.getBalance() - amount);
-                toAccount.setBalance(toAccount.getBalance() + amount);
-
-                accountRepository.save(fromAccount);
-                accountRepository.save(toAccount);
-
+                event.succeeded();
             } else {
                 throw new IllegalStateException("Unable to acquire locks, potential deadlock avoided");
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } finally {
-            if (acquiredLock1) {
-                lock1.unlock();
-            }
-            if (acquiredLock2) {
-                lock2.unlock();
+            if (locked) {
+                accountLockManager.unlock(fromAccountId, toAccountId);
             }
+            event.commit();
+        }
+    }
+
+    /**
+     * Переводит средства условными UPDATE-запросами без загрузки аккаунтов.
+     * Строки блокируются в порядке возрастания идентификатора, чтобы встречные переводы не вызывали deadlock в БД:
+     * если получатель идёт первым, его строка блокируется до списания без изменения баланса.
+     * Зачисление выполняется только после успешного списания, поэтому откатывать его не нужно.
+     *
+     * @return {@code false}, если на аккаунте отправителя недостаточно средств; балансы при этом не меняются.
+     * @throws NoSuchElementException если один из аккаунтов не найден.
+     */
+    private boolean moveFunds(String fromAccountId, String toAccountId, long amount) {
+        if (toAccountId.compareTo(fromAccountId) < 0 && accountRepository.lockById(toAccountId).isEmpty()) {
+            throw new NoSuchElementException("Account not found: " + toAccountId);
+        }
+        if (accountRepository.debitIfSufficient(fromAccountId, amount) == 0) {
+            requireExists(fromAccountId);
+            requireExists(toAccountId);
+            return false;
+        }
+        requireUpdated(accountRepository.credit(toAccountId, amount), toAccountId);
+        return true;
+    }
+
+    private void requireExists(String accountId) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new NoSuchElementException("Account not found: " + accountId);
+        }
+    }
+
+    private void requireUpdated(int updatedRows, String accountId) {
+        if (updatedRows == 0) {
+            throw new NoSuchElementException("Account not found: " + accountId);
         }
     }
 
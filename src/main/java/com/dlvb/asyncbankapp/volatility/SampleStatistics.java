@@ -0,0 +1,46 @@
+package com.dlvb.asyncbankapp.volatility;
+
+/**
+ * Число выборок, среднее и сумма квадратов отклонений, накопленные методом Уэлфорда.
+ * Части, посчитанные в разных потоках, объединяются формулой Чана.
+ * @author Matushkin Anton
+ */
+record SampleStatistics(long count, double mean, double m2) {
+
+    static final SampleStatistics EMPTY = new SampleStatistics(0, 0, 0);
+
+    /**
+     * Объединяет статистику двух независимых частей выборки.
+     *
+     * @param other статистика другой части.
+     * @return статистика объединённой выборки.
+     */
+    SampleStatistics merge(SampleStatistics other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            return other;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        double mergedMean = mean + delta * other.count / total;
+        double mergedM2 = m2 + other.m2 + delta * delta * ((double) count * other.count / total);
+        return new SampleStatistics(total, mergedMean, mergedM2);
+    }
+
+    /**
+     * @return несмещённая дисперсия выборки или {@code 0}, если выборок меньше двух.
+     */
+    double variance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    /**
+     * @return стандартная ошибка среднего или {@link Double#POSITIVE_INFINITY}, если выборок меньше двух.
+     */
+    double standardError() {
+        return count < 2 ? Double.POSITIVE_INFINITY : Math.sqrt(variance() / count);
+    }
+
+}
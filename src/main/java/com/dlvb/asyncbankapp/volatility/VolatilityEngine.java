@@ -0,0 +1,254 @@
+package com.dlvb.asyncbankapp.volatility;
+
+import com.dlvb.asyncbankapp.dto.VolatilityEstimate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Расчёт средней волатильности методом Монте-Карло.
+ * <p>
+ * Диапазон итераций делится пополам, пока часть больше {@code bank.volatility.leaf-iterations};
+ * каждая часть получает собственный {@link SplittableRandom}, отделённый от родительского через {@link SplittableRandom#split()},
+ * поэтому потоки не делят общий генератор. Разбиение и порядок суммирования зависят только от числа итераций,
+ * так что при заданном зерне последовательный и параллельный расчёты дают одинаковый результат.
+ * Параллельный расчёт выполняется в собственном {@link ForkJoinPool} размером {@code bank.volatility.parallelism}
+ * (по умолчанию — по числу ядер).
+ * <p>
+ * Адаптивная оценка ({@link #estimate}) вместо фиксированного числа итераций выполняет раунды
+ * по одной части из {@code bank.volatility.chunk-iterations} итераций на поток, накапливает среднее и дисперсию
+ * методом Уэлфорда и останавливается, как только стандартная ошибка достигает заданной или истекает бюджет времени.
+ * @author Matushkin Anton
+ */
+@Component
+public class VolatilityEngine implements DisposableBean {
+
+    /**
+     * Уровень доверия интервала в адаптивной оценке.
+     */
+    public static final double CONFIDENCE_LEVEL = 0.95;
+
+    private static final double CONFIDENCE_Z = 1.959963984540054;
+
+    private final ForkJoinPool pool;
+    private final long leafIterations;
+    private final long chunkIterations;
+    private final Duration maxTimeBudget;
+
+    public VolatilityEngine(@Value("${bank.volatility.parallelism:0}") int parallelism,
+                            @Value("${bank.volatility.leaf-iterations:262144}") long leafIterations,
+                            @Value("${bank.volatility.chunk-iterations:16384}") long chunkIterations,
+                            @Value("${bank.volatility.max-time-budget:PT30S}") Duration maxTimeBudget) {
+        if (leafIterations <= 0 || chunkIterations <= 0) {
+            throw new IllegalArgumentException("Leaf and chunk iterations must be positive");
+        }
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                VolatilityEngine::newWorkerThread, null, false);
+        this.leafIterations = leafIterations;
+        this.chunkIterations = chunkIterations;
+        this.maxTimeBudget = maxTimeBudget;
+    }
+
+    /**
+     * Рассчитывает среднюю волатильность в пуле fork/join.
+     *
+     * @param currentTime текущее время в миллисекундах.
+     * @param iterations число итераций.
+     * @param seed зерно генератора; {@code null} — случайное.
+     * @return средняя волатильность или {@code 0}, если итераций нет.
+     * @throws ExecutionException если расчёт завершился ошибкой.
+     */
+    public double averageVolatility(long currentTime, long iterations, Long seed) throws ExecutionException {
+        if (iterations <= 0) {
+            return 0;
+        }
+        ForkJoinTask<Double> task = pool.submit(new SampleTask(VolatilityModel.deterministicVolatility(currentTime),
+                0, iterations, newRandom(seed)));
+        try {
+            return task.get() / iterations;
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Volatility calculation was interrupted", e);
+        }
+    }
+
+    /**
+     * Рассчитывает среднюю волатильность в вызывающем потоке с тем же разбиением, что и {@link #averageVolatility}.
+     *
+     * @param currentTime текущее время в миллисекундах.
+     * @param iterations число итераций.
+     * @param seed зерно генератора; {@code null} — случайное.
+     * @return средняя волатильность или {@code 0}, если итераций нет.
+     */
+    public double averageVolatilitySequential(long currentTime, long iterations, Long seed) {
+        if (iterations <= 0) {
+            return 0;
+        }
+        return sum(VolatilityModel.deterministicVolatility(currentTime), 0, iterations, newRandom(seed)) / iterations;
+    }
+
+    /**
+     * Оценивает среднюю волатильность с заданной точностью.
+     * Расчёт идёт раундами по {@link #getParallelism()} частей, выполняется хотя бы один раунд; после каждого раунда статистика частей объединяется
+     * в порядке их создания, поэтому при заданном зерне результат зависит только от числа выполненных раундов.
+     *
+     * @param currentTime текущее время в миллисекундах.
+     * @param targetStandardError целевая стандартная ошибка среднего.
+     * @param timeBudget время, после которого расчёт останавливается с достигнутой точностью;
+     *                   ограничивается {@code bank.volatility.max-time-budget}.
+     * @param seed зерно генератора; {@code null} — случайное.
+     * @return оценка среднего с доверительным интервалом уровня {@link #CONFIDENCE_LEVEL}.
+     * @throws ExecutionException если расчёт завершился ошибкой.
+     */
+    public VolatilityEstimate estimate(long currentTime, double targetStandardError, Duration timeBudget, Long seed)
+            throws ExecutionException {
+        if (!(targetStandardError > 0)) {
+            throw new IllegalArgumentException("Target standard error must be positive");
+        }
+        long startTime = System.nanoTime();
+        long deadline = startTime + min(timeBudget, maxTimeBudget).toNanos();
+        double base = VolatilityModel.deterministicVolatility(currentTime);
+        SplittableRandom random = newRandom(seed);
+        int chunks = pool.getParallelism();
+
+        SampleStatistics statistics = SampleStatistics.EMPTY;
+        boolean converged = false;
+        List<ForkJoinTask<SampleStatistics>> round = new ArrayList<>(chunks);
+        do {
+            for (int i = 0; i < chunks; i++) {
+                SplittableRandom chunkRandom = random.split();
+                round.add(pool.submit(() -> sampleChunk(base, chunkIterations, chunkRandom)));
+            }
+            try {
+                for (ForkJoinTask<SampleStatistics> task : round) {
+                    statistics = statistics.merge(task.get());
+                }
+            } catch (InterruptedException e) {
+                round.forEach(task -> task.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Volatility calculation was interrupted", e);
+            }
+            round.clear();
+            converged = statistics.standardError() <= targetStandardError;
+        } while (!converged && (statistics.count() < 2 || System.nanoTime() < deadline));
+
+        double standardError = statistics.standardError();
+        double halfWidth = CONFIDENCE_Z * standardError;
+        return VolatilityEstimate.builder()
+                .mean(statistics.mean())
+                .standardError(standardError)
+                .confidenceLevel(CONFIDENCE_LEVEL)
+                .lowerBound(statistics.mean() - halfWidth)
+                .upperBound(statistics.mean() + halfWidth)
+                .iterations(statistics.count())
+                .converged(converged)
+                .durationMillis(Duration.ofNanos(System.nanoTime() - startTime).toMillis())
+                .build();
+    }
+
+    /**
+     * Переводит ширину доверительного интервала уровня {@link #CONFIDENCE_LEVEL} в стандартную ошибку.
+     *
+     * @param width полная ширина интервала.
+     * @return соответствующая стандартная ошибка среднего.
+     */
+    public static double standardErrorForConfidenceWidth(double width) {
+        return width / (2 * CONFIDENCE_Z);
+    }
+
+    /**
+     * @return число потоков пула.
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    private double sum(double base, long from, long to, SplittableRandom random) {
+        if (to - from <= leafIterations) {
+            return sumLeaf(base, from, to, random);
+        }
+        long middle = from + (to - from) / 2;
+        SplittableRandom left = random.split();
+        double leftSum = sum(base, from, middle, left);
+        return leftSum + sum(base, middle, to, random);
+    }
+
+    private static double sumLeaf(double base, long from, long to, SplittableRandom random) {
+        double sum = 0;
+        for (long i = from; i < to; i++) {
+            sum += base + VolatilityModel.getRandomVolatility(random);
+        }
+        return sum;
+    }
+
+    private static SampleStatistics sampleChunk(double base, long iterations, SplittableRandom random) {
+        double mean = 0;
+        double m2 = 0;
+        for (long n = 1; n <= iterations; n++) {
+            double volatility = base + VolatilityModel.getRandomVolatility(random);
+            double delta = volatility - mean;
+            mean += delta / n;
+            m2 += delta * (volatility - mean);
+        }
+        return new SampleStatistics(iterations, mean, m2);
+    }
+
+    private static Duration min(Duration first, Duration second) {
+        return first.compareTo(second) <= 0 ? first : second;
+    }
+
+    private static SplittableRandom newRandom(Long seed) {
+        return seed == null ? new SplittableRandom() : new SplittableRandom(seed);
+    }
+
+    private static ForkJoinWorkerThread newWorkerThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("volatility-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    private final class SampleTask extends RecursiveTask<Double> {
+
+        private final double base;
+        private final long from;
+        private final long to;
+        private final SplittableRandom random;
+
+        private SampleTask(double base, long from, long to, SplittableRandom random) {
+            this.base = base;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= leafIterations) {
+                return sumLeaf(base, from, to, random);
+            }
+            long middle = from + (to - from) / 2;
+            SampleTask left = new SampleTask(base, from, middle, random.split());
+            left.fork();
+            double rightSum = new SampleTask(base, middle, to, random).compute();
+            return left.join() + rightSum;
+        }
+
+    }
+
+}
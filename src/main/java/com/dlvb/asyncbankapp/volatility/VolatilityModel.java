@@ -0,0 +1,100 @@
+package com.dlvb.asyncbankapp.volatility;
+
+import java.util.SplittableRandom;
+
+/**
+ * Факторы модели волатильности.
+ * <p>
+ * Все факторы, кроме случайного, зависят только от текущего времени, поэтому их сумма вычисляется один раз на расчёт.
+ * Случайный фактор берётся из переданного {@link SplittableRandom}, чтобы параллельные задачи не делили общий генератор.
+ * @author Matushkin Anton
+ */
+public final class VolatilityModel {
+
+    /**
+     * Число факторов модели.
+     */
+    public static final int FACTOR_COUNT = 7;
+
+    private static final double MOVING_AVERAGE_RATE = 15;
+
+    private VolatilityModel() {
+    }
+
+    /**
+     * Сумма детерминированных факторов для указанного времени.
+     *
+     * @param currentTime текущее время в миллисекундах.
+     * @return сумма всех факторов, кроме случайного.
+     */
+    public static double deterministicVolatility(long currentTime) {
+        return getTrendVolatility(currentTime)
+                + getExponentialVolatility(currentTime)
+                + calculateMovingAverage(MOVING_AVERAGE_RATE)
+                + getCrossCurrencyVolatility()
+                + getSeasonalVolatility()
+                + predictCurrencyRate();
+    }
+
+    /**
+     * Возвращает значение фактора по его номеру.
+     *
+     * @param index номер фактора, от {@code 0} до {@link #FACTOR_COUNT} - 1.
+     * @param currentTime текущее время в миллисекундах.
+     * @param random генератор для случайного фактора.
+     * @return значение фактора.
+     */
+    public static double factor(int index, long currentTime, SplittableRandom random) {
+        return switch (index) {
+            case 0 -> getRandomVolatility(random);
+            case 1 -> getTrendVolatility(currentTime);
+            case 2 -> getExponentialVolatility(currentTime);
+            case 3 -> calculateMovingAverage(MOVING_AVERAGE_RATE);
+            case 4 -> getCrossCurrencyVolatility();
+            case 5 -> getSeasonalVolatility();
+            case 6 -> predictCurrencyRate();
+            default -> throw new IllegalArgumentException("Unknown volatility factor: " + index);
+        };
+    }
+
+    /**
+     * Случайный фактор, равномерно распределённый на {@code [-0.05, 0.05)}.
+     *
+     * @param random генератор, используемый только текущим потоком.
+     * @return значение случайного фактора.
+     */
+    public static double getRandomVolatility(SplittableRandom random) {
+        return random.nextDouble() * 0.1 - 0.05;
+    }
+
+    private static double getTrendVolatility(long currentTime) {
+        return Math.cos(currentTime / 1000.0) * 0.02;
+    }
+
+    private static double getExponentialVolatility(long currentTime) {
+        double factor = currentTime / 10000.0;
+        if (factor > 10) {
+            factor = 10;
+        }
+        return Math.min(Math.exp(factor) * 0.01, 0.1);
+    }
+
+    private static double calculateMovingAverage(double currentRate) {
+        return currentRate * 0.98 + 0.02;
+    }
+
+    private static double getCrossCurrencyVolatility() {
+        double usdRate = 1.1;
+        double eurRate = 1.2;
+        return (usdRate / eurRate) * 0.15;
+    }
+
+    private static double getSeasonalVolatility() {
+        return 0.01;
+    }
+
+    private static double predictCurrencyRate() {
+        return 1.15;
+    }
+
+}
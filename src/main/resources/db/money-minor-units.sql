@@ -0,0 +1,10 @@
+-- Переводит денежные колонки из double precision в bigint с суммами в минорных единицах (копейках).
+-- Выполняется вручную один раз до запуска версии приложения с com.dlvb.asyncbankapp.money.Money:
+-- spring.jpa.hibernate.ddl-auto=update не меняет тип существующих колонок.
+BEGIN;
+
+ALTER TABLE account ALTER COLUMN balance TYPE bigint USING round(balance::numeric * 100)::bigint;
+ALTER TABLE deposit ALTER COLUMN balance TYPE bigint USING round(balance::numeric * 100)::bigint;
+ALTER TABLE transaction ALTER COLUMN amount TYPE bigint USING round(amount::numeric * 100)::bigint;
+
+COMMIT;
@@ -0,0 +1,115 @@
+package com.dlvb.asyncbankapp.benchmark;
+
+import com.dlvb.asyncbankapp.config.AsyncConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение режимов {@link AsyncConfig}: пул из 11 платформенных потоков против виртуальных потоков
+ * на волне из 1 000+ одновременных клиентов.
+ * <p>
+ * Каждый клиент ждёт соединение (семафор размером с пул Hikari), удерживает его {@code dbMillis}
+ * и дополнительно блокируется на {@code ioMillis} вне БД (внешние вызовы, ожидание блокировок).
+ * Очередь пула платформенных потоков вмещает всю волну, чтобы сравнивалась пропускная способность, а не отказы.
+ * @author Matushkin Anton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AsyncExecutorModeBenchmark {
+
+    private static final int PLATFORM_POOL_SIZE = 11;
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    @Param({"1000", "4000"})
+    private int clients;
+
+    @Param({"10"})
+    private int connections;
+
+    @Param({"1"})
+    private long dbMillis;
+
+    @Param({"0", "20"})
+    private long ioMillis;
+
+    private AsyncTaskExecutor executor;
+    private Semaphore connectionPool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = "virtual".equals(mode)
+                ? AsyncConfig.virtualThreadExecutor()
+                : AsyncConfig.platformThreadExecutor(PLATFORM_POOL_SIZE, clients);
+        connectionPool = new Semaphore(connections, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (executor instanceof SimpleAsyncTaskExecutor simple) {
+            simple.close();
+        }
+    }
+
+    @Benchmark
+    public void wave() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[clients];
+        for (int i = 0; i < clients; i++) {
+            futures[i] = CompletableFuture.runAsync(this::handleRequest, executor);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    private void handleRequest() {
+        try {
+            connectionPool.acquire();
+            try {
+                Thread.sleep(dbMillis);
+            } finally {
+                connectionPool.release();
+            }
+            if (ioMillis > 0) {
+                Thread.sleep(ioMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AsyncExecutorModeBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.dlvb.asyncbankapp.benchmark;
+
+import com.dlvb.asyncbankapp.concurrent.AccountLockManager;
+import com.dlvb.asyncbankapp.concurrent.OptimisticRetryTemplate;
+import com.dlvb.asyncbankapp.model.DepositTerms;
+import com.dlvb.asyncbankapp.projection.GrowthFactorTable;
+import com.dlvb.asyncbankapp.projection.PortfolioProjector;
+import com.dlvb.asyncbankapp.repository.AccountRepository;
+import com.dlvb.asyncbankapp.repository.TransactionRepository;
+import com.dlvb.asyncbankapp.service.AccountService;
+import com.dlvb.asyncbankapp.service.IdempotencyService;
+import com.dlvb.asyncbankapp.service.impl.DepositServiceImpl;
+import com.dlvb.asyncbankapp.service.impl.DepositStatisticsCache;
+import com.dlvb.asyncbankapp.service.impl.TransactionBatchProcessor;
+import com.dlvb.asyncbankapp.service.impl.TransactionServiceImpl;
+import com.dlvb.asyncbankapp.volatility.VolatilityEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Сборка сервисов для бенчмарков без Spring-контекста, поверх {@link InMemoryRepositories}.
+ * Свойства из {@code application.yaml}, которые сервисы получают через {@code @Value}, выставляются здесь значениями по умолчанию.
+ * @author Matushkin Anton
+ */
+final class BenchmarkServices {
+
+    private BenchmarkServices() {
+    }
+
+    /**
+     * @param deposits условия депозитов по идентификатору.
+     * @param statisticsCacheSize размер кэша статистики по одному депозиту; {@code 0} — кэш не хранит записей.
+     * @param volatilityEngine движок расчёта волатильности.
+     * @param computeExecutor инициализированный пул вычислительных задач.
+     * @return сервис депозитов.
+     */
+    static DepositServiceImpl depositService(Map<String, DepositTerms> deposits, long statisticsCacheSize,
+                                             VolatilityEngine volatilityEngine, ThreadPoolTaskExecutor computeExecutor) {
+        GrowthFactorTable growthFactorTable = new GrowthFactorTable(10_000);
+        DepositServiceImpl depositService = new DepositServiceImpl(
+                InMemoryRepositories.deposits(deposits),
+                mock(AccountService.class),
+                growthFactorTable,
+                new DepositStatisticsCache(new SimpleMeterRegistry(), statisticsCacheSize, Duration.ofMinutes(10)),
+                new PortfolioProjector(growthFactorTable, true),
+                volatilityEngine,
+                computeExecutor);
+        ReflectionTestUtils.setField(depositService, "lookupChunkSize", 1000);
+        return depositService;
+    }
+
+    /**
+     * @param balances балансы аккаунтов по идентификатору; изменяются переводами.
+     * @param saved счётчик сохранённых транзакций.
+     * @param taskExecutor исполнитель пакетных переводов.
+     * @return сервис транзакций.
+     */
+    static TransactionServiceImpl transactionService(Map<String, AtomicLong> balances, AtomicLong saved, Executor taskExecutor) {
+        AccountRepository accountRepository = InMemoryRepositories.accounts(balances);
+        TransactionRepository transactionRepository = InMemoryRepositories.transactions(saved);
+        TransactionServiceImpl transactionService = new TransactionServiceImpl(
+                accountRepository,
+                transactionRepository,
+                new AccountLockManager(4096, 100),
+                new TransactionBatchProcessor(accountRepository, transactionRepository, mock(IdempotencyService.class), 1000, false),
+                new OptimisticRetryTemplate(new SimpleMeterRegistry(), 5, 10, 200),
+                taskExecutor);
+        ReflectionTestUtils.setField(transactionService, "parallelism", 10);
+        return transactionService;
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.dlvb.asyncbankapp.benchmark;
+
+import com.dlvb.asyncbankapp.money.Money;
+import com.dlvb.asyncbankapp.projection.GrowthFactorTable;
+import com.dlvb.asyncbankapp.projection.GrowthFactors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение расчёта статистики депозитов: {@link Math#pow} в каждом сценарии (как было)
+ * против {@link GrowthFactors}, вычисленных один раз на пару (ставка, число лет) и взятых из {@link GrowthFactorTable}.
+ * Один вызов рассчитывает все 10 сценариев статистики для {@code deposits} депозитов с {@code distinctRates} ставками.
+ * @author Matushkin Anton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DepositProjectionBenchmark {
+
+    private static final double[] OPERATION_PERCENTAGE = {0.05, 0.1, 0.15, 0.2};
+    private static final double[] WITHDRAW_PERCENTAGES = {0.025, 0.05, 0.1, 0.15};
+    private static final double REQUESTED_RATE = 10;
+
+    @Param({"10000"})
+    private int deposits;
+
+    @Param({"8"})
+    private int distinctRates;
+
+    @Param({"30"})
+    private int years;
+
+    private long[] balances;
+    private double[] rates;
+    private GrowthFactorTable growthFactorTable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        balances = new long[deposits];
+        rates = new double[deposits];
+        for (int i = 0; i < deposits; i++) {
+            balances[i] = random.nextLong(10_000, 100_000_000);
+            rates[i] = 3 + random.nextInt(distinctRates) * 0.5;
+        }
+        growthFactorTable = new GrowthFactorTable(10_000);
+    }
+
+    @Benchmark
+    public void powPerScenario(Blackhole blackhole) {
+        for (int d = 0; d < deposits; d++) {
+            long balance = balances[d];
+            double rate = rates[d];
+            blackhole.consume(Money.round(compound(balance, REQUESTED_RATE, years)));
+            blackhole.consume(Money.round(compound(balance, rate, years)));
+            for (double percentage : OPERATION_PERCENTAGE) {
+                long topUp = Money.multiply(balance, percentage);
+                blackhole.consume(Money.round(topUp * ratio(rate, years) + compound(balance, rate, years)));
+            }
+            for (int i = 0; i < OPERATION_PERCENTAGE.length; i++) {
+                long topUp = Money.multiply(balance, OPERATION_PERCENTAGE[i]);
+                long withdraw = -Money.multiply(balance, WITHDRAW_PERCENTAGES[i]);
+                blackhole.consume(Money.round(compound(balance, rate, years) + ratio(rate, years) * Money.subtract(topUp, withdraw)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void growthFactorTable(Blackhole blackhole) {
+        GrowthFactors byRate = growthFactorTable.get(REQUESTED_RATE, years);
+        for (int d = 0; d < deposits; d++) {
+            long balance = balances[d];
+            GrowthFactors actual = growthFactorTable.get(rates[d], years);
+            blackhole.consume(byRate.balance(balance));
+            blackhole.consume(actual.balance(balance));
+            for (double percentage : OPERATION_PERCENTAGE) {
+                blackhole.consume(actual.balanceWithOperation(balance, Money.multiply(balance, percentage)));
+            }
+            for (int i = 0; i < OPERATION_PERCENTAGE.length; i++) {
+                long topUp = Money.multiply(balance, OPERATION_PERCENTAGE[i]);
+                long withdraw = -Money.multiply(balance, WITHDRAW_PERCENTAGES[i]);
+                blackhole.consume(actual.balanceWithTopUpsAndWithdraw(balance, topUp, withdraw));
+            }
+        }
+    }
+
+    private static double compound(long balance, double rateInPercents, double time) {
+        return balance * Math.pow((1 + 0.01 * rateInPercents), time);
+    }
+
+    private static double ratio(double rateInPercents, double time) {
+        return (Math.pow(1 + 0.01 * rateInPercents, time) - 1) / (0.01 * rateInPercents);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DepositProjectionBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
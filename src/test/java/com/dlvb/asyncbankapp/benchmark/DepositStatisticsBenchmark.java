@@ -0,0 +1,118 @@
+package com.dlvb.asyncbankapp.benchmark;
+
+import com.dlvb.asyncbankapp.config.AsyncConfig;
+import com.dlvb.asyncbankapp.model.DepositTerms;
+import com.dlvb.asyncbankapp.service.DepositService;
+import com.dlvb.asyncbankapp.volatility.VolatilityEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расчёт и форматирование статистики депозитов через {@link DepositService} поверх репозитория в памяти:
+ * по списку депозитов (последовательно и частями в {@code computeExecutor}) и по одному депозиту с кэшем и без.
+ * Время БД не входит в измерение, поэтому результат показывает стоимость проекции, форматирования сумм и сборки ответа.
+ * @author Matushkin Anton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class DepositStatisticsBenchmark {
+
+    private static final double REQUESTED_RATE = 10;
+
+    @Param({"10000"})
+    private int deposits;
+
+    @Param({"8"})
+    private int distinctRates;
+
+    private final LocalDate date = LocalDate.now().plusYears(10);
+
+    private VolatilityEngine volatilityEngine;
+    private ThreadPoolTaskExecutor computeExecutor;
+    private DepositService depositService;
+    private DepositService uncachedDepositService;
+    private List<String> depositIds;
+    private String singleDepositId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        Map<String, DepositTerms> terms = new HashMap<>(deposits * 2);
+        depositIds = new ArrayList<>(deposits);
+        for (int i = 0; i < deposits; i++) {
+            String id = UUID.randomUUID().toString();
+            terms.put(id, new DepositTerms(id, random.nextLong(10_000, 100_000_000), 3 + random.nextInt(distinctRates) * 0.5));
+            depositIds.add(id);
+        }
+        singleDepositId = depositIds.get(0);
+
+        volatilityEngine = new VolatilityEngine(1, 262_144, 16_384, Duration.ofSeconds(30));
+        computeExecutor = new AsyncConfig().computeExecutor(0, 1000, 30);
+        computeExecutor.initialize();
+        depositService = BenchmarkServices.depositService(terms, 10_000, volatilityEngine, computeExecutor);
+        uncachedDepositService = BenchmarkServices.depositService(terms, 0, volatilityEngine, computeExecutor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        computeExecutor.shutdown();
+        volatilityEngine.destroy();
+    }
+
+    @Benchmark
+    public Map<String, Map<String, String>> multipleDeposits() {
+        return depositService.getCalculationsByDateAndRateForMultipleAccounts(date, REQUESTED_RATE, depositIds);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, String>> multipleDepositsAsync() {
+        return depositService.getCalculationsByDateAndRateForMultipleAccountsAsync(date, REQUESTED_RATE, depositIds);
+    }
+
+    @Benchmark
+    public Map<String, String> singleDepositCached() {
+        return depositService.getCalculationsByDateAndRate(date, REQUESTED_RATE, singleDepositId);
+    }
+
+    @Benchmark
+    public Map<String, String> singleDepositUncached() {
+        return uncachedDepositService.getCalculationsByDateAndRate(date, REQUESTED_RATE, singleDepositId);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DepositStatisticsBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
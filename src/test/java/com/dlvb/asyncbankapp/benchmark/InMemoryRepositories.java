@@ -0,0 +1,131 @@
+package com.dlvb.asyncbankapp.benchmark;
+
+import com.dlvb.asyncbankapp.model.Account;
+import com.dlvb.asyncbankapp.model.Deposit;
+import com.dlvb.asyncbankapp.model.DepositTerms;
+import com.dlvb.asyncbankapp.repository.AccountRepository;
+import com.dlvb.asyncbankapp.repository.DepositRepository;
+import com.dlvb.asyncbankapp.repository.TransactionRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Репозитории в памяти для бенчмарков сервисов без БД.
+ * <p>
+ * Поддерживаются только методы, которые вызывают измеряемые пути; остальные бросают {@link UnsupportedOperationException},
+ * чтобы бенчмарк не измерял незаметно пустую заглушку.
+ * @author Matushkin Anton
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    /**
+     * @param balances балансы аккаунтов по идентификатору; изменяются переводами.
+     * @return репозиторий аккаунтов с условным списанием и зачислением, как в {@link AccountRepository}.
+     */
+    static AccountRepository accounts(Map<String, AtomicLong> balances) {
+        return repository(AccountRepository.class, (method, args) -> switch (method) {
+            case "debitIfSufficient" -> debitIfSufficient(balances.get((String) args[0]), (long) args[1]);
+            case "credit" -> credit(balances.get((String) args[0]), (long) args[1]);
+            case "lockById" -> Optional.ofNullable(balances.containsKey((String) args[0]) ? (String) args[0] : null);
+            case "existsById" -> balances.containsKey((String) args[0]);
+            case "getReferenceById" -> Account.builder().id((String) args[0]).build();
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    /**
+     * @param saved счётчик сохранённых транзакций.
+     * @return репозиторий транзакций, который только считает сохранения.
+     */
+    static TransactionRepository transactions(AtomicLong saved) {
+        return repository(TransactionRepository.class, (method, args) -> switch (method) {
+            case "save" -> {
+                saved.incrementAndGet();
+                yield args[0];
+            }
+            case "count" -> saved.get();
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    /**
+     * @param deposits условия депозитов по идентификатору.
+     * @return репозиторий депозитов с поиском по идентификатору и пакетной загрузкой условий.
+     */
+    static DepositRepository deposits(Map<String, DepositTerms> deposits) {
+        return repository(DepositRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(deposits.get((String) args[0])).map(InMemoryRepositories::toDeposit);
+            case "findTermsByIdIn" -> findTerms(deposits, (Collection<?>) args[0]);
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static int debitIfSufficient(AtomicLong balance, long amount) {
+        if (balance == null) {
+            return 0;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current < amount) {
+                return 0;
+            }
+        } while (!balance.compareAndSet(current, current - amount));
+        return 1;
+    }
+
+    private static int credit(AtomicLong balance, long amount) {
+        if (balance == null) {
+            return 0;
+        }
+        balance.addAndGet(amount);
+        return 1;
+    }
+
+    private static List<DepositTerms> findTerms(Map<String, DepositTerms> deposits, Collection<?> ids) {
+        List<DepositTerms> terms = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            DepositTerms depositTerms = deposits.get((String) id);
+            if (depositTerms != null) {
+                terms.add(depositTerms);
+            }
+        }
+        return terms;
+    }
+
+    private static Deposit toDeposit(DepositTerms terms) {
+        return Deposit.builder()
+                .id(terms.id())
+                .balance(terms.balance())
+                .rate(terms.rate())
+                .version(0L)
+                .build();
+    }
+
+    private static <T> T repository(Class<T> type, Handler handler) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> switch (method.getName()) {
+            case "equals" -> self == args[0];
+            case "hashCode" -> System.identityHashCode(self);
+            case "toString" -> "InMemory" + type.getSimpleName();
+            default -> handler.handle(method.getName(), args);
+        });
+        return type.cast(proxy);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        Object handle(String method, Object[] args);
+
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.dlvb.asyncbankapp.benchmark;
+
+import com.dlvb.asyncbankapp.ledger.LedgerEngine;
+import com.dlvb.asyncbankapp.ledger.LedgerStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Пропускная способность реестра переводов {@link LedgerEngine}: перевод применяется потоком шарда
+ * и подтверждается после записи в журнал во временном каталоге. Запись в БД заменена заглушкой.
+ * Каждый вызов передаёт {@code BATCH} переводов между случайными аккаунтами и дожидается их подтверждения;
+ * результат приведён к одному переводу.
+ * @author Matushkin Anton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class LedgerTransferBenchmark {
+
+    private static final int BATCH = 1000;
+    private static final long INITIAL_BALANCE = 1_000_000_000L;
+
+    @Param({"10000"})
+    private int accounts;
+
+    @Param({"4"})
+    private int shards;
+
+    @Param({"true", "false"})
+    private boolean fsync;
+
+    private Path journalDirectory;
+    private LedgerEngine ledgerEngine;
+    private String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        accountIds = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = UUID.randomUUID().toString();
+        }
+        LedgerStore ledgerStore = mock(LedgerStore.class);
+        when(ledgerStore.loadCheckpoints()).thenReturn(Map.of());
+        when(ledgerStore.loadBalance(anyString())).thenReturn(Optional.of(INITIAL_BALANCE));
+
+        journalDirectory = Files.createTempDirectory("ledger-benchmark");
+        ledgerEngine = new LedgerEngine(ledgerStore, new SimpleMeterRegistry(), journalDirectory, shards, fsync,
+                DataSize.ofMegabytes(64), 100_000, 4096, 10_000, Duration.ofSeconds(1), 10, 100_000, Duration.ofHours(1));
+        ledgerEngine.afterPropertiesSet();
+        for (String accountId : accountIds) {
+            ledgerEngine.load(accountId);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException, IOException {
+        ledgerEngine.destroy();
+        FileSystemUtils.deleteRecursively(journalDirectory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CompletableFuture<?>[] transfers = new CompletableFuture<?>[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            int from = random.nextInt(accounts);
+            int to = random.nextInt(accounts - 1);
+            transfers[i] = ledgerEngine.transfer(accountIds[from], accountIds[to >= from ? to + 1 : to], 1, null);
+        }
+        CompletableFuture.allOf(transfers).join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LedgerTransferBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.dlvb.asyncbankapp.benchmark;
+
+import com.dlvb.asyncbankapp.money.Money;
+import com.dlvb.asyncbankapp.projection.GrowthFactorTable;
+import com.dlvb.asyncbankapp.projection.GrowthFactors;
+import com.dlvb.asyncbankapp.projection.PortfolioProjector;
+import com.dlvb.asyncbankapp.projection.ProjectionScenarios;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проекция портфеля из {@code deposits} депозитов по всем 10 сценариям статистики:
+ * по одному депозиту с упаковкой результатов в {@code Map<String, Long>} (как было)
+ * против {@link PortfolioProjector} по массивам балансов и ставок со скалярным и векторным ядром.
+ * @author Matushkin Anton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class PortfolioProjectionBenchmark {
+
+    private static final double[] OPERATION_PERCENTAGE = {0.05, 0.1, 0.15, 0.2};
+    private static final double[] WITHDRAW_PERCENTAGES = {0.025, 0.05, 0.1, 0.15};
+    private static final ProjectionScenarios SCENARIOS = new ProjectionScenarios(OPERATION_PERCENTAGE, OPERATION_PERCENTAGE,
+            WITHDRAW_PERCENTAGES);
+    private static final double REQUESTED_RATE = 10;
+
+    @Param({"1000000"})
+    private int deposits;
+
+    @Param({"30"})
+    private int years;
+
+    private long[] balances;
+    private double[] rates;
+    private GrowthFactorTable growthFactorTable;
+    private PortfolioProjector scalar;
+    private PortfolioProjector vector;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        balances = new long[deposits];
+        rates = new double[deposits];
+        for (int i = 0; i < deposits; i++) {
+            balances[i] = random.nextLong(10_000, 100_000_000);
+            rates[i] = 3 + random.nextInt(8) * 0.5;
+        }
+        growthFactorTable = new GrowthFactorTable(10_000);
+        scalar = new PortfolioProjector(growthFactorTable, false);
+        vector = new PortfolioProjector(growthFactorTable, true);
+    }
+
+    @Benchmark
+    public Object perDepositMaps() {
+        GrowthFactors byRate = growthFactorTable.get(REQUESTED_RATE, years);
+        Map<Integer, Map<String, Long>> projections = new HashMap<>(deposits * 2);
+        for (int d = 0; d < deposits; d++) {
+            long balance = balances[d];
+            GrowthFactors actual = growthFactorTable.get(rates[d], years);
+            Map<String, Long> projection = new HashMap<>();
+            projection.put("balance_by_rate", byRate.balance(balance));
+            projection.put("balance_with_actual_rate", actual.balance(balance));
+            for (int i = 0; i < OPERATION_PERCENTAGE.length; i++) {
+                projection.put("top_up_" + i, actual.balanceWithOperation(balance, Money.multiply(balance, OPERATION_PERCENTAGE[i])));
+            }
+            for (int i = 0; i < OPERATION_PERCENTAGE.length; i++) {
+                long topUp = Money.multiply(balance, OPERATION_PERCENTAGE[i]);
+                long withdraw = -Money.multiply(balance, WITHDRAW_PERCENTAGES[i]);
+                projection.put("top_up_and_withdraw_" + i, actual.balanceWithTopUpsAndWithdraw(balance, topUp, withdraw));
+            }
+            projections.put(d, projection);
+        }
+        return projections;
+    }
+
+    @Benchmark
+    public Object scalarKernel() {
+        return scalar.project(balances, rates, REQUESTED_RATE, years, SCENARIOS);
+    }
+
+    @Benchmark
+    public Object vectorKernel() {
+        return vector.project(balances, rates, REQUESTED_RATE, years, SCENARIOS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PortfolioProjectionBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
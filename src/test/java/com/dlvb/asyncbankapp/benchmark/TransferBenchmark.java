@@ -0,0 +1,90 @@
+package com.dlvb.asyncbankapp.benchmark;
+
+import com.dlvb.asyncbankapp.model.Transaction;
+import com.dlvb.asyncbankapp.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Логика переводов {@link TransactionService} поверх репозиториев в памяти: перевод условными списанием и зачислением
+ * и перевод под блокировками аккаунтов, на {@code accounts} аккаунтах и 8 одновременных отправителях.
+ * Без БД измеряются упорядочивание операций, блокировки и создание транзакции.
+ * @author Matushkin Anton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class TransferBenchmark {
+
+    private static final long INITIAL_BALANCE = 1_000_000_000L;
+
+    @Param({"10000"})
+    private int accounts;
+
+    private TransactionService transactionService;
+    private String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, AtomicLong> balances = new ConcurrentHashMap<>(accounts * 2);
+        accountIds = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = UUID.randomUUID().toString();
+            balances.put(accountIds[i], new AtomicLong(INITIAL_BALANCE));
+        }
+        transactionService = BenchmarkServices.transactionService(balances, new AtomicLong(), Runnable::run);
+    }
+
+    @Benchmark
+    public CompletableFuture<Transaction> processTransaction() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accounts);
+        return transactionService.processTransaction(accountIds[from], accountIds[other(random, from)], 1);
+    }
+
+    @Benchmark
+    public void safeLockTransfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accounts);
+        transactionService.safeLockTransfer(accountIds[from], accountIds[other(random, from)], 1);
+    }
+
+    private int other(ThreadLocalRandom random, int from) {
+        int to = random.nextInt(accounts - 1);
+        return to >= from ? to + 1 : to;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransferBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
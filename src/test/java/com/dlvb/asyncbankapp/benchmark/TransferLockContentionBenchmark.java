@@ -0,0 +1,126 @@
+package com.dlvb.asyncbankapp.benchmark;
+
+import com.dlvb.asyncbankapp.concurrent.AccountLockManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Сравнение старой схемы блокировок {@code safeLockTransfer} (две общие блокировки на сервис)
+ * с {@link AccountLockManager} на 10 000 аккаунтов и 64 одновременных отправителях.
+ * Работа с БД внутри критической секции имитируется через {@link Blackhole#consumeCPU(long)}.
+ * @author Matushkin Anton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class TransferLockContentionBenchmark {
+
+    private static final int ACCOUNT_COUNT = 10_000;
+
+    @Param({"global", "striped"})
+    private String locking;
+
+    @Param({"500"})
+    private long criticalSectionTokens;
+
+    private final Lock lock1 = new ReentrantLock();
+    private final Lock lock2 = new ReentrantLock();
+
+    private AccountLockManager accountLockManager;
+    private String[] accountIds;
+    private long[] balances;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountLockManager = new AccountLockManager(4096, Long.MAX_VALUE);
+        accountIds = new String[ACCOUNT_COUNT];
+        balances = new long[ACCOUNT_COUNT];
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            accountIds[i] = UUID.randomUUID().toString();
+            balances[i] = 1_000_000;
+        }
+    }
+
+    @Benchmark
+    public boolean transfer() throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(ACCOUNT_COUNT);
+        int to = random.nextInt(ACCOUNT_COUNT - 1);
+        if (to >= from) {
+            to++;
+        }
+        return "global".equals(locking) ? globalLockTransfer(from, to) : stripedLockTransfer(from, to);
+    }
+
+    private boolean globalLockTransfer(int from, int to) throws InterruptedException {
+        boolean acquiredLock1 = false;
+        boolean acquiredLock2 = false;
+        try {
+            acquiredLock1 = lock1.tryLock(1, TimeUnit.SECONDS);
+            acquiredLock2 = lock2.tryLock(1, TimeUnit.SECONDS);
+            if (acquiredLock1 && acquiredLock2) {
+                move(from, to);
+                return true;
+            }
+            return false;
+        } finally {
+            if (acquiredLock1) {
+                lock1.unlock();
+            }
+            if (acquiredLock2) {
+                lock2.unlock();
+            }
+        }
+    }
+
+    private boolean stripedLockTransfer(int from, int to) throws InterruptedException {
+        if (!accountLockManager.tryLock(accountIds[from], accountIds[to], 1, TimeUnit.SECONDS)) {
+            return false;
+        }
+        try {
+            move(from, to);
+            return true;
+        } finally {
+            accountLockManager.unlock(accountIds[from], accountIds[to]);
+        }
+    }
+
+    private void move(int from, int to) {
+        Blackhole.consumeCPU(criticalSectionTokens);
+        balances[from] -= 1;
+        balances[to] += 1;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransferLockContentionBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.dlvb.asyncbankapp.benchmark;
+
+import com.dlvb.asyncbankapp.config.AsyncConfig;
+import com.dlvb.asyncbankapp.dto.VolatilityEstimate;
+import com.dlvb.asyncbankapp.service.DepositService;
+import com.dlvb.asyncbankapp.volatility.VolatilityEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Варианты расчёта волатильности через {@link DepositService}: последовательный, fork/join, адаптивный
+ * с целевой стандартной ошибкой и вариант с задачами по факторам в {@code computeExecutor}.
+ * Зерно фиксировано, чтобы все прогоны выполняли одинаковую работу.
+ * @author Matushkin Anton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VolatilityBenchmark {
+
+    private static final long CURRENT_TIME = 1_700_000_000_000L;
+    private static final long SEED = 42;
+
+    @Param({"1000000"})
+    private int iterations;
+
+    @Param({"0.0001"})
+    private double targetStandardError;
+
+    private VolatilityEngine volatilityEngine;
+    private ThreadPoolTaskExecutor computeExecutor;
+    private DepositService depositService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        volatilityEngine = new VolatilityEngine(0, 262_144, 16_384, Duration.ofSeconds(30));
+        computeExecutor = new AsyncConfig().computeExecutor(0, 1000, 30);
+        computeExecutor.initialize();
+        depositService = BenchmarkServices.depositService(Map.of(), 0, volatilityEngine, computeExecutor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        computeExecutor.shutdown();
+        volatilityEngine.destroy();
+    }
+
+    @Benchmark
+    public double sequential() throws ExecutionException {
+        return depositService.calculateVolatility(CURRENT_TIME, iterations, SEED);
+    }
+
+    @Benchmark
+    public double forkJoin() throws ExecutionException {
+        return depositService.calculateVolatilityFuture(CURRENT_TIME, iterations, SEED);
+    }
+
+    @Benchmark
+    public VolatilityEstimate adaptive() throws ExecutionException {
+        return depositService.estimateVolatility(CURRENT_TIME, targetStandardError, Duration.ofSeconds(30), SEED);
+    }
+
+    @Benchmark
+    public double runnable() {
+        return depositService.calculateVolatilityWithRunnable(CURRENT_TIME, iterations);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VolatilityBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
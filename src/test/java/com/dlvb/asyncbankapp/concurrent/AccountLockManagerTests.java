@@ -0,0 +1,81 @@
+package com.dlvb.asyncbankapp.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountLockManagerTests {
+
+    @Test
+    void testTryLockInOppositeOrderDoesNotDeadlock() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(16, 100);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        int rounds = 10_000;
+
+        Future<Integer> forward = executor.submit(() -> lockAndCount(lockManager, "account1", "account2", rounds));
+        Future<Integer> backward = executor.submit(() -> lockAndCount(lockManager, "account2", "account1", rounds));
+
+        assertEquals(rounds, forward.get(10, TimeUnit.SECONDS));
+        assertEquals(rounds, backward.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    void testTryLockForSameStripeIsReleasedCompletely() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(1, 100);
+
+        assertTrue(lockManager.tryLock("account1", "account2", 1, TimeUnit.SECONDS));
+        lockManager.unlock("account1", "account2");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> other = executor.submit(() -> lockManager.tryLock("account3", "account4", 1, TimeUnit.SECONDS));
+        assertTrue(other.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    void testTryLockTimesOutWhenAccountIsHeld() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(16, 100);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        executor.submit(() -> {
+            lockManager.tryLock("account1", "account2", 1, TimeUnit.SECONDS);
+            locked.countDown();
+            release.await();
+            lockManager.unlock("account1", "account2");
+            return null;
+        });
+        locked.await();
+
+        assertFalse(lockManager.tryLock("account2", "account1", 50, TimeUnit.MILLISECONDS));
+        release.countDown();
+        executor.shutdown();
+
+        AccountLockManager.LockWaitStatistics statistics = lockManager.getWaitStatistics();
+        assertEquals(1, statistics.acquisitions());
+        assertEquals(1, statistics.timeouts());
+        assertTrue(statistics.maxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    private int lockAndCount(AccountLockManager lockManager, String from, String to, int rounds) throws InterruptedException {
+        int acquired = 0;
+        for (int i = 0; i < rounds; i++) {
+            if (lockManager.tryLock(from, to, 1, TimeUnit.SECONDS)) {
+                acquired++;
+                lockManager.unlock(from, to);
+            }
+        }
+        return acquired;
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.dlvb.asyncbankapp.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class AdmissionControlTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AdmissionControl admissionControl = new AdmissionControl(meterRegistry, false, 2, 8, 10, 4, 1,
+            Duration.ofMillis(10), Duration.ofSeconds(5));
+
+    @Test
+    void testAdmitShedsBulkRequestsBeforeSingleOnes() {
+        for (int i = 0; i < 6; i++) {
+            admissionControl.decorate(() -> { });
+        }
+
+        assertThrows(OverloadedException.class, () -> admissionControl.admit(100));
+        assertDoesNotThrow(() -> admissionControl.admit(1));
+
+        for (int i = 0; i < 4; i++) {
+            admissionControl.decorate(() -> { });
+        }
+
+        assertThrows(OverloadedException.class, () -> admissionControl.admit(1));
+        assertEquals(1, meterRegistry.counter("bank.admission.rejected", "priority", "bulk").count());
+        assertEquals(1, meterRegistry.counter("bank.admission.rejected", "priority", "single").count());
+    }
+
+    @Test
+    void testAdmitUsesEstimatedQueueTimeForRetryAfter() {
+        admissionControl.decorate(() -> sleep(30)).run();
+        for (int i = 0; i < 4; i++) {
+            admissionControl.decorate(() -> { });
+        }
+
+        assertTrue(admissionControl.estimatedWait().toMillis() >= 30);
+        OverloadedException e = assertThrows(OverloadedException.class, () -> admissionControl.admit(2));
+        assertEquals(Duration.ofSeconds(1), e.getRetryAfter());
+        assertDoesNotThrow(() -> admissionControl.admit(1));
+    }
+
+    @Test
+    void testTaskRecordsWaitAndRunTime() {
+        Runnable task = admissionControl.decorate(() -> sleep(20));
+        sleep(10);
+
+        task.run();
+
+        assertEquals(1, meterRegistry.timer("bank.async.task.wait").count());
+        assertEquals(1, meterRegistry.timer("bank.async.task.run").count());
+        assertTrue(meterRegistry.timer("bank.async.task.wait").totalTime(TimeUnit.MILLISECONDS) >= 10);
+        assertTrue(meterRegistry.timer("bank.async.task.run").totalTime(TimeUnit.MILLISECONDS) >= 20);
+        assertEquals(0, admissionControl.inFlight());
+    }
+
+    @Test
+    void testRejectedExecutionReleasesSlot() {
+        Runnable task = admissionControl.decorate(() -> { });
+        for (int i = 0; i < 5; i++) {
+            admissionControl.decorate(() -> { });
+        }
+        assertThrows(OverloadedException.class, () -> admissionControl.admit(2));
+
+        assertThrows(RejectedExecutionException.class,
+                () -> admissionControl.rejectedExecution(task, mock(ThreadPoolExecutor.class)));
+
+        assertDoesNotThrow(() -> admissionControl.admit(2));
+    }
+
+    @Test
+    void testReserveHoldsSlotsForAllTasksUntilClosed() {
+        AdmissionControl.Reservation reservation = admissionControl.reserve(5, 4);
+
+        assertEquals(4, admissionControl.inFlight());
+        assertThrows(OverloadedException.class, () -> admissionControl.reserve(5, 3));
+        assertDoesNotThrow(() -> admissionControl.reserve(5, 2).close());
+
+        reservation.close();
+        reservation.close();
+
+        assertEquals(0, admissionControl.inFlight());
+        assertDoesNotThrow(() -> admissionControl.reserve(5, 6).close());
+    }
+
+    @Test
+    void testConcurrentReservationsNeverExceedCapacity() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> admitted = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            admitted.add(executorService.submit(() -> {
+                start.await();
+                try {
+                    admissionControl.reserve(5, 1);
+                    return true;
+                } catch (OverloadedException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int count = 0;
+        for (Future<Boolean> future : admitted) {
+            count += future.get(5, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executorService.shutdown();
+
+        assertEquals(6, count);
+        assertEquals(6, admissionControl.inFlight());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
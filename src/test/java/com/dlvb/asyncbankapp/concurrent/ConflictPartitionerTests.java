@@ -0,0 +1,72 @@
+package com.dlvb.asyncbankapp.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConflictPartitionerTests {
+
+    private record Transfer(String from, String to) {
+    }
+
+    @Test
+    void testPartitionGroupsTransfersSharingAccountsTransitively() {
+        List<Transfer> transfers = List.of(
+                new Transfer("a", "b"),
+                new Transfer("c", "d"),
+                new Transfer("b", "e"),
+                new Transfer("f", "g"),
+                new Transfer("e", "a"),
+                new Transfer("d", "h"));
+
+        List<int[]> groups = ConflictPartitioner.partition(transfers, Transfer::from, Transfer::to);
+
+        assertEquals(3, groups.size());
+        assertArrayEquals(new int[]{0, 2, 4}, groups.get(0));
+        assertArrayEquals(new int[]{1, 5}, groups.get(1));
+        assertArrayEquals(new int[]{3}, groups.get(2));
+    }
+
+    @Test
+    void testPartitionIgnoresNullResources() {
+        List<Transfer> transfers = List.of(new Transfer("a", null), new Transfer("b", null));
+
+        List<int[]> groups = ConflictPartitioner.partition(transfers, Transfer::from, Transfer::to);
+
+        assertEquals(2, groups.size());
+    }
+
+    @Test
+    void testPackBalancesBucketsAndKeepsGroupOrder() {
+        List<Transfer> transfers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            transfers.add(new Transfer("from" + i, "to" + i));
+            transfers.add(new Transfer("to" + i, "from" + i));
+        }
+        List<int[]> groups = ConflictPartitioner.partition(transfers, Transfer::from, Transfer::to);
+
+        List<int[]> buckets = ConflictPartitioner.pack(groups, 4);
+
+        assertEquals(4, buckets.size());
+        for (int[] bucket : buckets) {
+            assertEquals(50, bucket.length);
+            for (int i = 0; i < bucket.length; i += 2) {
+                assertEquals(bucket[i] + 1, bucket[i + 1]);
+            }
+        }
+    }
+
+    @Test
+    void testPackNeverCreatesMoreBucketsThanGroups() {
+        List<int[]> buckets = ConflictPartitioner.pack(List.of(new int[]{0, 1}, new int[]{2}), 10);
+
+        assertEquals(2, buckets.size());
+        assertTrue(ConflictPartitioner.pack(List.of(), 10).isEmpty());
+    }
+
+}
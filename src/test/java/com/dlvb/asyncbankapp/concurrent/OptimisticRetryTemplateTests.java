@@ -0,0 +1,73 @@
+package com.dlvb.asyncbankapp.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OptimisticRetryTemplateTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final OptimisticRetryTemplate retryTemplate = new OptimisticRetryTemplate(meterRegistry, 3, 1, 5);
+
+    @Test
+    void testExecuteRetriesOptimisticLockFailuresUntilSuccess() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryTemplate.execute("test", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Account", "id");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, meterRegistry.counter("bank.optimistic.lock.retries", "operation", "test").count());
+    }
+
+    @Test
+    void testExecuteGivesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> retryTemplate.run("test", () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("Account", "id");
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(1, meterRegistry.counter("bank.optimistic.lock.exhausted", "operation", "test").count());
+    }
+
+    @Test
+    void testExecuteRunsFallbackOnLastAttempt() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryTemplate.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("Account", "id");
+        }, () -> "locked");
+
+        assertEquals("locked", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1, meterRegistry.counter("bank.optimistic.lock.fallbacks", "operation", "test").count());
+    }
+
+    @Test
+    void testExecuteDoesNotRetryOtherFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> retryTemplate.run("test", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.dlvb.asyncbankapp.config;
+
+import com.dlvb.asyncbankapp.projection.GrowthFactorTable;
+import com.dlvb.asyncbankapp.projection.PortfolioProjector;
+import com.dlvb.asyncbankapp.repository.DepositRepository;
+import com.dlvb.asyncbankapp.service.AccountService;
+import com.dlvb.asyncbankapp.service.impl.DepositServiceImpl;
+import com.dlvb.asyncbankapp.service.impl.DepositStatisticsCache;
+import com.dlvb.asyncbankapp.volatility.VolatilityEngine;
+import com.dlvb.asyncbankapp.volatility.VolatilityModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class AsyncConfigTests {
+
+    private final AsyncConfig asyncConfig = new AsyncConfig();
+
+    private ThreadPoolTaskExecutor computeExecutor;
+
+    @AfterEach
+    void tearDown() {
+        if (computeExecutor != null) {
+            computeExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void testComputeExecutorRunsTaskOnCallerWhenSaturated() throws InterruptedException {
+        computeExecutor = asyncConfig.computeExecutor(1, 1, 1);
+        computeExecutor.initialize();
+        CountDownLatch workerStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        computeExecutor.execute(() -> {
+            workerStarted.countDown();
+            awaitQuietly(release);
+        });
+        assertTrue(workerStarted.await(5, TimeUnit.SECONDS));
+        computeExecutor.execute(() -> { });
+
+        AtomicReference<Thread> runner = new AtomicReference<>();
+        computeExecutor.execute(() -> runner.set(Thread.currentThread()));
+        release.countDown();
+
+        assertSame(Thread.currentThread(), runner.get());
+    }
+
+    @Test
+    void testRequestParallelismIsCappedByConfiguredLimit() {
+        AtomicInteger submitted = new AtomicInteger();
+        computeExecutor = asyncConfig.computeExecutor(4, 100, 1);
+        computeExecutor.setTaskDecorator(task -> {
+            submitted.incrementAndGet();
+            return task;
+        });
+        computeExecutor.initialize();
+        DepositServiceImpl depositService = depositService(computeExecutor);
+
+        ReflectionTestUtils.setField(depositService, "maxParallelismPerRequest", 2);
+        depositService.calculateVolatilityWithRunnable(System.currentTimeMillis(), 1);
+        assertEquals(2, submitted.getAndSet(0));
+
+        ReflectionTestUtils.setField(depositService, "maxParallelismPerRequest", 0);
+        depositService.calculateVolatilityWithRunnable(System.currentTimeMillis(), 1);
+        assertEquals(Math.min(4, VolatilityModel.FACTOR_COUNT), submitted.get());
+    }
+
+    private static DepositServiceImpl depositService(ThreadPoolTaskExecutor computeExecutor) {
+        return new DepositServiceImpl(
+                mock(DepositRepository.class),
+                mock(AccountService.class),
+                mock(GrowthFactorTable.class),
+                mock(DepositStatisticsCache.class),
+                mock(PortfolioProjector.class),
+                mock(VolatilityEngine.class),
+                computeExecutor);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -1,30 +1,44 @@
 package com.dlvb.asyncbankapp.controller;
 
+import com.dlvb.asyncbankapp.concurrent.AdmissionControl;
 import com.dlvb.asyncbankapp.dto.BalanceUpdateRequest;
+import com.dlvb.asyncbankapp.dto.BalanceUpdateResult;
 import com.dlvb.asyncbankapp.dto.CreateAccountDTO;
+import com.dlvb.asyncbankapp.job.BatchJob;
+import com.dlvb.asyncbankapp.job.JobRegistry;
 import com.dlvb.asyncbankapp.model.Account;
 import com.dlvb.asyncbankapp.service.AccountService;
+import com.dlvb.asyncbankapp.service.BatchProgressListener;
+import com.dlvb.asyncbankapp.service.IngestService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +49,15 @@ class AccountControllerTests {
     @Mock
     private AccountService accountService;
 
+    @Mock
+    private IngestService ingestService;
+
+    @Mock
+    private AdmissionControl admissionControl;
+
+    @Spy
+    private JobRegistry jobRegistry = new JobRegistry(new SimpleMeterRegistry(), Duration.ofHours(1), 1000);
+
     @InjectMocks
     private AccountController accountController;
 
@@ -49,7 +72,7 @@ class AccountControllerTests {
     @Test
     void testCreateAccountSuccess() throws Exception {
         CreateAccountDTO accountDTO = CreateAccountDTO.builder()
-                .balance(100.0)
+                .balance(10000)
                 .owner("testOwner")
                 .build();
 
@@ -101,14 +124,61 @@ class AccountControllerTests {
                 .build();
 
         CompletableFuture<Void> completableFuture = CompletableFuture.completedFuture(null);
-        when(accountService.updateMultipleBalancesAsync(List.of(request))).thenReturn(completableFuture);
+        when(accountService.updateMultipleBalancesAsync(eq(List.of(request)), any(BatchProgressListener.class)))
+                .thenReturn(completableFuture);
 
         mockMvc.perform(post("/api/update-balances-async")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(List.of(request))))
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").exists())
+                .andExpect(jsonPath("$.totalItems").value(1));
+
+        verify(accountService, times(1)).updateMultipleBalancesAsync(eq(List.of(request)), any(BatchProgressListener.class));
+    }
+
+    @Test
+    void testUpdateBalancesReturnsPerRequestResultsWhenDetailed() throws Exception {
+        BalanceUpdateRequest request = BalanceUpdateRequest.builder()
+                .accountId("missing")
+                .amount(100)
+                .build();
+
+        when(accountService.updateMultipleBalancesWithResults(List.of(request))).thenReturn(List.of(
+                BalanceUpdateResult.builder().accountId("missing").amount(100).applied(false).error("Account not found").build()));
+
+        mockMvc.perform(post("/api/update-balances")
+                        .param("detailed", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(request))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].account_id").value("missing"))
+                .andExpect(jsonPath("$[0].applied").value(false));
+
+        verify(accountService, times(0)).updateMultipleBalances(any());
+    }
+
+    @Test
+    void testUpdateBalancesAsyncFailsJobWhenExecutorRejectsTask() throws Exception {
+        BalanceUpdateRequest request = BalanceUpdateRequest.builder()
+                .accountId(String.valueOf(UUID.randomUUID()))
+                .amount(100)
+                .build();
+        when(accountService.updateMultipleBalancesAsync(eq(List.of(request)), any(BatchProgressListener.class)))
+                .thenThrow(new TaskRejectedException("Executor is full"));
+        when(admissionControl.retryAfter()).thenReturn(Duration.ofSeconds(2));
+        MockMvc overloadedMockMvc = MockMvcBuilders.standaloneSetup(accountController)
+                .setControllerAdvice(new OverloadExceptionHandler(admissionControl))
+                .build();
+
+        overloadedMockMvc.perform(post("/api/update-balances-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(request))))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"));
 
-        verify(accountService, times(1)).updateMultipleBalancesAsync(List.of(request));
+        verify(admissionControl, times(1)).reserve(1, 1);
+        verify(jobRegistry, times(1)).complete(any(BatchJob.class), any(TaskRejectedException.class));
     }
 
 }
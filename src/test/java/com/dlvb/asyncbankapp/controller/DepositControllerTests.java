@@ -1,8 +1,10 @@
 package com.dlvb.asyncbankapp.controller;
 
 import com.dlvb.asyncbankapp.dto.CreateOrUpdateDepositDTO;
+import com.dlvb.asyncbankapp.dto.VolatilityEstimate;
 import com.dlvb.asyncbankapp.model.Deposit;
 import com.dlvb.asyncbankapp.service.DepositService;
+import com.dlvb.asyncbankapp.volatility.VolatilityEngine;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +16,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +29,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -146,7 +150,7 @@ class DepositControllerTests {
         int iterations = 100;
         double expectedVolatility = 5.5;
 
-        when(depositService.calculateVolatility(currentTime, iterations)).thenReturn(expectedVolatility);
+        when(depositService.calculateVolatility(currentTime, iterations, null)).thenReturn(expectedVolatility);
 
         mockMvc.perform(get("/api/calculate-volatility")
                         .param("currentTime", String.valueOf(currentTime))
@@ -154,14 +158,14 @@ class DepositControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(content().string(String.valueOf(expectedVolatility)));
 
-        verify(depositService, times(1)).calculateVolatility(currentTime, iterations);
+        verify(depositService, times(1)).calculateVolatility(currentTime, iterations, null);
     }
     @Test
     void testCalculateVolatilityWhenExecutionException() throws Exception {
         long currentTime = System.currentTimeMillis();
         int iterations = 100;
 
-        when(depositService.calculateVolatility(currentTime, iterations))
+        when(depositService.calculateVolatility(currentTime, iterations, null))
                 .thenThrow(new ExecutionException("Execution failed", new RuntimeException()));
 
         mockMvc.perform(get("/api/calculate-volatility")
@@ -169,7 +173,7 @@ class DepositControllerTests {
                         .param("iterations", String.valueOf(iterations)))
                 .andExpect(status().isInternalServerError());
 
-        verify(depositService, times(1)).calculateVolatility(currentTime, iterations);
+        verify(depositService, times(1)).calculateVolatility(currentTime, iterations, null);
     }
 
 
@@ -195,7 +199,7 @@ class DepositControllerTests {
         long currentTime = System.currentTimeMillis();
         int iterations = 100;
 
-        when(depositService.calculateVolatilityFuture(currentTime, iterations))
+        when(depositService.calculateVolatilityFuture(currentTime, iterations, null))
                 .thenThrow(new ExecutionException("Execution failed", new RuntimeException()));
 
         mockMvc.perform(get("/api/calculate-volatility-future")
@@ -203,7 +207,7 @@ class DepositControllerTests {
                         .param("iterations", String.valueOf(iterations)))
                 .andExpect(status().isInternalServerError());
 
-        verify(depositService, times(1)).calculateVolatilityFuture(currentTime, iterations);
+        verify(depositService, times(1)).calculateVolatilityFuture(currentTime, iterations, null);
     }
 
 
@@ -213,7 +217,7 @@ class DepositControllerTests {
         int iterations = 100;
         double expectedVolatility = 10.5;
 
-        when(depositService.calculateVolatilityFuture(currentTime, iterations)).thenReturn(expectedVolatility);
+        when(depositService.calculateVolatilityFuture(currentTime, iterations, null)).thenReturn(expectedVolatility);
 
         mockMvc.perform(get("/api/calculate-volatility-future")
                         .param("currentTime", String.valueOf(currentTime))
@@ -221,7 +225,54 @@ class DepositControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(content().string(String.valueOf(expectedVolatility)));
 
-        verify(depositService, times(1)).calculateVolatilityFuture(currentTime, iterations);
+        verify(depositService, times(1)).calculateVolatilityFuture(currentTime, iterations, null);
     }
 
-}
\ No newline at end of file
+    @Test
+    void testCalculateVolatilityFuturePassesSeed() throws Exception {
+        long currentTime = System.currentTimeMillis();
+        int iterations = 100;
+
+        when(depositService.calculateVolatilityFuture(currentTime, iterations, 42L)).thenReturn(1.5);
+
+        mockMvc.perform(get("/api/calculate-volatility-future")
+                        .param("currentTime", String.valueOf(currentTime))
+                        .param("iterations", String.valueOf(iterations))
+                        .param("seed", "42"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1.5"));
+
+        verify(depositService, times(1)).calculateVolatilityFuture(currentTime, iterations, 42L);
+    }
+
+    @Test
+    void testCalculateVolatilityAdaptiveConvertsConfidenceWidth() throws Exception {
+        long currentTime = System.currentTimeMillis();
+        VolatilityEstimate estimate = VolatilityEstimate.builder()
+                .mean(15.8)
+                .iterations(65536)
+                .converged(true)
+                .build();
+        double target = VolatilityEngine.standardErrorForConfidenceWidth(0.001);
+
+        when(depositService.estimateVolatility(currentTime, target, Duration.ofMillis(500), null)).thenReturn(estimate);
+
+        mockMvc.perform(get("/api/calculate-volatility-adaptive")
+                        .param("currentTime", String.valueOf(currentTime))
+                        .param("confidenceWidth", "0.001")
+                        .param("timeBudgetMillis", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.iterations").value(65536))
+                .andExpect(jsonPath("$.converged").value(true));
+
+        verify(depositService, times(1)).estimateVolatility(currentTime, target, Duration.ofMillis(500), null);
+    }
+
+    @Test
+    void testCalculateVolatilityAdaptiveWithoutTargetReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/calculate-volatility-adaptive")
+                        .param("currentTime", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.dlvb.asyncbankapp.controller;
+
+import com.dlvb.asyncbankapp.job.BatchJob;
+import com.dlvb.asyncbankapp.job.JobRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class JobControllerTests {
+
+    @Spy
+    private JobRegistry jobRegistry = new JobRegistry(new SimpleMeterRegistry(), Duration.ofHours(1), 1000);
+
+    @InjectMocks
+    private JobController jobController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(jobController).build();
+    }
+
+    @Test
+    void getJobReturnsProgressAndFailures() throws Exception {
+        BatchJob job = jobRegistry.register("transactions", 3);
+        job.onItemFailed(2, "Insufficient balance");
+        job.onItemsCompleted(3);
+        job.complete(null);
+
+        mockMvc.perform(get("/api/jobs/{jobId}", job.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.processedItems").value(3))
+                .andExpect(jsonPath("$.failedItems").value(1))
+                .andExpect(jsonPath("$.failures[0].index").value(2))
+                .andExpect(jsonPath("$.failures[0].reason").value("Insufficient balance"))
+                .andExpect(jsonPath("$.durationMillis").exists());
+    }
+
+    @Test
+    void getJobReturnsNotFoundForUnknownJob() throws Exception {
+        mockMvc.perform(get("/api/jobs/{jobId}", "unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+}
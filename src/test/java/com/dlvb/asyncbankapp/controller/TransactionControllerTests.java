@@ -1,23 +1,44 @@
 package com.dlvb.asyncbankapp.controller;
 
+import com.dlvb.asyncbankapp.concurrent.AdmissionControl;
+import com.dlvb.asyncbankapp.concurrent.OverloadedException;
+import com.dlvb.asyncbankapp.dto.IngestReport;
 import com.dlvb.asyncbankapp.dto.TransactionDTO;
+import com.dlvb.asyncbankapp.dto.TransactionResult;
+import com.dlvb.asyncbankapp.job.JobRegistry;
+import com.dlvb.asyncbankapp.service.BatchProgressListener;
+import com.dlvb.asyncbankapp.service.IngestService;
 import com.dlvb.asyncbankapp.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +47,15 @@ class TransactionControllerTests {
     @Mock
     private TransactionService transactionService;
 
+    @Mock
+    private IngestService ingestService;
+
+    @Mock
+    private AdmissionControl admissionControl;
+
+    @Spy
+    private JobRegistry jobRegistry = new JobRegistry(new SimpleMeterRegistry(), Duration.ofHours(1), 1000);
+
     @InjectMocks
     private TransactionController transactionController;
 
@@ -33,7 +63,9 @@ class TransactionControllerTests {
 
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(transactionController).build();
+        mockMvc = MockMvcBuilders.standaloneSetup(transactionController)
+                .setControllerAdvice(new OverloadExceptionHandler(admissionControl))
+                .build();
     }
 
     @Test
@@ -41,7 +73,7 @@ class TransactionControllerTests {
         TransactionDTO transactionDTO = TransactionDTO.builder()
                 .fromAccountId("account1")
                 .toAccountId("account2")
-                .amount(100.0)
+                .amount(10000)
                 .timestamp(LocalDateTime.now())
                 .build();
 
@@ -61,18 +93,98 @@ class TransactionControllerTests {
         TransactionDTO transactionDTO = TransactionDTO.builder()
                 .fromAccountId("account1")
                 .toAccountId("account2")
-                .amount(150.0)
+                .amount(15000)
                 .timestamp(LocalDateTime.now())
                 .build();
 
+        when(transactionService.processMultipleTransactionsAsync(any(), any(BatchProgressListener.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
         mockMvc.perform(post("/api/process-transactionsAsync")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("[{ \"fromAccountId\": \"account1\"," +
                                 " \"toAccountId\": \"account2\"," +
                                 " \"amount\": 150.0," +
                                 " \"timestamp\": \"" + transactionDTO.getTimestamp() + "\" }]"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", containsString("/api/jobs/")))
+                .andExpect(jsonPath("$.totalItems").value(1));
+
+        verify(transactionService, times(1)).processMultipleTransactionsAsync(any(), any(BatchProgressListener.class));
+    }
+
+    @Test
+    void processTransactionsAsyncShedsLoadWhenOverloaded() throws Exception {
+        doThrow(new OverloadedException(Duration.ofSeconds(3))).when(admissionControl).reserve(eq(2), anyInt());
+
+        mockMvc.perform(post("/api/process-transactionsAsync")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{ \"fromAccountId\": \"account1\", \"toAccountId\": \"account2\", \"amount\": 1 }," +
+                                " { \"fromAccountId\": \"account2\", \"toAccountId\": \"account1\", \"amount\": 1 }]"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "3"));
+
+        verify(transactionService, times(0)).processMultipleTransactionsAsync(any(), any(BatchProgressListener.class));
+        verify(jobRegistry, times(0)).register(any(), eq(2));
+    }
+
+    @Test
+    void processTransactionsDerivesItemKeysFromIdempotencyKeyHeader() throws Exception {
+        mockMvc.perform(post("/api/process-transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "batch-1")
+                        .content("[{ \"fromAccountId\": \"account1\", \"toAccountId\": \"account2\", \"amount\": 100.0 }," +
+                                " { \"fromAccountId\": \"account2\", \"toAccountId\": \"account1\", \"amount\": 50.0," +
+                                " \"idempotencyKey\": \"own-key\" }]"))
                 .andExpect(status().isOk());
 
-        verify(transactionService, times(1)).processMultipleTransactionsAsync(any());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionDTO>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(1)).processMultipleTransactions(captor.capture());
+        assertEquals("batch-1:0", captor.getValue().get(0).getIdempotencyKey());
+        assertEquals("own-key", captor.getValue().get(1).getIdempotencyKey());
+    }
+
+    @Test
+    void processTransactionsReturnsStoredResultForReplayedItems() throws Exception {
+        when(transactionService.processMultipleTransactions(any())).thenReturn(List.of(
+                TransactionResult.builder().transactionId("tx-1").idempotencyKey("batch-1:0").replayed(true).build()));
+
+        mockMvc.perform(post("/api/process-transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "batch-1")
+                        .content("[{ \"fromAccountId\": \"account1\", \"toAccountId\": \"account2\", \"amount\": 100.0 }]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].transactionId").value("tx-1"))
+                .andExpect(jsonPath("$[0].replayed").value(true));
     }
+
+    @Test
+    void processTransactionsRoutesNdjsonToStreamingIngest() throws Exception {
+        when(ingestService.ingestTransactions(any(), eq("batch-1")))
+                .thenReturn(IngestReport.builder().completed(true).committedChunks(1).committedItems(2).build());
+
+        mockMvc.perform(post("/api/process-transactions")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .header("Idempotency-Key", "batch-1")
+                        .content("{\"fromAccountId\": \"account1\", \"toAccountId\": \"account2\", \"amount\": 1}\n" +
+                                "{\"fromAccountId\": \"account2\", \"toAccountId\": \"account1\", \"amount\": 2}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.committedItems").value(2));
+
+        verify(transactionService, times(0)).processMultipleTransactions(any());
+    }
+
+    @Test
+    void processTransactionsStreamReportsPartialIngest() throws Exception {
+        when(ingestService.ingestTransactions(any(), any()))
+                .thenReturn(IngestReport.builder().completed(false).committedItems(1000).failedAtItem(1000L).error("boom").build());
+
+        mockMvc.perform(post("/api/process-transactions")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}\n"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.failedAtItem").value(1000));
+    }
+
 }
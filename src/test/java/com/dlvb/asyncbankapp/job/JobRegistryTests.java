@@ -0,0 +1,78 @@
+package com.dlvb.asyncbankapp.job;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobRegistryTests {
+
+    @Test
+    void testEvictFinishedJobsKeepsRunningJobs() {
+        JobRegistry jobRegistry = new JobRegistry(new SimpleMeterRegistry(), Duration.ZERO, 1000);
+        BatchJob running = jobRegistry.register("transactions", 1);
+        BatchJob finished = jobRegistry.register("transactions", 1);
+        finished.complete(null);
+
+        jobRegistry.evictFinishedJobs();
+
+        assertTrue(jobRegistry.find(running.getId()).isPresent());
+        assertTrue(jobRegistry.find(finished.getId()).isEmpty());
+    }
+
+    @Test
+    void testCompleteRecordsJobDuration() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JobRegistry jobRegistry = new JobRegistry(meterRegistry, Duration.ofHours(1), 1000);
+        BatchJob completed = jobRegistry.register("transactions", 1);
+        BatchJob failed = jobRegistry.register("balances", 1);
+
+        jobRegistry.complete(completed, null);
+        jobRegistry.complete(failed, new IllegalStateException("boom"));
+
+        assertTrue(completed.isFinished());
+        assertEquals(1, meterRegistry.timer("bank.jobs", "type", "transactions", "status", "completed").count());
+        assertEquals(1, meterRegistry.timer("bank.jobs", "type", "balances", "status", "failed").count());
+    }
+
+    @Test
+    void testTrackFailsJobWhenWorkDoesNotStart() {
+        JobRegistry jobRegistry = new JobRegistry(new SimpleMeterRegistry(), Duration.ofHours(1), 1000);
+        BatchJob rejected = jobRegistry.register("balances", 1);
+        BatchJob started = jobRegistry.register("balances", 1);
+        CompletableFuture<Void> work = new CompletableFuture<>();
+
+        assertThrows(TaskRejectedException.class, () -> jobRegistry.track(rejected, () -> {
+            throw new TaskRejectedException("Executor is full");
+        }));
+        jobRegistry.track(started, () -> work);
+
+        assertTrue(rejected.isFinished());
+        assertEquals(JobStatus.FAILED, rejected.getStatus());
+        assertFalse(started.isFinished());
+        work.complete(null);
+        assertTrue(started.isFinished());
+    }
+
+    @Test
+    void testBatchJobCapsRecordedFailures() {
+        BatchJob job = new BatchJob("balances", 10, 2);
+        for (int i = 9; i >= 0; i--) {
+            job.onItemFailed(i, "Account not found");
+        }
+        job.complete(new IllegalStateException("boom"));
+
+        assertEquals(10, job.getFailedItems().get());
+        assertEquals(2, job.getFailures().size());
+        assertEquals(JobStatus.FAILED, job.getStatus());
+        assertEquals("boom", job.getError());
+    }
+
+}
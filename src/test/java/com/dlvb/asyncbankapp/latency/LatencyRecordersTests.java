@@ -0,0 +1,64 @@
+package com.dlvb.asyncbankapp.latency;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyRecordersTests {
+
+    private final LatencyRecorders latencyRecorders = new LatencyRecorders(Duration.ofSeconds(10), Duration.ofSeconds(30),
+            Duration.ofSeconds(1), 2);
+
+    @Test
+    void testWindowsRollOverIntervals() {
+        LatencyRecorder recorder = latencyRecorders.endpoint("/api/accounts/{id}");
+
+        for (int i = 1; i <= 100; i++) {
+            recorder.recordNanos(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        latencyRecorders.rotate();
+        recorder.recordNanos(TimeUnit.MILLISECONDS.toNanos(500));
+        latencyRecorders.rotate();
+
+        Histogram shortWindow = recorder.window(1);
+        Histogram longWindow = recorder.window(latencyRecorders.getLongWindowIntervals());
+        assertEquals(1, shortWindow.getTotalCount());
+        assertEquals(101, longWindow.getTotalCount());
+        assertEquals(99_000, longWindow.getValueAtPercentile(98), 1_000);
+
+        latencyRecorders.rotate();
+        latencyRecorders.rotate();
+
+        assertEquals(0, recorder.window(1).getTotalCount());
+        assertEquals(1, recorder.window(latencyRecorders.getLongWindowIntervals()).getTotalCount());
+    }
+
+    @Test
+    void testRecordClampsToHighestTrackableValue() {
+        LatencyRecorder recorder = latencyRecorders.endpoint("/api/transactions");
+
+        recorder.recordNanos(TimeUnit.SECONDS.toNanos(5));
+        latencyRecorders.rotate();
+
+        Histogram window = recorder.window(1);
+        assertEquals(1, window.getTotalCount());
+        assertTrue(window.getMaxValue() <= window.highestEquivalentValue(TimeUnit.SECONDS.toMicros(1)));
+    }
+
+    @Test
+    void testOverloadsShareServiceRecorder() throws NoSuchMethodException {
+        LatencyRecorder first = latencyRecorders.method(String.class.getMethod("indexOf", int.class), String.class);
+        LatencyRecorder second = latencyRecorders.method(String.class.getMethod("indexOf", String.class), String.class);
+
+        assertSame(first, second);
+        assertEquals("String.indexOf", first.getName());
+        assertEquals(1, latencyRecorders.recorders().size());
+    }
+
+}
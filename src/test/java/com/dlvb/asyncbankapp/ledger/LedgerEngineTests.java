@@ -0,0 +1,202 @@
+package com.dlvb.asyncbankapp.ledger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LedgerEngineTests {
+
+    @TempDir
+    private Path directory;
+
+    private final Map<String, Long> balances = new ConcurrentHashMap<>(Map.of("a", 1_000L, "b", 0L, "c", 0L, "d", 0L));
+    private final List<LedgerTransfer> written = new ArrayList<>();
+    private final LedgerStore ledgerStore = mock(LedgerStore.class);
+    private final List<LedgerEngine> engines = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (LedgerEngine engine : engines) {
+            engine.destroy();
+        }
+    }
+
+    @Test
+    void testTransfersMoveFundsAcrossShards() throws Exception {
+        LedgerEngine engine = start();
+
+        engine.transfer("a", "b", 600, null).join();
+        engine.transfer("b", "c", 600, null).join();
+
+        CompletionException e = assertThrows(CompletionException.class, () -> engine.transfer("a", "d", 500, null).join());
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertThrows(NoSuchElementException.class, () -> engine.transfer("a", "missing", 1, null));
+        assertThrows(IllegalArgumentException.class, () -> engine.transfer("a", "b", 0, null));
+        engine.transfer("c", "d", 600, null).join();
+    }
+
+    @Test
+    void testClaimReleasedWhenTransferRejected() throws Exception {
+        LedgerEngine engine = start();
+
+        assertTrue(engine.claim("key"));
+        assertFalse(engine.claim("key"));
+        assertThrows(CompletionException.class, () -> engine.transfer("b", "a", 1, "key").join());
+
+        assertTrue(engine.claim("key"));
+        engine.transfer("a", "b", 1, "key").join();
+        assertFalse(engine.claim("key"));
+    }
+
+    @Test
+    void testRestartReplaysUnflushedJournal() throws Exception {
+        doThrow(new IllegalStateException("database is down")).when(ledgerStore).write(any(), anyMap());
+        LedgerEngine engine = start();
+        engine.transfer("a", "b", 400, "first").join();
+        engine.transfer("b", "c", 100, null).join();
+        engine.destroy();
+        engines.remove(engine);
+
+        doAnswer(invocation -> {
+            written.addAll(invocation.getArgument(0));
+            return null;
+        }).when(ledgerStore).write(any(), anyMap());
+        LedgerEngine restarted = start();
+
+        assertFalse(restarted.claim("first"));
+        restarted.transfer("a", "d", 600, null).join();
+        assertThrows(CompletionException.class, () -> restarted.transfer("a", "d", 1, null).join());
+        restarted.transfer("b", "d", 300, null).join();
+        assertThrows(CompletionException.class, () -> restarted.transfer("b", "d", 1, null).join());
+        restarted.transfer("c", "d", 100, null).join();
+
+        restarted.destroy();
+        engines.remove(restarted);
+        assertEquals(5, written.size());
+        assertEquals("first", written.get(0).idempotencyKey());
+    }
+
+    @Test
+    void testFlushStopsLedgerAfterMaxAttempts() throws Exception {
+        doThrow(new IllegalStateException("database is down")).when(ledgerStore).write(any(), anyMap());
+        LedgerEngine engine = start(3);
+        LedgerHealthIndicator healthIndicator = new LedgerHealthIndicator(engine);
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+
+        engine.transfer("a", "b", 400, null).join();
+        awaitFlushFailure(engine);
+
+        verify(ledgerStore, times(3)).write(any(), anyMap());
+        assertInstanceOf(IllegalStateException.class, engine.flushFailure());
+        assertEquals(Status.DOWN, healthIndicator.health().getStatus());
+        assertEquals(1, meterRegistry.get("bank.ledger.failed").gauge().value());
+        assertThrows(IllegalStateException.class, () -> engine.transfer("a", "b", 1, null));
+    }
+
+    @Test
+    void testFlushStopsLedgerWithoutRetryOnPermanentFailure() throws Exception {
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(ledgerStore).write(any(), anyMap());
+        LedgerEngine engine = start(100);
+        assertNull(engine.flushFailure());
+        assertEquals(0, meterRegistry.get("bank.ledger.failed").gauge().value());
+
+        engine.transfer("a", "b", 400, null).join();
+        awaitFlushFailure(engine);
+
+        verify(ledgerStore, times(1)).write(any(), anyMap());
+        assertInstanceOf(DataIntegrityViolationException.class, engine.flushFailure());
+        assertThrows(IllegalStateException.class, () -> engine.transfer("a", "b", 1, null));
+    }
+
+    @Test
+    void testUnflushedKeysStayClaimedWhenKeyCacheIsFull() throws Exception {
+        CountDownLatch flushAllowed = new CountDownLatch(1);
+        List<LedgerTransfer> flushed = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            flushAllowed.await();
+            flushed.addAll(invocation.getArgument(0));
+            return null;
+        }).when(ledgerStore).write(any(), anyMap());
+        LedgerEngine engine = start(1000, 1);
+
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(engine.claim("key-" + i));
+                engine.transfer("a", "b", 1, "key-" + i).join();
+            }
+
+            for (int i = 0; i < 100; i++) {
+                assertFalse(engine.claim("key-" + i));
+                assertNotNull(engine.transferIdOf("key-" + i));
+            }
+        } finally {
+            flushAllowed.countDown();
+        }
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (flushed.size() < 100 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(100, flushed.size());
+    }
+
+    private static void awaitFlushFailure(LedgerEngine engine) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (engine.flushFailure() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private LedgerEngine start() throws Exception {
+        return start(1000);
+    }
+
+    private LedgerEngine start(int flushMaxAttempts) throws Exception {
+        return start(flushMaxAttempts, 1000);
+    }
+
+    private LedgerEngine start(int flushMaxAttempts, long keyCacheSize) throws Exception {
+        when(ledgerStore.loadCheckpoints()).thenReturn(Map.of());
+        when(ledgerStore.loadBalance(anyString())).thenAnswer(invocation -> Optional.ofNullable(balances.get(invocation.<String>getArgument(0))));
+        LedgerEngine engine = new LedgerEngine(ledgerStore, meterRegistry, directory, 2, false,
+                DataSize.ofMegabytes(1), 100, 16, 100, Duration.ofMillis(10), flushMaxAttempts, keyCacheSize, Duration.ofHours(1));
+        engine.afterPropertiesSet();
+        engines.add(engine);
+        return engine;
+    }
+
+}
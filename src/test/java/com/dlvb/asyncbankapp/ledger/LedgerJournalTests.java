@@ -0,0 +1,92 @@
+package com.dlvb.asyncbankapp.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LedgerJournalTests {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testRecoverReturnsRecordsAfterCheckpoint() throws IOException {
+        try (LedgerJournal journal = new LedgerJournal(directory, 0, 1 << 20, true)) {
+            journal.recover(0);
+            for (int i = 1; i <= 5; i++) {
+                journal.append(transfer(i, i % 2 == 0 ? "key-" + i : null));
+            }
+            journal.sync();
+        }
+
+        LedgerJournal recovered = new LedgerJournal(directory, 0, 1 << 20, true);
+        List<LedgerTransfer> transfers = recovered.recover(2);
+
+        assertEquals(List.of(transfer(3, null), transfer(4, "key-4"), transfer(5, null)), transfers);
+        assertEquals(5, recovered.lastSequence());
+    }
+
+    @Test
+    void testRecoverTruncatesIncompleteRecord() throws IOException {
+        try (LedgerJournal journal = new LedgerJournal(directory, 0, 1 << 20, true)) {
+            journal.recover(0);
+            journal.append(transfer(1, null));
+            journal.append(transfer(2, null));
+            journal.sync();
+        }
+        Path segment = segments().get(0);
+        long size = Files.size(segment);
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            file.truncate(size - 3);
+        }
+
+        LedgerJournal recovered = new LedgerJournal(directory, 0, 1 << 20, true);
+        assertEquals(List.of(transfer(1, null)), recovered.recover(0));
+        recovered.append(transfer(2, "retried"));
+        recovered.close();
+
+        assertEquals(List.of(transfer(1, null), transfer(2, "retried")), new LedgerJournal(directory, 0, 1 << 20, true).recover(0));
+    }
+
+    @Test
+    void testDeleteFlushedKeepsSegmentsWithUnflushedRecords() throws IOException {
+        LedgerJournal journal = new LedgerJournal(directory, 0, 1, true);
+        journal.recover(0);
+        for (int i = 1; i <= 3; i++) {
+            journal.append(transfer(i, null));
+            journal.sync();
+        }
+        assertEquals(3, segments().size());
+
+        journal.deleteFlushed(1);
+        assertEquals(2, segments().size());
+
+        journal.deleteFlushed(3);
+        assertEquals(1, segments().size());
+        journal.close();
+
+        assertEquals(List.of(), new LedgerJournal(directory, 0, 1, true).recover(3));
+        assertThrows(IllegalStateException.class, () -> new LedgerJournal(directory, 0, 1, true).recover(1));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static LedgerTransfer transfer(long sequence, String idempotencyKey) {
+        return new LedgerTransfer("t" + sequence, 0, sequence, "a", "b", sequence * 100, 1_700_000_000_000L + sequence, idempotencyKey);
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.dlvb.asyncbankapp.money;
+
+import com.dlvb.asyncbankapp.dto.TransactionDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void testJsonAmountsAreReadAndWrittenInMajorUnits() throws Exception {
+        TransactionDTO transaction = objectMapper.readValue("{\"amount\": 120.5}", TransactionDTO.class);
+
+        assertEquals(12050, transaction.getAmount());
+        assertTrue(objectMapper.writeValueAsString(transaction).contains("\"amount\":120.50"));
+        assertEquals(50000, objectMapper.readValue("{\"amount\": \"500\"}", TransactionDTO.class).getAmount());
+    }
+
+    @Test
+    void testJsonAmountsWithSubMinorFractionsAreRejected() {
+        assertThrows(InvalidFormatException.class,
+                () -> objectMapper.readValue("{\"amount\": 0.001}", TransactionDTO.class));
+    }
+
+    @Test
+    void testSumsOfMinorUnitsAreExact() {
+        long total = 0;
+        for (int i = 0; i < 10; i++) {
+            total = Money.add(total, 10);
+        }
+
+        assertEquals(100, total);
+        assertEquals("1.00", Money.format(total));
+        assertEquals("-0.05", Money.format(-5));
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    void testRoundHalfAwayFromZero() {
+        assertEquals(3, Money.round(2.5));
+        assertEquals(-3, Money.round(-2.5));
+        assertEquals(250, Money.multiply(5000, 0.05));
+    }
+
+    @Test
+    void testRoundComparesOnlyFractionWithHalf() {
+        assertEquals(0, Money.round(0.49999999999999994));
+        assertEquals(0, Money.round(-0.49999999999999994));
+        assertEquals(4_503_599_627_370_497L, Money.round(4_503_599_627_370_497.0));
+        assertEquals(-4_503_599_627_370_497L, Money.round(-4_503_599_627_370_497.0));
+    }
+
+}
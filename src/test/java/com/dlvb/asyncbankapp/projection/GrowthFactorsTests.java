@@ -0,0 +1,81 @@
+package com.dlvb.asyncbankapp.projection;
+
+import com.dlvb.asyncbankapp.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GrowthFactorsTests {
+
+    @Test
+    void testFactorsMatchPerScenarioPowExactly() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 10_000; i++) {
+            double rate = random.nextInt(1, 3000) / 100.0;
+            int years = random.nextInt(0, 60);
+            long balance = random.nextLong(0, 10_000_000_000L);
+            long operation = random.nextLong(-1_000_000_000L, 1_000_000_000L);
+
+            assertMatchesClosedForm(GrowthFactors.compute(rate, years), rate, years, balance, operation);
+        }
+    }
+
+    @Test
+    void testFactorsMatchClosedFormAtBoundaryRates() {
+        GrowthFactorTable table = new GrowthFactorTable(100);
+        SplittableRandom random = new SplittableRandom(7);
+        for (double rate : new double[] {0, 0.01, 29.99, 30, 100}) {
+            for (int years : new int[] {0, 1, 10, 30}) {
+                long balance = random.nextLong(0, 1_000_000L);
+                long operation = random.nextLong(-100_000L, 100_000L);
+
+                assertMatchesClosedForm(GrowthFactors.compute(rate, years), rate, years, balance, operation);
+                assertMatchesClosedForm(table.get(rate, years), rate, years, balance, operation);
+            }
+        }
+    }
+
+    @Test
+    void testZeroRateSumsOperationsWithoutInterest() {
+        GrowthFactors factors = GrowthFactors.compute(0, 10);
+
+        assertEquals(100000, factors.balance(100000));
+        assertEquals(150000, factors.balanceWithOperation(100000, 5000));
+        assertEquals(130000, factors.balanceWithTopUpsAndWithdraw(100000, 5000, 2000));
+    }
+
+    @Test
+    void testBalanceWithTopUpsAndWithdrawRejectsWithdrawAboveTopUps() {
+        assertThrows(IllegalArgumentException.class, () -> GrowthFactors.compute(5, 1).balanceWithTopUpsAndWithdraw(100, 1, 2));
+    }
+
+    @Test
+    void testTableReusesFactorsPerRateAndYears() {
+        GrowthFactorTable table = new GrowthFactorTable(100);
+
+        assertSame(table.get(5.5, 10), table.get(5.5, 10));
+        assertEquals(GrowthFactors.compute(5.5, 11), table.get(5.5, 11));
+    }
+
+    private static void assertMatchesClosedForm(GrowthFactors factors, double rate, int years, long balance, long operation) {
+        assertEquals(Money.round(balance * Math.pow(1 + 0.01 * rate, years)), factors.balance(balance));
+        assertEquals(Money.round(operation * ratio(rate, years) + balance * Math.pow(1 + 0.01 * rate, years)),
+                factors.balanceWithOperation(balance, operation));
+        long topUps = Math.abs(operation);
+        long withdraw = -balance / 10;
+        assertEquals(Money.round(balance * Math.pow(1 + 0.01 * rate, years) + ratio(rate, years) * (topUps - withdraw)),
+                factors.balanceWithTopUpsAndWithdraw(balance, topUps, withdraw));
+    }
+
+    private static double ratio(double rateInPercents, double time) {
+        if (rateInPercents == 0) {
+            return time;
+        }
+        return (Math.pow(1 + 0.01 * rateInPercents, time) - 1) / (0.01 * rateInPercents);
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.dlvb.asyncbankapp.projection;
+
+import com.dlvb.asyncbankapp.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PortfolioProjectorTests {
+
+    private static final ProjectionScenarios SCENARIOS = new ProjectionScenarios(new double[]{0.05, 0.1, 0.15, 0.2},
+            new double[]{0.05, 0.1, 0.15, 0.2}, new double[]{0.025, 0.05, 0.1, 0.15});
+
+    private final GrowthFactorTable growthFactorTable = new GrowthFactorTable(1000);
+
+    @Test
+    void testVectorAndScalarKernelsMatchGrowthFactorsExactly() {
+        SplittableRandom random = new SplittableRandom(42);
+        int deposits = 10_007;
+        long[] balances = new long[deposits];
+        double[] rates = new double[deposits];
+        for (int d = 0; d < deposits; d++) {
+            balances[d] = d % 97 == 0 ? 0 : random.nextLong(0, 10_000_000_000L);
+            rates[d] = random.nextInt(1, 3000) / 100.0 * (d % 5 == 0 ? -1 : 1);
+        }
+
+        for (int years : new int[]{-5, 0, 1, 30}) {
+            PortfolioProjector vector = new PortfolioProjector(growthFactorTable, true);
+            PortfolioProjection vectorized = vector.project(balances, rates, 10, years, SCENARIOS);
+            PortfolioProjection scalar = new PortfolioProjector(growthFactorTable, false).project(balances, rates, 10, years, SCENARIOS);
+
+            assertTrue(vector.isVectorized());
+            for (int scenario = 0; scenario < SCENARIOS.count(); scenario++) {
+                assertArrayEquals(scalar.scenario(scenario), vectorized.scenario(scenario));
+            }
+            for (int d = 0; d < deposits; d++) {
+                GrowthFactors factors = GrowthFactors.compute(rates[d], years);
+                long balance = balances[d];
+                assertEquals(GrowthFactors.compute(10, years).balance(balance), vectorized.balance(ProjectionScenarios.BY_RATE, d));
+                assertEquals(factors.balance(balance), vectorized.balance(ProjectionScenarios.ACTUAL_RATE, d));
+                assertEquals(factors.balanceWithOperation(balance, Money.multiply(balance, 0.15)),
+                        vectorized.balance(SCENARIOS.withOperation(2), d));
+                assertEquals(factors.balanceWithTopUpsAndWithdraw(balance, Money.multiply(balance, 0.2), -Money.multiply(balance, 0.15)),
+                        vectorized.balance(SCENARIOS.withTopUpsAndWithdraw(3), d));
+            }
+        }
+    }
+
+    @Test
+    void testVectorAndScalarKernelsKeepOddBalancesAbove2To52() {
+        long[] balances = new long[64];
+        double[] rates = new double[64];
+        for (int d = 0; d < balances.length; d++) {
+            balances[d] = (1L << 52) + 2L * d + 1;
+            rates[d] = 5;
+        }
+
+        PortfolioProjection vectorized = new PortfolioProjector(growthFactorTable, true).project(balances, rates, 5, 0, SCENARIOS);
+        PortfolioProjection scalar = new PortfolioProjector(growthFactorTable, false).project(balances, rates, 5, 0, SCENARIOS);
+
+        for (int d = 0; d < balances.length; d++) {
+            assertEquals(balances[d], vectorized.balance(ProjectionScenarios.ACTUAL_RATE, d));
+            assertEquals(balances[d], scalar.balance(ProjectionScenarios.ACTUAL_RATE, d));
+        }
+    }
+
+    @Test
+    void testVectorKernelFallsBackToScalarOverflow() {
+        long[] balances = new long[64];
+        double[] rates = new double[64];
+        Arrays.fill(balances, PortfolioProjector.MAX_BALANCE);
+        Arrays.fill(rates, 20);
+
+        PortfolioProjector projector = new PortfolioProjector(growthFactorTable, true);
+
+        ArithmeticException e = assertThrows(ArithmeticException.class, () -> projector.project(balances, rates, 20, 40, SCENARIOS));
+        assertTrue(e.getMessage().startsWith("Money amount out of range"));
+        assertThrows(IllegalArgumentException.class, () -> projector.project(new long[]{-1}, new double[]{1}, 1, 1, SCENARIOS));
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.dlvb.asyncbankapp.service.impl;
+
+import com.dlvb.asyncbankapp.dto.BalanceUpdateRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BalanceDeltasTests {
+
+    @Test
+    void testCoalesceSumsDeltasPerAccountInIdOrder() {
+        List<BalanceUpdateRequest> requests = List.of(
+                new BalanceUpdateRequest("c", 100),
+                new BalanceUpdateRequest("a", 5),
+                new BalanceUpdateRequest("c", -30),
+                new BalanceUpdateRequest("b", 7),
+                new BalanceUpdateRequest("a", 5));
+
+        BalanceDeltas balanceDeltas = BalanceDeltas.coalesce(requests);
+
+        assertArrayEquals(new String[]{"a", "b", "c"}, balanceDeltas.accountIds());
+        assertArrayEquals(new long[]{10, 7, 70}, balanceDeltas.deltas());
+        assertEquals(2, balanceDeltas.slotOf(0));
+        assertEquals(0, balanceDeltas.slotOf(1));
+        assertEquals(2, balanceDeltas.slotOf(2));
+        assertEquals(1, balanceDeltas.slotOf(3));
+    }
+
+    @Test
+    void testCoalesceRejectsOverflow() {
+        List<BalanceUpdateRequest> requests = List.of(
+                new BalanceUpdateRequest("a", Long.MAX_VALUE),
+                new BalanceUpdateRequest("a", 1));
+
+        assertThrows(ArithmeticException.class, () -> BalanceDeltas.coalesce(requests));
+    }
+
+    @Test
+    void testCoalesceHandlesManyAccountsWithCollidingSlots() {
+        List<BalanceUpdateRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            requests.add(new BalanceUpdateRequest("account-" + (i % 300), 1));
+        }
+
+        BalanceDeltas balanceDeltas = BalanceDeltas.coalesce(requests);
+
+        assertEquals(300, balanceDeltas.accountIds().length);
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(requests.get(i).getAccountId(), balanceDeltas.accountIds()[balanceDeltas.slotOf(i)]);
+        }
+        assertEquals(1000, Arrays.stream(balanceDeltas.deltas()).sum());
+        assertEquals("account-0", balanceDeltas.accountIds()[0]);
+    }
+
+    @Test
+    void testCoalesceRejectsMissingAccountId() {
+        List<BalanceUpdateRequest> requests = Arrays.asList(
+                new BalanceUpdateRequest("a", 1),
+                new BalanceUpdateRequest(null, 1));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> BalanceDeltas.coalesce(requests));
+        assertEquals("Account id is required", e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> BalanceDeltas.coalesce(List.of(new BalanceUpdateRequest(" ", 1))));
+    }
+
+}
@@ -114,16 +114,41 @@ class DepositServiceImplTests {
                 .build());
 
         CreateOrUpdateDepositDTO depositDTO = new CreateOrUpdateDepositDTO();
-        depositDTO.setBalance(1000);
+        depositDTO.setBalance(100000);
         depositDTO.setRate(5);
         depositDTO.setAccountId(account.getId());
 
         Deposit deposit = depositService.createDeposit(depositDTO);
 
-        double calculatedBalance = depositService.calculateDepositBalanceFixedRateByDate(
-                LocalDate.of(2056, 1, 1), deposit);
+        long calculatedBalance = depositService.calculateDepositBalanceFixedRateByDate(
+                LocalDate.now().plusYears(31), deposit);
+
+        assertEquals(453804, calculatedBalance);
+    }
+
+    @Test
+    void testGetCalculationsByDateAndRateHandlesZeroRateDeposit() {
+        Account account = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(1000)
+                .build());
+
+        CreateOrUpdateDepositDTO depositDTO = new CreateOrUpdateDepositDTO();
+        depositDTO.setBalance(100000);
+        depositDTO.setRate(0);
+        depositDTO.setAccountId(account.getId());
+        Deposit deposit = depositService.createDeposit(depositDTO);
+
+        LocalDate date = LocalDate.now().plusYears(10);
+        Map<String, String> calculations = depositService.getCalculationsByDateAndRate(date, 0.0, deposit.getId());
+        Map<String, Map<String, String>> multipleCalculations = depositService.getCalculationsByDateAndRateForMultipleAccountsAsync(
+                date, 0.0, List.of(deposit.getId()));
 
-        assertEquals(String.format("%.3f", 4538.039), String.format("%.3f", calculatedBalance));
+        assertEquals("1000.00", calculations.get("balance_by_rate"));
+        assertEquals("1000.00", calculations.get("balance_with_actual_rate"));
+        assertEquals("1500.00", calculations.get("balance_with_5_percents_top_ups"));
+        assertEquals(calculations, multipleCalculations.get(deposit.getId()));
+        assertEquals(150000, depositService.calculateUpdatableDepositBalanceByDate(date, 5000, deposit));
     }
 
     @Test
@@ -190,14 +215,39 @@ class DepositServiceImplTests {
         assertEquals(2, calculations.size());
     }
 
+    @Test
+    void testGetCalculationsByDateAndRateForMultipleAccountsReportsUnknownDepositsPerId() {
+        Account account = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test1")
+                .balance(1000)
+                .build());
+
+        CreateOrUpdateDepositDTO depositDTO = new CreateOrUpdateDepositDTO();
+        depositDTO.setBalance(1000);
+        depositDTO.setRate(5);
+        depositDTO.setAccountId(account.getId());
+        Deposit deposit = depositService.createDeposit(depositDTO);
+
+        LocalDate date = LocalDate.of(2056, 1, 1);
+        List<String> depositIds = List.of(deposit.getId(), "unknown");
+        Map<String, Map<String, String>> calculations = depositService.getCalculationsByDateAndRateForMultipleAccounts(
+                date, 3.0, depositIds);
+        Map<String, Map<String, String>> asyncCalculations = depositService.getCalculationsByDateAndRateForMultipleAccountsAsync(
+                date, 3.0, depositIds);
+
+        assertEquals(depositService.getCalculationsByDateAndRate(date, 3.0, deposit.getId()), calculations.get(deposit.getId()));
+        assertEquals(Map.of("error", "Deposit not found for ID: unknown"), calculations.get("unknown"));
+        assertEquals(calculations, asyncCalculations);
+    }
+
     @Test
     void testCalculateVolatilityReturnsCorrectValue() {
-        assertTrue(depositService.calculateVolatility(System.currentTimeMillis(), 100) > 0);
+        assertTrue(depositService.calculateVolatility(System.currentTimeMillis(), 100, null) > 0);
     }
 
     @Test
     void testCalculateVolatilityHandlesZeroIterations() {
-        assertEquals(0, depositService.calculateVolatility(System.currentTimeMillis(), 0));
+        assertEquals(0, depositService.calculateVolatility(System.currentTimeMillis(), 0, null));
     }
 
     @Test
@@ -212,12 +262,12 @@ class DepositServiceImplTests {
 
     @Test
     void testCalculateVolatilityFutureReturnsCorrectValue() throws Exception {
-        assertTrue(depositService.calculateVolatilityFuture(System.currentTimeMillis(), 100) > 0);
+        assertTrue(depositService.calculateVolatilityFuture(System.currentTimeMillis(), 100, null) > 0);
     }
 
     @Test
     void testCalculateVolatilityFutureHandlesZeroIterations() throws Exception {
-        assertEquals(0, depositService.calculateVolatilityFuture(System.currentTimeMillis(), 0));
+        assertEquals(0, depositService.calculateVolatilityFuture(System.currentTimeMillis(), 0, null));
     }
 
     @Test
@@ -225,12 +275,23 @@ class DepositServiceImplTests {
         long currentTime = System.currentTimeMillis();
         int iterations = 50;
 
-        double singleThreadResult = depositService.calculateVolatility(currentTime, iterations);
+        double singleThreadResult = depositService.calculateVolatility(currentTime, iterations, null);
         double multiThreadWithRunnableResult = depositService.calculateVolatilityWithRunnable(currentTime, iterations);
-        double multiThreadFutureStreamResult = depositService.calculateVolatilityFuture(currentTime, iterations);
+        double multiThreadFutureStreamResult = depositService.calculateVolatilityFuture(currentTime, iterations, null);
 
         assertEquals(singleThreadResult, multiThreadWithRunnableResult, 0.5);
         assertEquals(singleThreadResult, multiThreadFutureStreamResult, 0.5);
     }
 
+    @Test
+    void testCalculateVolatilityWithSeedIsReproducible() throws Exception {
+        long currentTime = System.currentTimeMillis();
+        int iterations = 1_000_000;
+
+        double singleThreadResult = depositService.calculateVolatility(currentTime, iterations, 42L);
+
+        assertEquals(singleThreadResult, depositService.calculateVolatility(currentTime, iterations, 42L));
+        assertEquals(singleThreadResult, depositService.calculateVolatilityFuture(currentTime, iterations, 42L));
+    }
+
 }
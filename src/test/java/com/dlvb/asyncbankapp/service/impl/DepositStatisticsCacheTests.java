@@ -0,0 +1,44 @@
+package com.dlvb.asyncbankapp.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DepositStatisticsCacheTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final DepositStatisticsCache cache = new DepositStatisticsCache(meterRegistry, 100, Duration.ofMinutes(1));
+
+    @Test
+    void testFindReturnsStatisticsForSameKeyAndVersion() {
+        Map<String, String> calculations = Map.of("balance_by_rate", "1.00");
+        cache.put("d1", 0, 3.0, 2056, 2026, calculations);
+
+        assertEquals(calculations, cache.find("d1", 3.0, 2056, 2026));
+        assertNull(cache.find("d1", 3.5, 2056, 2026));
+        assertNull(cache.find("d1", 3.0, 2056, 2027));
+        assertNull(cache.find("d2", 3.0, 2056, 2026));
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "deposit.statistics").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testWriteHidesStatisticsOfPreviousVersion() {
+        cache.put("d1", 0, 3.0, 2056, 2026, Map.of("balance_by_rate", "1.00"));
+
+        cache.onDepositWritten("d1", 1);
+
+        assertNull(cache.find("d1", 3.0, 2056, 2026));
+        cache.put("d1", 0, 3.0, 2056, 2026, Map.of("balance_by_rate", "1.00"));
+        assertNull(cache.find("d1", 3.0, 2056, 2026));
+        cache.put("d1", 1, 3.0, 2056, 2026, Map.of("balance_by_rate", "2.00"));
+        assertEquals("2.00", cache.find("d1", 3.0, 2056, 2026).get("balance_by_rate"));
+    }
+
+}
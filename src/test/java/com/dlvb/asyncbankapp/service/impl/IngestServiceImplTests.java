@@ -0,0 +1,114 @@
+package com.dlvb.asyncbankapp.service.impl;
+
+import com.dlvb.asyncbankapp.dto.IngestReport;
+import com.dlvb.asyncbankapp.dto.TransactionDTO;
+import com.dlvb.asyncbankapp.service.AccountService;
+import com.dlvb.asyncbankapp.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class IngestServiceImplTests {
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private AccountService accountService;
+
+    private IngestServiceImpl ingestService;
+
+    @BeforeEach
+    void setUp() {
+        ingestService = new IngestServiceImpl(new ObjectMapper().findAndRegisterModules(), transactionService, accountService, 2);
+    }
+
+    @Test
+    void testIngestTransactionsCommitsFixedSizeChunksWithContinuousKeys() {
+        String body = """
+                {"fromAccountId": "a", "toAccountId": "b", "amount": 1}
+                {"fromAccountId": "a", "toAccountId": "b", "amount": 2}
+                {"fromAccountId": "a", "toAccountId": "b", "amount": 3, "idempotencyKey": "own"}
+
+                {"fromAccountId": "a", "toAccountId": "b", "amount": 4}
+                {"fromAccountId": "a", "toAccountId": "b", "amount": 5}
+                """;
+
+        IngestReport report = ingestService.ingestTransactions(stream(body), "batch");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionDTO>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(3)).processMultipleTransactions(captor.capture());
+        List<List<TransactionDTO>> chunks = captor.getAllValues();
+        assertEquals(List.of(2, 2, 1), chunks.stream().map(List::size).toList());
+        assertEquals("batch:1", chunks.get(0).get(1).getIdempotencyKey());
+        assertEquals("own", chunks.get(1).get(0).getIdempotencyKey());
+        assertEquals("batch:4", chunks.get(2).get(0).getIdempotencyKey());
+        assertTrue(report.isCompleted());
+        assertEquals(3, report.getCommittedChunks());
+        assertEquals(5, report.getCommittedItems());
+    }
+
+    @Test
+    void testIngestBalanceUpdatesKeepsCommittedChunksOnMalformedRecord() {
+        String body = """
+                {"account_id": "a", "amount": 1}
+                {"account_id": "b", "amount": 2}
+                {"account_id": "c", "amount": 3}
+                {"account_id": "d", "amount":
+                """;
+
+        IngestReport report = ingestService.ingestBalanceUpdates(stream(body));
+
+        verify(accountService, times(1)).updateMultipleBalances(any());
+        assertFalse(report.isCompleted());
+        assertEquals(1, report.getCommittedChunks());
+        assertEquals(2, report.getCommittedItems());
+        assertEquals(2L, report.getFailedAtItem());
+        assertNotNull(report.getError());
+    }
+
+    @Test
+    void testIngestBalanceUpdatesStopsOnFailedChunk() {
+        doNothing().doThrow(new IllegalStateException("database unavailable"))
+                .when(accountService).updateMultipleBalances(any());
+        String body = """
+                {"account_id": "a", "amount": 1}
+                {"account_id": "b", "amount": 2}
+                {"account_id": "c", "amount": 3}
+                {"account_id": "d", "amount": 4}
+                {"account_id": "e", "amount": 5}
+                """;
+
+        IngestReport report = ingestService.ingestBalanceUpdates(stream(body));
+
+        verify(accountService, times(2)).updateMultipleBalances(any());
+        assertFalse(report.isCompleted());
+        assertEquals(2, report.getCommittedItems());
+        assertEquals("database unavailable", report.getError());
+    }
+
+    private InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -1,16 +1,26 @@
 package com.dlvb.asyncbankapp.service.impl;
 
+import com.dlvb.asyncbankapp.concurrent.AccountLockManager;
+import com.dlvb.asyncbankapp.concurrent.OptimisticRetryTemplate;
 import com.dlvb.asyncbankapp.dto.CreateAccountDTO;
 import com.dlvb.asyncbankapp.dto.TransactionDTO;
+import com.dlvb.asyncbankapp.dto.TransactionResult;
+import com.dlvb.asyncbankapp.job.BatchJob;
 import com.dlvb.asyncbankapp.model.Account;
+import com.dlvb.asyncbankapp.repository.AccountRepository;
+import com.dlvb.asyncbankapp.repository.TransactionRepository;
 import com.dlvb.asyncbankapp.service.AccountService;
+import com.dlvb.asyncbankapp.service.BatchProgressListener;
 import com.dlvb.asyncbankapp.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -20,14 +30,28 @@ import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.testcontainers.shaded.org.awaitility.Awaitility.await;
 
 @Slf4j
@@ -41,6 +65,9 @@ class TransactionServiceImplTests {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private TransactionRepository transactionRepository;
+
     @Container
     static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:16")
             .withDatabaseName("test_db")
@@ -73,6 +100,55 @@ class TransactionServiceImplTests {
         assertEquals(200, account2.getBalance());
     }
 
+    @Test
+    void testProcessTransactionConcurrentOppositeTransfersKeepTotalBalance() throws InterruptedException {
+        Account account1 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(1000)
+                .build());
+        Account account2 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(1000)
+                .build());
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tasks.add(() -> {
+                transactionService.processTransaction(account1.getId(), account2.getId(), 10);
+                return null;
+            });
+            tasks.add(() -> {
+                transactionService.processTransaction(account2.getId(), account1.getId(), 5);
+                return null;
+            });
+        }
+
+        executorService.invokeAll(tasks);
+        executorService.shutdown();
+
+        assertEquals(750, accountService.findById(account1.getId()).getBalance());
+        assertEquals(1250, accountService.findById(account2.getId()).getBalance());
+    }
+
+    @Test
+    void testProcessTransactionWithInsufficientBalanceKeepsBothBalances() {
+        Account account1 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+        Account account2 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+
+        transactionService.processTransaction(account1.getId(), account2.getId(), 150);
+        transactionService.processTransaction(account2.getId(), account1.getId(), 150);
+
+        assertEquals(100, accountService.findById(account1.getId()).getBalance());
+        assertEquals(100, accountService.findById(account2.getId()).getBalance());
+    }
+
     @Test
     void testProcessMultipleTransactionsUpdatesAccountBalances() {
         Account account1 = accountService.createAccount(CreateAccountDTO.builder()
@@ -109,6 +185,124 @@ class TransactionServiceImplTests {
         assertEquals(200, account4.getBalance());
     }
 
+    @Test
+    void testProcessMultipleTransactionsAppliesTransfersInOrder() {
+        Account account1 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+        Account account2 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+
+        transactionService.processMultipleTransactions(
+                List.of(
+                        TransactionDTO.builder().fromAccountId(account1.getId()).toAccountId(account2.getId()).amount(60).build(),
+                        TransactionDTO.builder().fromAccountId(account1.getId()).toAccountId(account2.getId()).amount(60).build(),
+                        TransactionDTO.builder().fromAccountId(account2.getId()).toAccountId(account1.getId()).amount(10).build()
+                ));
+
+        assertEquals(50, accountService.findById(account1.getId()).getBalance());
+        assertEquals(150, accountService.findById(account2.getId()).getBalance());
+    }
+
+    @Test
+    void testProcessMultipleTransactionsReplayReturnsStoredResultsWithoutChangingBalances() {
+        Account account1 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+        Account account2 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+        List<TransactionDTO> transactions = List.of(
+                TransactionDTO.builder().fromAccountId(account1.getId()).toAccountId(account2.getId()).amount(30).build(),
+                TransactionDTO.builder().fromAccountId(account2.getId()).toAccountId(account1.getId()).amount(10).build());
+        TransactionDTO.applyBatchIdempotencyKey(transactions, "replay-" + account1.getId());
+
+        List<TransactionResult> first = transactionService.processMultipleTransactions(transactions);
+        long transactionCount = transactionRepository.count();
+        List<TransactionResult> second = transactionService.processMultipleTransactions(transactions);
+
+        assertEquals(80, accountService.findById(account1.getId()).getBalance());
+        assertEquals(120, accountService.findById(account2.getId()).getBalance());
+        assertEquals(transactionCount, transactionRepository.count());
+        for (int i = 0; i < transactions.size(); i++) {
+            assertFalse(first.get(i).isReplayed());
+            assertTrue(second.get(i).isReplayed());
+            assertNotNull(first.get(i).getTransactionId());
+            assertEquals(first.get(i).getTransactionId(), second.get(i).getTransactionId());
+        }
+    }
+
+    @Test
+    void testProcessMultipleTransactionsReplayOfFailedItemReturnsStoredError() {
+        Account account1 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+        Account account2 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+        List<TransactionDTO> transactions = List.of(
+                TransactionDTO.builder().fromAccountId(account1.getId()).toAccountId(account2.getId()).amount(500).build(),
+                TransactionDTO.builder().fromAccountId(account2.getId()).toAccountId(account1.getId()).amount(10).build());
+        TransactionDTO.applyBatchIdempotencyKey(transactions, "failed-replay-" + account1.getId());
+
+        List<TransactionResult> first = transactionService.processMultipleTransactions(transactions);
+        accountService.updateBalance(account1.getId(), 1000);
+        List<TransactionResult> second = transactionService.processMultipleTransactions(transactions);
+
+        assertEquals("Insufficient balance", first.get(0).getError());
+        assertTrue(second.get(0).isReplayed());
+        assertEquals(first.get(0).getTransactionId(), second.get(0).getTransactionId());
+        assertEquals("Insufficient balance", second.get(0).getError());
+        assertTrue(second.get(1).isReplayed());
+        assertEquals(first.get(1).getTransactionId(), second.get(1).getTransactionId());
+        assertNull(second.get(1).getError());
+        assertEquals(1110, accountService.findById(account1.getId()).getBalance());
+        assertEquals(90, accountService.findById(account2.getId()).getBalance());
+    }
+
+    @Test
+    void testProcessMultipleTransactionsConcurrentReplaysApplyKeyOnce() throws Exception {
+        Account account1 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+        Account account2 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+        Account account3 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+        String key = "concurrent-" + account1.getId();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        List<Callable<List<TransactionResult>>> tasks = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            tasks.add(() -> transactionService.processMultipleTransactions(List.of(
+                    TransactionDTO.builder().fromAccountId(account1.getId()).toAccountId(account2.getId()).amount(10)
+                            .idempotencyKey(key).build(),
+                    TransactionDTO.builder().fromAccountId(account3.getId()).toAccountId(account2.getId()).amount(1).build())));
+        }
+        List<String> transactionIds = new ArrayList<>();
+        for (Future<List<TransactionResult>> future : executorService.invokeAll(tasks)) {
+            transactionIds.add(future.get(5, TimeUnit.SECONDS).get(0).getTransactionId());
+        }
+        executorService.shutdown();
+
+        assertEquals(90, accountService.findById(account1.getId()).getBalance());
+        assertEquals(112, accountService.findById(account2.getId()).getBalance());
+        assertEquals(98, accountService.findById(account3.getId()).getBalance());
+        assertEquals(transactionIds.get(0), transactionIds.get(1));
+    }
+
     @Test
     void testProcessMultipleTransactionsAsyncUpdatesAccountBalances() {
 
@@ -149,6 +343,76 @@ class TransactionServiceImplTests {
 
     }
 
+    @Test
+    void testProcessMultipleTransactionsAsyncFailedGroupDoesNotRollBackGroupsInSameBucket() {
+        Account account1 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+        Account account2 = accountService.createAccount(CreateAccountDTO.builder()
+                .owner("test")
+                .balance(100)
+                .build());
+        List<Integer> failed = new CopyOnWriteArrayList<>();
+        BatchProgressListener listener = new BatchProgressListener() {
+            @Override
+            public void onItemsCompleted(int count) {
+            }
+
+            @Override
+            public void onItemFailed(int index, String reason) {
+                failed.add(index);
+            }
+        };
+
+        Object parallelism = ReflectionTestUtils.getField(transactionService, "parallelism");
+        ReflectionTestUtils.setField(transactionService, "parallelism", 1);
+        try {
+            CompletableFuture<Void> future = transactionService.processMultipleTransactionsAsync(List.of(
+                    TransactionDTO.builder().fromAccountId(account1.getId()).toAccountId(account2.getId()).amount(30).build(),
+                    TransactionDTO.builder().fromAccountId(account1.getId() + "-missing").toAccountId("missing").amount(10).build()),
+                    listener);
+
+            assertThrows(CompletionException.class, future::join);
+        } finally {
+            ReflectionTestUtils.setField(transactionService, "parallelism", parallelism);
+        }
+
+        assertEquals(List.of(1), failed);
+        assertEquals(70, accountService.findById(account1.getId()).getBalance());
+        assertEquals(130, accountService.findById(account2.getId()).getBalance());
+    }
+
+    @Test
+    void testProcessMultipleTransactionsAsyncKeepsStartedBucketsWhenExecutorRejectsLaterOne() {
+        TransactionBatchProcessor transactionBatchProcessor = mock(TransactionBatchProcessor.class);
+        when(transactionBatchProcessor.process(any())).thenAnswer(invocation -> invocation.<List<TransactionDTO>>getArgument(0).stream()
+                .map(dto -> TransactionResult.builder().transactionId("tx").build())
+                .toList());
+        AtomicInteger submitted = new AtomicInteger();
+        Executor rejectingExecutor = task -> {
+            if (submitted.getAndIncrement() > 0) {
+                throw new TaskRejectedException("Executor is full");
+            }
+            task.run();
+        };
+        TransactionServiceImpl service = new TransactionServiceImpl(mock(AccountRepository.class), mock(TransactionRepository.class),
+                new AccountLockManager(16, 100), transactionBatchProcessor,
+                new OptimisticRetryTemplate(new SimpleMeterRegistry(), 5, 10, 200), rejectingExecutor);
+        ReflectionTestUtils.setField(service, "parallelism", 2);
+        BatchJob job = new BatchJob("transactions", 2, 10);
+
+        CompletableFuture<Void> future = service.processMultipleTransactionsAsync(List.of(
+                TransactionDTO.builder().fromAccountId("a").toAccountId("b").amount(1).build(),
+                TransactionDTO.builder().fromAccountId("c").toAccountId("d").amount(1).build()), job);
+
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(TaskRejectedException.class, e.getCause());
+        verify(transactionBatchProcessor, times(1)).process(any());
+        assertEquals(2, job.getProcessedItems().get());
+        assertEquals(1, job.getFailedItems().get());
+    }
+
     @Test
     void testSafeLockTransfer_shouldNotFallWithDeadlock() throws Exception {
         Account account1 = accountService.createAccount(CreateAccountDTO.builder()
@@ -183,11 +447,11 @@ class TransactionServiceImplTests {
                 .balance(1000)
                 .build());
 
-        double initialFromAccountBalance = account1.getBalance();
-        double initialToAccountBalance = account2.getBalance();
+        long initialFromAccountBalance = account1.getBalance();
+        long initialToAccountBalance = account2.getBalance();
 
         int threadCount = 100;
-        double amount = 10;
+        long amount = 10;
 
         ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
         List<Callable<Void>> tasks = new ArrayList<>();
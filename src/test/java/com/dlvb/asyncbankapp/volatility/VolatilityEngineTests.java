@@ -0,0 +1,100 @@
+package com.dlvb.asyncbankapp.volatility;
+
+import com.dlvb.asyncbankapp.dto.VolatilityEstimate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VolatilityEngineTests {
+
+    private final VolatilityEngine volatilityEngine = new VolatilityEngine(4, 1000, 1000, Duration.ofSeconds(10));
+
+    @AfterEach
+    void tearDown() {
+        volatilityEngine.destroy();
+    }
+
+    @Test
+    void testSequentialAndParallelResultsMatchForSameSeed() throws Exception {
+        long currentTime = 1_700_000_000_000L;
+
+        double sequential = volatilityEngine.averageVolatilitySequential(currentTime, 100_003, 42L);
+
+        assertEquals(sequential, volatilityEngine.averageVolatility(currentTime, 100_003, 42L));
+        assertEquals(sequential, volatilityEngine.averageVolatility(currentTime, 100_003, 42L));
+        assertNotEquals(sequential, volatilityEngine.averageVolatility(currentTime, 100_003, 43L));
+    }
+
+    @Test
+    void testAverageConvergesToDeterministicFactors() throws Exception {
+        long currentTime = 1_700_000_000_000L;
+
+        assertEquals(VolatilityModel.deterministicVolatility(currentTime),
+                volatilityEngine.averageVolatility(currentTime, 1_000_000, null), 0.001);
+        assertEquals(0, volatilityEngine.averageVolatility(currentTime, 0, 42L));
+    }
+
+    @Test
+    void testFactorsSumToSingleIterationVolatility() {
+        long currentTime = 1_700_000_000_000L;
+        double sum = 0;
+        for (int i = 1; i < VolatilityModel.FACTOR_COUNT; i++) {
+            sum += VolatilityModel.factor(i, currentTime, new SplittableRandom(42));
+        }
+
+        assertEquals(VolatilityModel.deterministicVolatility(currentTime), sum, 1e-12);
+    }
+
+    @Test
+    void testEstimateStopsOnceTargetStandardErrorIsReached() throws Exception {
+        long currentTime = 1_700_000_000_000L;
+
+        VolatilityEstimate estimate = volatilityEngine.estimate(currentTime, 0.0005, Duration.ofSeconds(10), 42L);
+
+        assertTrue(estimate.isConverged());
+        assertTrue(estimate.getStandardError() <= 0.0005);
+        assertTrue(estimate.getIterations() < 8000);
+        assertTrue(estimate.getLowerBound() < estimate.getMean() && estimate.getMean() < estimate.getUpperBound());
+        assertEquals(VolatilityModel.deterministicVolatility(currentTime), estimate.getMean(), 5 * estimate.getStandardError());
+        assertEquals(estimate.getMean(), volatilityEngine.estimate(currentTime, 0.0005, Duration.ofSeconds(10), 42L).getMean());
+    }
+
+    @Test
+    void testEstimateStopsWhenTimeBudgetIsExhausted() throws Exception {
+        VolatilityEstimate estimate = volatilityEngine.estimate(0, 1e-12, Duration.ZERO, null);
+
+        assertFalse(estimate.isConverged());
+        assertEquals(4000, estimate.getIterations());
+    }
+
+    @Test
+    void testMergedStatisticsMatchSingleStream() {
+        SplittableRandom random = new SplittableRandom(7);
+        SampleStatistics whole = SampleStatistics.EMPTY;
+        SampleStatistics first = SampleStatistics.EMPTY;
+        SampleStatistics second = SampleStatistics.EMPTY;
+        for (int i = 0; i < 1000; i++) {
+            SampleStatistics sample = new SampleStatistics(1, random.nextDouble(), 0);
+            whole = whole.merge(sample);
+            if (i < 300) {
+                first = first.merge(sample);
+            } else {
+                second = second.merge(sample);
+            }
+        }
+
+        SampleStatistics merged = first.merge(second);
+        assertEquals(whole.count(), merged.count());
+        assertEquals(whole.mean(), merged.mean(), 1e-12);
+        assertEquals(whole.variance(), merged.variance(), 1e-12);
+        assertEquals(1.0 / 12, merged.variance(), 0.01);
+    }
+
+}